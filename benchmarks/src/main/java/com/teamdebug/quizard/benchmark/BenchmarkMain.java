@@ -0,0 +1,26 @@
+package com.teamdebug.quizard.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of benchmarks.jar: the regular JMH command line, with the GC
+// profiler always on so every result carries its allocation rate
+// (gc.alloc.rate.norm = bytes allocated per operation).
+//   java -jar target/benchmarks.jar                      all benchmarks
+//   java -jar target/benchmarks.jar Segmentation -p size=1mb
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.teamdebug.quizard.benchmark;
+
+import com.teamdebug.quizard.service.FileExtractionService;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Upload extraction through FileExtractionService, from in-memory bytes so
+// only parsing and chunking are measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FileExtractionBenchmark {
+
+    @Param({"small", "1mb", "50mb"})
+    private String size;
+
+    @Param({"txt", "docx"})
+    private String format;
+
+    private FileExtractionService service;
+    private byte[] document;
+    private String fileName;
+
+    @Setup
+    public void setUp() {
+        service = new FileExtractionService(1, 16, new PipelineMetrics(new SimpleMeterRegistry()));
+        String text = Fixtures.text(size);
+        document = format.equals("docx") ? Fixtures.docx(text) : text.getBytes(StandardCharsets.UTF_8);
+        fileName = "fixture-" + size + "." + format;
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public void extractChunks(Blackhole blackhole) throws IOException {
+        service.extractChunks(fileName, () -> new ByteArrayInputStream(document), blackhole::consume);
+    }
+}
@@ -0,0 +1,136 @@
+package com.teamdebug.quizard.benchmark;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+// Deterministic study-material fixtures. Text reads like lecture notes:
+// headings, paragraphs of definitional and explanatory sentences, and
+// enumerations, so sentence/token statistics resemble real uploads.
+// Sizes: "small" (a few KB, a typical pasted text), "1mb" (a long course
+// handout), "50mb" (a full course pack).
+public final class Fixtures {
+
+    private static final String[] TOPICS = {
+        "Photosynthesis", "The cell membrane", "Mitochondria", "Plate tectonics", "The water cycle",
+        "Supply and demand", "Inflation", "The French Revolution", "The Industrial Revolution",
+        "Newton's second law", "Electromagnetic induction", "A binary search tree", "Recursion",
+        "The immune system", "Natural selection", "Market equilibrium", "Opportunity cost",
+        "The nervous system", "Chemical equilibrium", "Thermodynamics"
+    };
+
+    private static final String[] DEFINITIONS = {
+        "is the process by which %s changes over time",
+        "refers to the mechanism that links %s with its surroundings",
+        "is a fundamental concept that explains how %s behaves under pressure",
+        "means that every change in %s produces a measurable effect",
+        "is defined as the relationship between %s and the forces acting on it"
+    };
+
+    private static final String[] EXPLANATIONS = {
+        "Researchers observed that %s depends strongly on temperature and available energy",
+        "In practice, students often confuse %s with related ideas from earlier chapters",
+        "A common exam question asks how %s would respond if one variable doubled",
+        "Historical records show that %s was first described in the early modern period",
+        "Experiments confirm that %s remains stable unless an external factor intervenes"
+    };
+
+    private static final String[] ITEMS = {
+        "energy", "structure", "feedback", "equilibrium", "variation", "transport", "regulation",
+        "growth", "cost", "pressure", "velocity", "resistance", "adaptation", "signals", "storage"
+    };
+
+    private Fixtures() {
+    }
+
+    public static int bytesFor(String size) {
+        switch (size) {
+            case "small":
+                return 4 * 1024;
+            case "1mb":
+                return 1024 * 1024;
+            case "50mb":
+                return 50 * 1024 * 1024;
+            default:
+                throw new IllegalArgumentException("Unknown fixture size: " + size);
+        }
+    }
+
+    public static String text(String size) {
+        int target = bytesFor(size);
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(target + 1024);
+        int section = 1;
+        while (text.length() < target) {
+            String topic = TOPICS[random.nextInt(TOPICS.length)];
+            text.append("Section ").append(section++).append(": ").append(topic).append("\n\n");
+            for (int paragraph = 0; paragraph < 3 && text.length() < target; paragraph++) {
+                appendParagraph(text, topic, random);
+                text.append("\n\n");
+            }
+        }
+        return text.toString();
+    }
+
+    // The same text as a DOCX, one Word paragraph per text paragraph
+    public static byte[] docx(String text) {
+        try (XWPFDocument document = new XWPFDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() / 2)) {
+            for (String paragraph : text.split("\n\n")) {
+                XWPFParagraph docParagraph = document.createParagraph();
+                docParagraph.createRun().setText(paragraph);
+            }
+            document.write(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A quiz answer in the shape the AI returns: a JSON array of questions
+    public static String quizJson(int questions) {
+        Random random = new Random(7);
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < questions; i++) {
+            String topic = TOPICS[random.nextInt(TOPICS.length)];
+            if (i > 0) {
+                json.append(",\n");
+            }
+            json.append("  {\n")
+                .append("    \"question\": \"Which statement best describes how ").append(topic.toLowerCase())
+                .append(" relates to ").append(item(random)).append(" (item ").append(i).append(")?\",\n")
+                .append("    \"options\": [\"A) It increases ").append(item(random)).append("\", \"B) It reduces ")
+                .append(item(random)).append("\", \"C) It has no effect on ").append(item(random))
+                .append("\", \"D) It replaces ").append(item(random)).append("\"],\n")
+                .append("    \"correctAnswer\": \"").append((char) ('A' + random.nextInt(4))).append("\",\n")
+                .append("    \"explanation\": \"The notes explain that ").append(topic.toLowerCase())
+                .append(" depends on ").append(item(random)).append(" and ").append(item(random)).append(".\"\n")
+                .append("  }");
+        }
+        return json.append("\n]").toString();
+    }
+
+    private static void appendParagraph(StringBuilder text, String topic, Random random) {
+        String subject = topic.toLowerCase();
+        text.append(topic).append(' ')
+            .append(String.format(DEFINITIONS[random.nextInt(DEFINITIONS.length)], item(random))).append(". ");
+        int sentences = 3 + random.nextInt(4);
+        for (int i = 0; i < sentences; i++) {
+            text.append(String.format(EXPLANATIONS[random.nextInt(EXPLANATIONS.length)], subject)).append(". ");
+        }
+        if (random.nextInt(3) == 0) {
+            text.append("The main factors of ").append(subject).append(" include ")
+                .append(item(random)).append(", ").append(item(random)).append(", and ")
+                .append(item(random)).append(". ");
+        }
+        text.setLength(text.length() - 1);
+    }
+
+    private static String item(Random random) {
+        return ITEMS[random.nextInt(ITEMS.length)];
+    }
+}
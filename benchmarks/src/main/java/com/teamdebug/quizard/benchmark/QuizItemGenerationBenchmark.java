@@ -0,0 +1,62 @@
+package com.teamdebug.quizard.benchmark;
+
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.service.generator.MultipleChoiceGenerator;
+import com.teamdebug.quizard.service.parser.ChunkCollector;
+import com.teamdebug.quizard.service.text.SegmentedText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Local quiz generation with its distractor search (MultipleChoiceGenerator
+// and its TermIndex): the upload path's QuizItems and the AI
+// fallback's questions, at a typical and a bulk count. Uploads only hand the
+// generators the document head (ChunkCollector.HEAD_CHARS), so fixtures
+// beyond that size measure the same work.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuizItemGenerationBenchmark {
+
+    @Param({"small", "1mb"})
+    private String size;
+
+    @Param({"10", "500"})
+    private int count;
+
+    private final MultipleChoiceGenerator multipleChoiceGenerator = new MultipleChoiceGenerator();
+    private String head;
+    private SegmentedText content;
+
+    @Setup
+    public void setUp() {
+        String text = Fixtures.text(size);
+        head = text.substring(0, Math.min(text.length(), ChunkCollector.HEAD_CHARS)).trim();
+        content = SegmentedText.of(head);
+    }
+
+    @Benchmark
+    public List<QuizItem> reviewerQuizItems() {
+        return multipleChoiceGenerator.generateQuizItems(content, count);
+    }
+
+    @Benchmark
+    public List<QuizQuestion> multipleChoiceFallback() {
+        return multipleChoiceGenerator.generate(head, count);
+    }
+}
@@ -0,0 +1,70 @@
+package com.teamdebug.quizard.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.service.ai.JsonArrayStreamParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The quiz answer parse path: JsonArrayStreamParser binding QuizQuestions,
+// fed the whole answer at once (parseQuizResponse) or in small deltas the
+// way a streamed answer arrives. 5 and 50 questions are single calls; 5000
+// (about 1 MB) is a merged fan-out bank.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuizResponseParsingBenchmark {
+
+    private static final int DELTA_CHARS = 16;
+
+    @Param({"5", "50", "5000"})
+    private int questions;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String json;
+    private List<String> deltas;
+
+    @Setup
+    public void setUp() {
+        json = Fixtures.quizJson(questions);
+        deltas = new ArrayList<>();
+        for (int i = 0; i < json.length(); i += DELTA_CHARS) {
+            deltas.add(json.substring(i, Math.min(json.length(), i + DELTA_CHARS)));
+        }
+    }
+
+    @Benchmark
+    public int wholeAnswer(Blackhole blackhole) {
+        JsonArrayStreamParser<QuizQuestion> parser =
+            new JsonArrayStreamParser<>(objectMapper, QuizQuestion.class, blackhole::consume);
+        parser.feed(json);
+        return parser.getParsed();
+    }
+
+    @Benchmark
+    public int streamedDeltas(Blackhole blackhole) {
+        JsonArrayStreamParser<QuizQuestion> parser =
+            new JsonArrayStreamParser<>(objectMapper, QuizQuestion.class, blackhole::consume);
+        for (String delta : deltas) {
+            parser.feed(delta);
+        }
+        return parser.getParsed();
+    }
+}
@@ -0,0 +1,67 @@
+package com.teamdebug.quizard.benchmark;
+
+import com.teamdebug.quizard.service.text.SegmentedText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Sentence and word segmentation: the split("[.!?]+") / split("\\s+") chain
+// the generators used to repeat, against the single-pass SegmentedText index.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TextSegmentationBenchmark {
+
+    @Param({"small", "1mb", "50mb"})
+    private String size;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = Fixtures.text(size);
+    }
+
+    @Benchmark
+    public void regexSplit(Blackhole blackhole) {
+        for (String sentence : text.split("[.!?]+")) {
+            String trimmed = sentence.trim();
+            if (!trimmed.isEmpty()) {
+                blackhole.consume(trimmed.split("\\s+"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void segmentedText(Blackhole blackhole) {
+        SegmentedText content = SegmentedText.of(text);
+        for (int s = 0; s < content.sentenceCount(); s++) {
+            blackhole.consume(content.tokenCount(s));
+        }
+    }
+
+    // The generators also read most tokens as strings
+    @Benchmark
+    public void segmentedTextWithTokens(Blackhole blackhole) {
+        SegmentedText content = SegmentedText.of(text);
+        for (int s = 0; s < content.sentenceCount(); s++) {
+            for (int t = 0; t < content.tokenCount(s); t++) {
+                blackhole.consume(content.token(s, t));
+            }
+        }
+    }
+}
@@ -37,6 +37,98 @@ CREATE TABLE IF NOT EXISTS user_sessions (
     INDEX idx_expires_at (expires_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- ============================================
+-- ID SEQUENCES TABLE
+-- ============================================
+-- Pooled id allocation: each row is advanced a block (50) at a time
+CREATE TABLE IF NOT EXISTS id_sequences (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- REVIEWERS TABLE
+-- ============================================
+CREATE TABLE IF NOT EXISTS reviewers (
+    id BIGINT NOT NULL PRIMARY KEY,
+    file_name VARCHAR(255),
+    -- Original text as a zlib (deflate) stream of its UTF-8 bytes; length in chars
+    original_text_deflated LONGBLOB,
+    original_text_length BIGINT,
+    summarized_text LONGTEXT
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Databases set up before original texts were stored compressed have an
+-- original_text LONGTEXT column instead. This moves every row over; it does
+-- nothing on a new database and is safe to run more than once. COMPRESS()
+-- returns a 4-byte length followed by a zlib stream, so the stream alone is
+-- what the application reads back. Run it before starting the new version:
+-- a row left unmigrated loads with an empty original text (and a warning).
+DROP PROCEDURE IF EXISTS migrate_reviewer_original_text;
+DELIMITER //
+CREATE PROCEDURE migrate_reviewer_original_text()
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+               AND TABLE_NAME = 'reviewers' AND COLUMN_NAME = 'original_text') THEN
+        IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+                       AND TABLE_NAME = 'reviewers' AND COLUMN_NAME = 'original_text_deflated') THEN
+            ALTER TABLE reviewers ADD COLUMN original_text_deflated LONGBLOB AFTER original_text;
+        END IF;
+        IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+                       AND TABLE_NAME = 'reviewers' AND COLUMN_NAME = 'original_text_length') THEN
+            ALTER TABLE reviewers ADD COLUMN original_text_length BIGINT AFTER original_text_deflated;
+        END IF;
+        -- Empty texts keep a NULL stream; the application loads those as ""
+        UPDATE reviewers
+        SET original_text_deflated = CASE WHEN original_text = '' THEN NULL
+                ELSE SUBSTRING(COMPRESS(CONVERT(original_text USING utf8mb4)), 5) END,
+            original_text_length = CHAR_LENGTH(original_text)
+        WHERE original_text IS NOT NULL AND original_text_length IS NULL;
+    END IF;
+END //
+DELIMITER ;
+
+CALL migrate_reviewer_original_text();
+DROP PROCEDURE migrate_reviewer_original_text;
+
+-- Once the migrated reviewers load correctly, the old column can go:
+-- ALTER TABLE reviewers DROP COLUMN original_text;
+
+-- ============================================
+-- FLASHCARDS TABLE
+-- ============================================
+CREATE TABLE IF NOT EXISTS flashcards (
+    id BIGINT NOT NULL PRIMARY KEY,
+    reviewer_id BIGINT,
+    term VARCHAR(1000),
+    definition TEXT,
+    INDEX idx_flashcards_reviewer_id (reviewer_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- QUIZ ITEMS TABLE
+-- ============================================
+CREATE TABLE IF NOT EXISTS quiz_items (
+    id BIGINT NOT NULL PRIMARY KEY,
+    reviewer_id BIGINT,
+    question TEXT,
+    choices TEXT,
+    correct_answer VARCHAR(1000),
+    type VARCHAR(32),
+    INDEX idx_quiz_items_reviewer_id (reviewer_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- QUIZ ATTEMPTS TABLE
+-- ============================================
+CREATE TABLE IF NOT EXISTS quiz_attempts (
+    id BIGINT NOT NULL PRIMARY KEY,
+    reviewer_id BIGINT,
+    user_answers TEXT,
+    score INT NOT NULL,
+    INDEX idx_quiz_attempts_reviewer_id (reviewer_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- ============================================
 -- CLEAN UP EXPIRED SESSIONS (Optional event)
 -- ============================================
@@ -60,6 +152,7 @@ DELIMITER ;
 -- SHOW TABLES;
 -- DESCRIBE users;
 -- DESCRIBE user_sessions;
+-- DESCRIBE reviewers;
 
 SELECT 'Database setup complete!' AS status;
 
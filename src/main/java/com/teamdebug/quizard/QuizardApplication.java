@@ -2,8 +2,6 @@ package com.teamdebug.quizard;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class QuizardApplication {
@@ -12,9 +10,4 @@ public class QuizardApplication {
 		SpringApplication.run(QuizardApplication.class, args);
 	}
 
-	@Bean
-	public RestTemplate restTemplate() {
-		return new RestTemplate();
-	}
-
 }
@@ -0,0 +1,62 @@
+package com.teamdebug.quizard.controller;
+
+import com.teamdebug.quizard.model.dto.Flashcard;
+import com.teamdebug.quizard.model.dto.FlashcardRequest;
+import com.teamdebug.quizard.model.dto.FlashcardResponse;
+import com.teamdebug.quizard.service.FlashcardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/flashcards")
+@CrossOrigin(origins = "*")
+public class FlashcardController {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashcardController.class);
+    
+    @Autowired
+    private FlashcardService flashcardService;
+    
+    // Generate AI flashcards from raw text; fresh=true skips cached answers
+    @PostMapping("/generate")
+    public ResponseEntity<FlashcardResponse> generateFlashcards(@RequestBody FlashcardRequest request) {
+        try {
+            List<Flashcard> flashcards = flashcardService.generateFlashcards(
+                request.getText(), request.getNumberOfCards(), request.isFresh());
+            
+            return ResponseEntity.ok(new FlashcardResponse(flashcards));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new FlashcardResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error generating flashcards", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new FlashcardResponse("Error generating flashcards: " + e.getMessage()));
+        }
+    }
+    
+    // Stream flashcards over SSE: a "flashcard" event as soon as each one is
+    // complete, then "done" (or "error")
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFlashcards(@RequestBody FlashcardRequest request) {
+        SseEmitter emitter = new SseEmitter(GenerationEvents.TIMEOUT_MS);
+        try {
+            GenerationEvents.finish(emitter, flashcardService.streamFlashcards(
+                request.getText(), request.getNumberOfCards(), request.isFresh(),
+                card -> GenerationEvents.send(emitter, "flashcard", card)));
+            return emitter;
+            
+        } catch (IllegalArgumentException e) {
+            return GenerationEvents.rejected(e.getMessage());
+        }
+    }
+}
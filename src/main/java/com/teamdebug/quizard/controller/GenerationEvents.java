@@ -0,0 +1,58 @@
+package com.teamdebug.quizard.controller;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// SSE plumbing shared by the streaming generation endpoints: one named event
+// per generated item, then "done" with the count or "error" with a message
+final class GenerationEvents {
+
+    static final long TIMEOUT_MS = 5 * 60 * 1000L;
+
+    private GenerationEvents() {}
+
+    // Throws if the client has gone away, which stops the upstream stream too
+    static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Client disconnected", e);
+        }
+    }
+
+    static void finish(SseEmitter emitter, CompletableFuture<Integer> generation) {
+        generation.whenComplete((count, error) -> {
+            try {
+                if (error == null) {
+                    emitter.send(SseEmitter.event().name("done").data(Map.of("count", count)));
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof UncheckedIOException) {
+                        return; // nobody left to tell
+                    }
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("error", String.valueOf(cause.getMessage()))));
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        });
+    }
+
+    static SseEmitter rejected(String message) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("error", message)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+}
@@ -1,16 +1,69 @@
 package com.teamdebug.quizard.controller;
 
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.model.dto.QuizRequest;
+import com.teamdebug.quizard.model.dto.QuizResponse;
+import com.teamdebug.quizard.service.QuizGeneratorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/quiz")
 @CrossOrigin(origins = "*")
 public class QuizController {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizController.class);
+    
+    @Autowired
+    private QuizGeneratorService quizGeneratorService;
     
     @GetMapping("/test")
     public String test() {
         return "Backend is connected!";
     }
     
-    // Your other endpoints here
-}
\ No newline at end of file
+    // Generate an AI quiz from raw text; fresh=true skips cached answers
+    @PostMapping("/generate")
+    public ResponseEntity<QuizResponse> generateQuiz(@RequestBody QuizRequest request) {
+        try {
+            String difficulty = request.getDifficulty() != null ? request.getDifficulty() : "medium";
+            List<QuizQuestion> questions = quizGeneratorService.generateQuiz(
+                request.getText(), request.getNumberOfQuestions(), difficulty, request.isFresh());
+            
+            return ResponseEntity.ok(new QuizResponse(questions));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new QuizResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error generating quiz", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new QuizResponse("Error generating quiz: " + e.getMessage()));
+        }
+    }
+    
+    // Stream quiz questions over SSE: a "question" event as soon as each one is
+    // complete, then "done" (or "error")
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQuiz(@RequestBody QuizRequest request) {
+        SseEmitter emitter = new SseEmitter(GenerationEvents.TIMEOUT_MS);
+        try {
+            String difficulty = request.getDifficulty() != null ? request.getDifficulty() : "medium";
+            GenerationEvents.finish(emitter, quizGeneratorService.streamQuiz(
+                request.getText(), request.getNumberOfQuestions(), difficulty, request.isFresh(),
+                question -> GenerationEvents.send(emitter, "question", question)));
+            return emitter;
+            
+        } catch (IllegalArgumentException e) {
+            return GenerationEvents.rejected(e.getMessage());
+        }
+    }
+}
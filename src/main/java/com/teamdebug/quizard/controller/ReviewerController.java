@@ -1,72 +1,111 @@
 package com.teamdebug.quizard.controller;
 
 import com.teamdebug.quizard.model.dto.ReviewerResponse;
+import com.teamdebug.quizard.model.dto.StudySetRequest;
+import com.teamdebug.quizard.model.dto.StudySetResponse;
+import com.teamdebug.quizard.model.dto.UploadResult;
 import com.teamdebug.quizard.model.entity.Flashcard;
 import com.teamdebug.quizard.model.entity.QuizItem;
 import com.teamdebug.quizard.model.entity.Reviewer;
-import com.teamdebug.quizard.service.FileExtractionService;
+import com.teamdebug.quizard.service.ReviewerService;
+import com.teamdebug.quizard.service.StudySetService;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.job.UploadJob;
+import com.teamdebug.quizard.service.job.UploadJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import org.springframework.web.bind.annotation.RequestMethod;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/reviewers")
 @CrossOrigin(origins = "*", allowedHeaders = "*", methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.OPTIONS})
 public class ReviewerController {
 
+    private static final Logger log = LoggerFactory.getLogger(ReviewerController.class);
+
+    private static final long EVENTS_TIMEOUT_MS = 10 * 60 * 1000L;
+
     @Autowired
-    private FileExtractionService fileExtractionService;
+    private ReviewerService reviewerService;
 
-    // In-memory storage (replace with database later)
-    private Map<Long, Reviewer> reviewers = new HashMap<>();
-    private Map<Long, List<Flashcard>> flashcardsMap = new HashMap<>();
-    private Map<Long, List<QuizItem>> quizItemsMap = new HashMap<>();
-    private Long nextId = 1L;
-    private Long nextFlashcardId = 1L;
-    private Long nextQuizItemId = 1L;
+    @Autowired
+    private UploadJobService uploadJobService;
 
-    // Upload file endpoint
-    @PostMapping("/upload")
-    public Map<String, Object> uploadFile(@RequestParam("file") MultipartFile file) {
-        Map<String, Object> response = new HashMap<>();
+    @Autowired
+    private AiClient aiClient;
 
-        try {
-            // Read file content using FileExtractionService
-            String fileName = file.getOriginalFilename();
-            String content = fileExtractionService.extractText(file);
+    @Autowired
+    private StudySetService studySetService;
 
-            // Create reviewer
-            Reviewer reviewer = new Reviewer();
-            reviewer.setId(nextId);
-            reviewer.setFileName(fileName);
-            reviewer.setOriginalText(content);
-            reviewer.setSummarizedText(generateSummary(content));
+    @Value("${quizard.study-set.max-input-chars:400000}")
+    private long maxStudySetChars;
 
-            // Store reviewer
-            reviewers.put(nextId, reviewer);
+    // Upload file endpoint; async=true queues the work and returns 202 with a job id
+    @PostMapping("/upload")
+    public ResponseEntity<Map<String, Object>> uploadFile(@RequestParam("file") MultipartFile file,
+                                                          @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            return submitUploadJob(file);
+        }
 
-            // Generate flashcards and quiz items
-            List<Flashcard> flashcards = generateFlashcards(content, nextId);
-            List<QuizItem> quizItems = generateQuizItems(content, nextId);
+        Map<String, Object> response = new HashMap<>();
 
-            flashcardsMap.put(nextId, flashcards);
-            quizItemsMap.put(nextId, quizItems);
+        try {
+            UploadResult result = reviewerService.processUpload(file.getOriginalFilename(), file);
 
-            response.put("id", nextId);
-            response.put("fileName", fileName);
+            response.put("id", result.getReviewerId());
+            response.put("fileName", result.getFileName());
+            if (result.isCached()) {
+                response.put("cached", true);
+            }
             response.put("message", "File uploaded successfully");
 
-            nextId++;
-
         } catch (Exception e) {
             response.put("error", "Upload failed: " + e.getMessage());
         }
 
-        return response;
+        return ResponseEntity.ok(response);
+    }
+
+    // Poll upload job status
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getUploadJob(@PathVariable String jobId) {
+        return uploadJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Upload job not found")));
+    }
+
+    // Subscribe to upload job progress events
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getUploadJobEvents(@PathVariable String jobId) {
+        Optional<UploadJob> job = uploadJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(EVENTS_TIMEOUT_MS);
+        job.get().subscribe(emitter);
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Store and cache statistics
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = reviewerService.getStats();
+        stats.put("ai", aiClient.getStats());
+        return stats;
     }
 
     // Get summary endpoint
@@ -74,7 +113,7 @@ public class ReviewerController {
     public Map<String, String> getSummary(@PathVariable Long id) {
         Map<String, String> response = new HashMap<>();
 
-        Reviewer reviewer = reviewers.get(id);
+        Reviewer reviewer = reviewerService.getReviewer(id);
         if (reviewer != null) {
             response.put("summary", reviewer.getSummarizedText());
         } else {
@@ -87,19 +126,48 @@ public class ReviewerController {
     // Generate flashcards endpoint
     @PostMapping("/{id}/flashcards")
     public List<Flashcard> getFlashcards(@PathVariable Long id) {
-        return flashcardsMap.getOrDefault(id, new ArrayList<>());
+        return reviewerService.getFlashcards(id);
     }
 
     // Generate quiz endpoint
     @PostMapping("/{id}/quiz")
     public List<QuizItem> getQuiz(@PathVariable Long id) {
-        return quizItemsMap.getOrDefault(id, new ArrayList<>());
+        return reviewerService.getQuizItems(id);
+    }
+
+    // AI study set for an uploaded reviewer in one call; counts, difficulty and fresh come from the optional body
+    @PostMapping("/{id}/study-set")
+    public ResponseEntity<StudySetResponse> generateStudySet(@PathVariable Long id,
+                                                             @RequestBody(required = false) StudySetRequest request) {
+        StudySetRequest options = request != null ? request : new StudySetRequest();
+        String difficulty = options.getDifficulty() != null ? options.getDifficulty() : "medium";
+
+        try {
+            // Sized from the stored length, so an oversized document is refused before it is decompressed
+            long length = reviewerService.getOriginalTextLength(id);
+            if (length > maxStudySetChars) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new StudySetResponse(
+                        "Document is too long for a study set (" + length + " characters, limit " + maxStudySetChars + ")"));
+            }
+            String text = length < 0 ? null : reviewerService.loadOriginalText(id);
+            if (text == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new StudySetResponse("Reviewer not found"));
+            }
+            return ResponseEntity.ok(studySetService.generateStudySet(text,
+                    options.getNumberOfCards(), options.getNumberOfQuestions(), difficulty, options.isFresh()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new StudySetResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error generating study set", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new StudySetResponse("Error generating study set: " + e.getMessage()));
+        }
     }
 
     // Get complete reviewer response
     @GetMapping("/{id}")
     public ReviewerResponse getReviewer(@PathVariable Long id) {
-        Reviewer reviewer = reviewers.get(id);
+        Reviewer reviewer = reviewerService.getReviewer(id);
         if (reviewer == null) {
             return null;
         }
@@ -107,140 +175,31 @@ public class ReviewerController {
         return new ReviewerResponse(
                 reviewer.getId(),
                 reviewer.getSummarizedText(),
-                flashcardsMap.getOrDefault(id, new ArrayList<>()),
-                quizItemsMap.getOrDefault(id, new ArrayList<>())
+                reviewerService.getFlashcards(id),
+                reviewerService.getQuizItems(id)
         );
     }
 
-    // Helper: Generate summary
-    private String generateSummary(String content) {
-        String[] sentences = content.split("[.!?]+");
-        StringBuilder summary = new StringBuilder("📋 KEY POINTS:\n\n");
-
-        int count = 0;
-        for (String sentence : sentences) {
-            String trimmed = sentence.trim();
-            if (trimmed.length() > 10 && count < 10) {  // Lowered from 20 to 10
-                summary.append(++count).append(". ").append(trimmed).append(".\n\n");
-            }
-        }
-
-        if (count == 0) {
-            summary.append("Summary: ").append(content.substring(0, Math.min(200, content.length())));
-        }
-
-        return summary.toString();
-    }
-
-    // Helper: Generate flashcards
-    private List<Flashcard> generateFlashcards(String content, Long reviewerId) {
-        List<Flashcard> flashcards = new ArrayList<>();
-        String[] sentences = content.split("[.!?]+");
-
-        for (int i = 0; i < Math.min(10, sentences.length); i++) {
-            String sentence = sentences[i].trim();
-            if (sentence.length() > 10) {  // Lowered from 30 to 10
-                // Create term (first part of sentence)
-                String[] words = sentence.split(" ");
-                String term = String.join(" ", Arrays.copyOfRange(words, 0, Math.min(5, words.length)));
-
-                // Create definition (full sentence)
-                String definition = sentence;
-
-                Flashcard flashcard = new Flashcard();
-                flashcard.setId(nextFlashcardId++);
-                flashcard.setTerm("Q: " + term + "...");
-                flashcard.setDefinition(definition);
-
-                flashcards.add(flashcard);
-            }
-        }
-
-        return flashcards;
-    }
-
-    // Helper: Generate quiz items with content-based questions
-    private List<QuizItem> generateQuizItems(String content, Long reviewerId) {
-        List<QuizItem> quizItems = new ArrayList<>();
-        String[] sentences = content.split("[.!?]+");
-        
-        // Filter valid sentences
-        List<String> validSentences = new ArrayList<>();
-        for (String sentence : sentences) {
-            String trimmed = sentence.trim();
-            if (trimmed.length() > 15) {
-                validSentences.add(trimmed);
-            }
-        }
-        
-        if (validSentences.isEmpty()) {
-            return quizItems;
-        }
-
-        // Generate different types of questions
-        for (int i = 0; i < Math.min(5, validSentences.size()); i++) {
-            String sentence = validSentences.get(i);
-            String[] words = sentence.split("\\s+");
-            
-            QuizItem quizItem = new QuizItem();
-            quizItem.setId(nextQuizItemId++);
-            quizItem.setType("MCQ");
-            
-            // Create fill-in-the-blank style question
-            if (words.length >= 5) {
-                // Pick a key word to blank out (not first or last word)
-                int blankIndex = Math.min(3, words.length / 2);
-                String blankWord = words[blankIndex];
-                
-                // Create question with blank
-                StringBuilder questionBuilder = new StringBuilder("Complete the sentence: ");
-                for (int j = 0; j < words.length; j++) {
-                    if (j == blankIndex) {
-                        questionBuilder.append("________ ");
-                    } else {
-                        questionBuilder.append(words[j]).append(" ");
-                    }
-                }
-                quizItem.setQuestion(questionBuilder.toString().trim());
-                
-                // Create choices from content
-                List<String> choices = new ArrayList<>();
-                choices.add(blankWord); // Correct answer
-                
-                // Get distractors from other sentences
-                Set<String> usedWords = new HashSet<>();
-                usedWords.add(blankWord.toLowerCase());
-                
-                for (String otherSentence : validSentences) {
-                    if (choices.size() >= 4) break;
-                    String[] otherWords = otherSentence.split("\\s+");
-                    for (String word : otherWords) {
-                        if (word.length() > 3 && !usedWords.contains(word.toLowerCase()) && choices.size() < 4) {
-                            choices.add(word);
-                            usedWords.add(word.toLowerCase());
-                        }
-                    }
-                }
-                
-                // Fill remaining with generic if needed
-                while (choices.size() < 4) {
-                    choices.add("Option " + (choices.size() + 1));
-                }
-                
-                Collections.shuffle(choices);
-                quizItem.setChoices(choices);
-                quizItem.setCorrectAnswer(blankWord);
-            } else {
-                // Fallback to true/false style
-                quizItem.setQuestion("Is this statement from the document? \"" + sentence + "\"");
-                List<String> choices = new ArrayList<>(Arrays.asList("True - This is correct", "False - This is incorrect", "Partially correct", "Cannot determine"));
-                quizItem.setChoices(choices);
-                quizItem.setCorrectAnswer("True - This is correct");
-            }
+    // Helper: Queue an upload job
+    private ResponseEntity<Map<String, Object>> submitUploadJob(MultipartFile file) {
+        Map<String, Object> response = new HashMap<>();
 
-            quizItems.add(quizItem);
+        try {
+            UploadJob job = uploadJobService.submit(file);
+
+            response.putAll(job.toStatus());
+            response.put("statusUrl", "/api/reviewers/jobs/" + job.getId());
+            response.put("eventsUrl", "/api/reviewers/jobs/" + job.getId() + "/events");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (RejectedExecutionException e) {
+            response.put("error", "Server is busy, please retry the upload shortly");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "5")
+                    .body(response);
+        } catch (Exception e) {
+            response.put("error", "Upload failed: " + e.getMessage());
+            return ResponseEntity.ok(response);
         }
-
-        return quizItems;
     }
-}
\ No newline at end of file
+}
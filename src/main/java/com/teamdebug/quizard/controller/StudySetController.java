@@ -0,0 +1,40 @@
+package com.teamdebug.quizard.controller;
+
+import com.teamdebug.quizard.model.dto.StudySetRequest;
+import com.teamdebug.quizard.model.dto.StudySetResponse;
+import com.teamdebug.quizard.service.StudySetService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/study-set")
+@CrossOrigin(origins = "*")
+public class StudySetController {
+
+    private static final Logger log = LoggerFactory.getLogger(StudySetController.class);
+
+    @Autowired
+    private StudySetService studySetService;
+
+    // Generate summary, flashcards and quiz from raw text in one AI call; fresh=true skips cached answers
+    @PostMapping("/generate")
+    public ResponseEntity<StudySetResponse> generateStudySet(@RequestBody StudySetRequest request) {
+        try {
+            String difficulty = request.getDifficulty() != null ? request.getDifficulty() : "medium";
+            return ResponseEntity.ok(studySetService.generateStudySet(request.getText(),
+                request.getNumberOfCards(), request.getNumberOfQuestions(), difficulty, request.isFresh()));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new StudySetResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error generating study set", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new StudySetResponse("Error generating study set: " + e.getMessage()));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.teamdebug.quizard.controller;
 import com.teamdebug.quizard.model.dto.SummarizeRequest;
 import com.teamdebug.quizard.model.dto.SummaryResponse;
 import com.teamdebug.quizard.service.SummaryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +14,8 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/summary")
 @CrossOrigin(origins = "*")
 public class SummaryController {
+
+    private static final Logger log = LoggerFactory.getLogger(SummaryController.class);
     
     @Autowired
     private SummaryService summaryService;
@@ -19,10 +23,9 @@ public class SummaryController {
     @PostMapping("/generate")
     public ResponseEntity<SummaryResponse> generateSummary(@RequestBody SummarizeRequest request) {
         try {
-            System.out.println("Received summary request:");
-            System.out.println("Text length: " + request.getText().length());
+            log.info("Received summary request, text length: {}", request.getText().length());
             
-            String summary = summaryService.summarize(request.getText());
+            String summary = summaryService.summarize(request.getText(), request.isFresh());
             
             return ResponseEntity.ok(new SummaryResponse(summary));
             
@@ -30,7 +33,7 @@ public class SummaryController {
             return ResponseEntity.badRequest()
                 .body(new SummaryResponse(e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error generating summary", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new SummaryResponse("Error generating summary: " + e.getMessage()));
         }
@@ -3,6 +3,7 @@ package com.teamdebug.quizard.model.dto;
 public class FlashcardRequest {
     private String text;
     private int numberOfCards;
+    private boolean fresh; // true = don't reuse a cached AI answer
     
     public FlashcardRequest() {}
     
@@ -26,4 +27,12 @@ public class FlashcardRequest {
     public void setNumberOfCards(int numberOfCards) {
         this.numberOfCards = numberOfCards;
     }
+    
+    public boolean isFresh() {
+        return fresh;
+    }
+    
+    public void setFresh(boolean fresh) {
+        this.fresh = fresh;
+    }
 }
\ No newline at end of file
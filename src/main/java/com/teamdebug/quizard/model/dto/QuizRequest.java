@@ -5,6 +5,7 @@ public class QuizRequest {
     private int numberOfQuestions;
     private String difficulty;
     private String quizType;
+    private boolean fresh; // true = don't reuse a cached AI answer
     
     public QuizRequest() {}
     
@@ -46,4 +47,12 @@ public class QuizRequest {
     public void setQuizType(String quizType) {
         this.quizType = quizType;
     }
+    
+    public boolean isFresh() {
+        return fresh;
+    }
+    
+    public void setFresh(boolean fresh) {
+        this.fresh = fresh;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.teamdebug.quizard.model.dto;
+
+public class StudySetRequest {
+    private String text;
+    private int numberOfCards = 10;
+    private int numberOfQuestions = 5;
+    private String difficulty;
+    private boolean fresh; // true = don't reuse a cached AI answer
+    
+    public StudySetRequest() {}
+    
+    public StudySetRequest(String text, int numberOfCards, int numberOfQuestions, String difficulty) {
+        this.text = text;
+        this.numberOfCards = numberOfCards;
+        this.numberOfQuestions = numberOfQuestions;
+        this.difficulty = difficulty;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    public void setText(String text) {
+        this.text = text;
+    }
+    
+    public int getNumberOfCards() {
+        return numberOfCards;
+    }
+    
+    public void setNumberOfCards(int numberOfCards) {
+        this.numberOfCards = numberOfCards;
+    }
+    
+    public int getNumberOfQuestions() {
+        return numberOfQuestions;
+    }
+    
+    public void setNumberOfQuestions(int numberOfQuestions) {
+        this.numberOfQuestions = numberOfQuestions;
+    }
+    
+    public String getDifficulty() {
+        return difficulty;
+    }
+    
+    public void setDifficulty(String difficulty) {
+        this.difficulty = difficulty;
+    }
+    
+    public boolean isFresh() {
+        return fresh;
+    }
+    
+    public void setFresh(boolean fresh) {
+        this.fresh = fresh;
+    }
+}
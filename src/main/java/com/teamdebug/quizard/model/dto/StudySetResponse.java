@@ -0,0 +1,54 @@
+package com.teamdebug.quizard.model.dto;
+
+import java.util.List;
+
+public class StudySetResponse {
+    private SummaryResponse summary;
+    private List<Flashcard> flashcards;
+    private List<QuizQuestion> questions;
+    private String message;
+    
+    public StudySetResponse() {}
+    
+    public StudySetResponse(SummaryResponse summary, List<Flashcard> flashcards, List<QuizQuestion> questions) {
+        this.summary = summary;
+        this.flashcards = flashcards;
+        this.questions = questions;
+    }
+    
+    public StudySetResponse(String message) {
+        this.message = message;
+    }
+    
+    public SummaryResponse getSummary() {
+        return summary;
+    }
+    
+    public void setSummary(SummaryResponse summary) {
+        this.summary = summary;
+    }
+    
+    public List<Flashcard> getFlashcards() {
+        return flashcards;
+    }
+    
+    public void setFlashcards(List<Flashcard> flashcards) {
+        this.flashcards = flashcards;
+    }
+    
+    public List<QuizQuestion> getQuestions() {
+        return questions;
+    }
+    
+    public void setQuestions(List<QuizQuestion> questions) {
+        this.questions = questions;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -2,6 +2,7 @@ package com.teamdebug.quizard.model.dto;
 
 public class SummarizeRequest {
     private String text;
+    private boolean fresh; // true = don't reuse a cached AI answer
     
     public SummarizeRequest() {}
     
@@ -16,4 +17,12 @@ public class SummarizeRequest {
     public void setText(String text) {
         this.text = text;
     }
+    
+    public boolean isFresh() {
+        return fresh;
+    }
+    
+    public void setFresh(boolean fresh) {
+        this.fresh = fresh;
+    }
 }
\ No newline at end of file
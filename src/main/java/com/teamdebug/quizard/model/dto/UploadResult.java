@@ -0,0 +1,24 @@
+package com.teamdebug.quizard.model.dto;
+
+public class UploadResult {
+
+    private Long reviewerId;
+    private String fileName;
+    private boolean cached;
+
+    public UploadResult() {}
+
+    public UploadResult(Long reviewerId, String fileName, boolean cached) {
+        this.reviewerId = reviewerId;
+        this.fileName = fileName;
+        this.cached = cached;
+    }
+
+    public Long getReviewerId() { return reviewerId; }
+    public String getFileName() { return fileName; }
+    public boolean isCached() { return cached; }
+
+    public void setReviewerId(Long reviewerId) { this.reviewerId = reviewerId; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public void setCached(boolean cached) { this.cached = cached; }
+}
@@ -0,0 +1,41 @@
+package com.teamdebug.quizard.model.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Map;
+
+// Stores a quiz attempt's answers (QuizItem.id -> answer) as one JSON column
+@Converter
+public class AnswerMapConverter implements AttributeConverter<Map<Long, String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<Long, String>> TYPE = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(Map<Long, String> answers) {
+        if (answers == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(answers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize answers", e);
+        }
+    }
+
+    @Override
+    public Map<Long, String> convertToEntityAttribute(String column) {
+        if (column == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(column, TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not deserialize answers", e);
+        }
+    }
+}
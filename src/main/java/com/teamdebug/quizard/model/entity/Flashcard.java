@@ -1,9 +1,22 @@
 package com.teamdebug.quizard.model.entity;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "flashcards", indexes = @Index(name = "idx_flashcards_reviewer_id", columnList = "reviewer_id"))
 public class Flashcard {
 
+    @Id
      private Long id;
+    @Column(name = "reviewer_id")
+    private Long reviewerId;
+    @Column(length = 1000)
     private String term;
+    @Column(columnDefinition = "TEXT")
     private String definition;
 
     public Flashcard() {}
@@ -15,10 +28,12 @@ public class Flashcard {
     }
 
     public Long getId() { return id; }
+    public Long getReviewerId() { return reviewerId; }
     public String getTerm() { return term; }
     public String getDefinition() { return definition; }
 
     public void setId(Long id) { this.id = id; }
+    public void setReviewerId(Long reviewerId) { this.reviewerId = reviewerId; }
     public void setTerm(String term) { this.term = term; }
     public void setDefinition(String definition) { this.definition = definition; }
 
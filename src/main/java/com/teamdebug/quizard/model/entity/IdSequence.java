@@ -0,0 +1,33 @@
+package com.teamdebug.quizard.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Backing row for pooled id allocation: one row per sequence, advanced a
+// whole block at a time (MySQL has no native sequences).
+@Entity
+@Table(name = "id_sequences")
+public class IdSequence {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "next_val", nullable = false)
+    private long nextValue;
+
+    public IdSequence() {}
+
+    public IdSequence(String name, long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    public String getName() { return name; }
+    public long getNextValue() { return nextValue; }
+
+    public void setName(String name) { this.name = name; }
+    public void setNextValue(long nextValue) { this.nextValue = nextValue; }
+}
@@ -1,11 +1,24 @@
 package com.teamdebug.quizard.model.entity;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
 import java.util.Map;
 
+@Entity
+@Table(name = "quiz_attempts", indexes = @Index(name = "idx_quiz_attempts_reviewer_id", columnList = "reviewer_id"))
 public class QuizAttempt {
 
+    @Id
      private Long id;
+    @Column(name = "reviewer_id")
     private Long reviewerId;
+    @Convert(converter = AnswerMapConverter.class)
+    @Column(name = "user_answers", columnDefinition = "TEXT")
     private Map<Long, String> userAnswers; // QuizItem.id → user answer
     private int score;
 
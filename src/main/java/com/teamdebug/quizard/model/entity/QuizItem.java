@@ -1,13 +1,30 @@
 package com.teamdebug.quizard.model.entity;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
 import java.util.List;
 
+@Entity
+@Table(name = "quiz_items", indexes = @Index(name = "idx_quiz_items_reviewer_id", columnList = "reviewer_id"))
 public class QuizItem {
 
+    @Id
      private Long id;
+    @Column(name = "reviewer_id")
+    private Long reviewerId;
+    @Column(columnDefinition = "TEXT")
     private String question;
+    @Convert(converter = StringListConverter.class)
+    @Column(columnDefinition = "TEXT")
     private List<String> choices;
+    @Column(name = "correct_answer", length = 1000)
     private String correctAnswer;
+    @Column(length = 32)
     private String type; // MCQ, IDENTIFICATION, ENUMERATION
 
     public QuizItem() {}
@@ -22,12 +39,14 @@ public class QuizItem {
     }
 
     public Long getId() { return id; }
+    public Long getReviewerId() { return reviewerId; }
     public String getQuestion() { return question; }
     public List<String> getChoices() { return choices; }
     public String getCorrectAnswer() { return correctAnswer; }
     public String getType() { return type; }
 
     public void setId(Long id) { this.id = id; }
+    public void setReviewerId(Long reviewerId) { this.reviewerId = reviewerId; }
     public void setQuestion(String question) { this.question = question; }
     public void setChoices(List<String> choices) { this.choices = choices; }
     public void setCorrectAnswer(String correctAnswer) { this.correctAnswer = correctAnswer; }
@@ -1,28 +1,46 @@
 package com.teamdebug.quizard.model.entity;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "reviewers")
 public class Reviewer {
 
+    @Id
     private Long id;
+    @Column(name = "file_name")
     private String fileName;
-    private String originalText;
+    // Deflated UTF-8, exactly as TextSegmentStore keeps it, so it never has to be decompressed to be saved
+    @Lob
+    @Column(name = "original_text_deflated")
+    private byte[] compressedOriginalText;
+    @Column(name = "original_text_length")
+    private Long originalTextLength;
+    @Lob
+    @Column(name = "summarized_text")
     private String summarizedText;
 
     public Reviewer() {}
 
-    public Reviewer(Long id, String fileName, String originalText, String summarizedText) {
+    public Reviewer(Long id, String fileName, String summarizedText) {
         this.id = id;
         this.fileName = fileName;
-        this.originalText = originalText;
         this.summarizedText = summarizedText;
     }
 
     public Long getId() { return id; }
     public String getFileName() { return fileName; }
-    public String getOriginalText() { return originalText; }
+    public byte[] getCompressedOriginalText() { return compressedOriginalText; }
+    public Long getOriginalTextLength() { return originalTextLength; }
     public String getSummarizedText() { return summarizedText; }
 
     public void setId(Long id) { this.id = id; }
     public void setFileName(String fileName) { this.fileName = fileName; }
-    public void setOriginalText(String originalText) { this.originalText = originalText; }
+    public void setCompressedOriginalText(byte[] compressedOriginalText) { this.compressedOriginalText = compressedOriginalText; }
+    public void setOriginalTextLength(Long originalTextLength) { this.originalTextLength = originalTextLength; }
     public void setSummarizedText(String summarizedText) { this.summarizedText = summarizedText; }
 }
@@ -0,0 +1,42 @@
+package com.teamdebug.quizard.model.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+// Stores small string lists (quiz choices) as one JSON column instead of a
+// child table, so a quiz item is a single row and a single batched insert.
+@Converter
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> TYPE = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize list", e);
+        }
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        if (column == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(column, TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not deserialize list", e);
+        }
+    }
+}
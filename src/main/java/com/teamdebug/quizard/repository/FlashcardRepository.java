@@ -1,5 +1,14 @@
 package com.teamdebug.quizard.repository;
 
-public class FlashcardRepository {
+import com.teamdebug.quizard.model.entity.Flashcard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FlashcardRepository extends JpaRepository<Flashcard, Long> {
+
+    List<Flashcard> findByReviewerIdOrderByIdAsc(Long reviewerId);
     
 }
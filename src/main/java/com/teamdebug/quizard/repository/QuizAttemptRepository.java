@@ -1,5 +1,14 @@
 package com.teamdebug.quizard.repository;
 
-public class QuizAttemptRepository {
+import com.teamdebug.quizard.model.entity.QuizAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long> {
+
+    List<QuizAttempt> findByReviewerIdOrderByIdAsc(Long reviewerId);
     
 }
@@ -1,5 +1,14 @@
 package com.teamdebug.quizard.repository;
 
-public class QuizItemRepository {
+import com.teamdebug.quizard.model.entity.QuizItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizItemRepository extends JpaRepository<QuizItem, Long> {
+
+    List<QuizItem> findByReviewerIdOrderByIdAsc(Long reviewerId);
     
 }
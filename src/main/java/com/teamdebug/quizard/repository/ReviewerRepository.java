@@ -1,5 +1,10 @@
 package com.teamdebug.quizard.repository;
 
-public class ReviewerRepository {
+import com.teamdebug.quizard.model.entity.Reviewer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReviewerRepository extends JpaRepository<Reviewer, Long> {
     
 }
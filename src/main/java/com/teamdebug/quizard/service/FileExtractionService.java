@@ -1,64 +1,134 @@
 package com.teamdebug.quizard.service;
 
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import com.teamdebug.quizard.service.parser.ChunkCollector;
+import com.teamdebug.quizard.service.parser.DocxParser;
+import com.teamdebug.quizard.service.parser.FileParser;
+import com.teamdebug.quizard.service.parser.PdfParser;
+import com.teamdebug.quizard.service.parser.TextChunk;
+import com.teamdebug.quizard.service.parser.TxtParser;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 @Service
 public class FileExtractionService {
+
+    private final FileParser txtParser = new TxtParser();
+    private final FileParser docxParser = new DocxParser();
+    private final FileParser pdfParser;
+
+    // Dedicated, bounded pool so large PDFs can't starve the common pool
+    private final ForkJoinPool pdfPool;
+
+    private final PipelineMetrics pipelineMetrics;
+
+    public FileExtractionService(
+            @Value("${quizard.pdf.parallelism:0}") int pdfParallelism,
+            @Value("${quizard.pdf.pages-per-task:" + PdfParser.DEFAULT_PAGES_PER_TASK + "}") int pagesPerTask,
+            PipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+        int parallelism = pdfParallelism > 0 ? pdfParallelism : Runtime.getRuntime().availableProcessors();
+        this.pdfPool = new ForkJoinPool(parallelism);
+        this.pdfParser = new PdfParser(pdfPool, pagesPerTask);
+        pipelineMetrics.monitor(pdfPool, "pdf-parser");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pdfPool.shutdownNow();
+    }
     
     public String extractText(MultipartFile file) throws IOException {
-        String fileName = file.getOriginalFilename();
+        ChunkCollector collector = new ChunkCollector();
+        extractChunks(file, collector);
+        return collector.getText();
+    }
+
+    public void extractChunks(MultipartFile file, Consumer<TextChunk> sink) throws IOException {
+        extractChunks(file.getOriginalFilename(), file, sink);
+    }
+
+    // Streams the document from its source as bounded chunks, never holding
+    // the raw upload bytes or a full document model in memory. Timed per
+    // file type and by the number of bytes the parser actually read.
+    public void extractChunks(String fileName, InputStreamSource source, Consumer<TextChunk> sink) throws IOException {
         if (fileName == null || fileName.isEmpty()) {
             throw new IOException("File name is null or empty");
         }
-        
-        String fileExtension = getFileExtension(fileName).toLowerCase();
-        
+
+        String extension = getFileExtension(fileName).toLowerCase();
+        FileParser parser = getParser(extension);
+
+        long start = System.nanoTime();
+        boolean success = false;
+        CountingInputStream counted = null;
+        try (InputStream inputStream = source.getInputStream()) {
+            counted = new CountingInputStream(inputStream);
+            parser.parse(counted, sink);
+            success = true;
+        } finally {
+            pipelineMetrics.extraction(extension, counted == null ? 0 : counted.count,
+                System.nanoTime() - start, success);
+        }
+    }
+    
+    private FileParser getParser(String fileExtension) throws IOException {
         if ("txt".equals(fileExtension)) {
-            return extractFromTxt(file);
+            return txtParser;
         } else if ("docx".equals(fileExtension) || "doc".equals(fileExtension)) {
-            return extractFromDocx(file);
+            return docxParser;
         } else if ("pdf".equals(fileExtension)) {
-            return extractFromPdf(file);
+            return pdfParser;
         } else {
             throw new IOException("Unsupported file type: " + fileExtension);
         }
     }
     
-    private String extractFromTxt(MultipartFile file) throws IOException {
-        byte[] bytes = file.getBytes();
-        String text = new String(bytes, StandardCharsets.UTF_8);
-        
-        if (text.startsWith("\uFEFF")) {
-            text = text.substring(1);
-        }
-        
-        return text.trim();
-    }
-    
-    private String extractFromDocx(MultipartFile file) throws IOException {
-        try (InputStream inputStream = file.getInputStream();
-             XWPFDocument document = new XWPFDocument(inputStream);
-             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-            
-            return extractor.getText().trim();
-        }
-    }
-
-    private String extractFromPdf(MultipartFile file) throws IOException {
-        // For now, return a placeholder message
-        // Full PDF extraction would require additional PDF libraries
-        return "PDF support coming soon. Please use TXT or DOCX files instead.";
-    }
-    
     private String getFileExtension(String fileName) {
         int lastDotIndex = fileName.lastIndexOf('.');
         return lastDotIndex == -1 ? "" : fileName.substring(lastDotIndex + 1);
     }
-}
\ No newline at end of file
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -1,45 +1,195 @@
 package com.teamdebug.quizard.service;
 
 import com.teamdebug.quizard.model.dto.Flashcard;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.AiServiceException;
+import com.teamdebug.quizard.service.ai.BatchFanOut;
+import com.teamdebug.quizard.service.ai.ChatMessage;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.JsonArrayStreamParser;
+import com.teamdebug.quizard.service.ai.TokenBudget;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.generator.EnumerationGenerator;
+import com.teamdebug.quizard.service.generator.IdentificationGenerator;
+import com.teamdebug.quizard.service.logging.LogContext;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import com.teamdebug.quizard.service.text.NearDuplicateFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class FlashcardService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashcardService.class);
+    // Raw AI answers; sampled, see PayloadSamplingFilter
+    private static final Logger payloadLog = LoggerFactory.getLogger("quizard.payload.flashcards");
+    
+    @Autowired
+    private AiClient aiClient;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TokenCounter tokenCounter;
+    
+    @Autowired
+    private TokenBudgetPlanner budgetPlanner;
+    
+    @Autowired
+    private BatchFanOut batchFanOut;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private IdentificationGenerator identificationGenerator;
     
-    @Value("${openai.api.key:}")
-    private String apiKey;
+    @Autowired
+    private EnumerationGenerator enumerationGenerator;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    
+    // Upper bound for fanned-out requests; a single call (and a stream) stays at MAX_SINGLE_CALL
+    @Value("${quizard.generation.max-items:500}")
+    private int maxItems;
+    
+    private static final int MAX_SINGLE_CALL = 50;
+    
+    // Service tag on AI, parse and fallback metrics
+    private static final String METRICS_SERVICE = "flashcards";
     
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int PAYLOAD_PREVIEW_CHARS = 2000;
+    
+    private static final String SYSTEM_PROMPT = "You are a flashcard generator. You must always respond with valid JSON array only. Never use markdown code blocks or any formatting. Just pure JSON.";
+    
+    // Measured answer size per card (short front, 1-3 sentence back) plus array framing
+    private static final int TOKENS_PER_CARD = 80;
+    private static final int ANSWER_OVERHEAD_TOKENS = 60;
     
     public List<Flashcard> generateFlashcards(String text, int numberOfCards) {
-        if (text == null || text.isEmpty()) {
-            throw new IllegalArgumentException("Text cannot be empty");
-        }
+        return generateFlashcards(text, numberOfCards, false);
+    }
+    
+    // fresh = true skips cached AI answers
+    public List<Flashcard> generateFlashcards(String text, int numberOfCards, boolean fresh) {
+        validateRequest(text, numberOfCards, maxItems);
+        
+        log.info("Generating {} flashcards", numberOfCards);
         
-        if (numberOfCards < 1 || numberOfCards > 50) {
-            throw new IllegalArgumentException("Number of flashcards must be between 1 and 50");
+        List<Flashcard> flashcards;
+        String fallbackReason = "shortfall";
+        try {
+            if (batchFanOut.shouldFanOut(numberOfCards)) {
+                flashcards = batchFanOut.generate(text, numberOfCards,
+                    batch -> generateBatch(batch, fresh || batch.retry()), Flashcard::getFront);
+            } else {
+                String response = callAIService(newChatRequest(text, numberOfCards, fresh));
+                
+                flashcards = parseFlashcardResponse(response, numberOfCards);
+                if (flashcards.size() < numberOfCards) {
+                    flashcards = topUp(text, flashcards, numberOfCards);
+                }
+            }
+        } catch (AiServiceException e) {
+            // Provider down, slow or refused by the circuit breaker: degrade to local cards
+            log.warn("AI flashcard generation failed, generating locally: {}", e.getMessage());
+            flashcards = List.of();
+            fallbackReason = "ai-failed";
         }
+        return fillLocally(text, flashcards, numberOfCards, fallbackReason);
+    }
+    
+    // Streams flashcards to onFlashcard as soon as each one is complete and valid;
+    // the future completes with the number of flashcards delivered
+    public CompletableFuture<Integer> streamFlashcards(String text, int numberOfCards, boolean fresh,
+                                                       Consumer<Flashcard> onFlashcard) {
+        validateRequest(text, numberOfCards);
         
-        System.out.println("Generating " + numberOfCards + " flashcards");
+        log.info("Streaming {} flashcards", numberOfCards);
         
-        String prompt = buildFlashcardPrompt(text, numberOfCards);
-        String response = callAIService(prompt);
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger invalid = new AtomicInteger();
+        JsonArrayStreamParser<Flashcard> parser = new JsonArrayStreamParser<>(objectMapper, Flashcard.class,
+            card -> {
+                if (validationError(card) != null) {
+                    invalid.incrementAndGet();
+                } else if (delivered.get() < numberOfCards) {
+                    onFlashcard.accept(card);
+                    delivered.incrementAndGet();
+                }
+            });
+        
+        ChatRequest request = newChatRequest(text, numberOfCards, fresh);
+        return aiClient.streamChat(request, parser::feed).handle((content, error) -> {
+            pipelineMetrics.parseFailures(METRICS_SERVICE, "malformed", parser.getSkipped());
+            pipelineMetrics.parseFailures(METRICS_SERVICE, "invalid", invalid.get());
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (delivered.get() == 0 && (error == null || cause instanceof AiServiceException)) {
+                // Nothing reached the client yet, so local cards can stand in for the whole answer
+                if (error != null) {
+                    log.warn("AI flashcard stream failed, generating locally: {}", error.getMessage());
+                }
+                pipelineMetrics.fallback(METRICS_SERVICE, error != null ? "ai-failed" : "shortfall");
+                List<Flashcard> local = generateLocally(text, numberOfCards);
+                local.forEach(onFlashcard);
+                delivered.addAndGet(local.size());
+            } else if (error != null) {
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            if (delivered.get() == 0) {
+                throw new RuntimeException("AI response contained no valid flashcards");
+            }
+            return delivered.get();
+        });
+    }
+    
+    void validateRequest(String text, int numberOfCards) {
+        validateRequest(text, numberOfCards, MAX_SINGLE_CALL);
+    }
+    
+    private void validateRequest(String text, int numberOfCards, int max) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Text cannot be empty");
+        }
         
-        return parseFlashcardResponse(response, numberOfCards);
+        if (numberOfCards < 1 || numberOfCards > max) {
+            throw new IllegalArgumentException("Number of flashcards must be between 1 and " + max);
+        }
+    }
+    
+    // One fan-out sub-batch: keeps every valid card and drops the rest instead of failing the batch
+    private List<Flashcard> generateBatch(BatchFanOut.Batch batch, boolean fresh) {
+        ChatRequest request = newChatRequest(batch.section(), batch.count(), fresh, batch.instructions());
+        return parseFlashcardResponse(aiClient.chat(request), batch.count());
+    }
+    
+    // Completes cards another call came back short with (the combined study
+    // set answer): the missing ones are requested, the rest built locally
+    List<Flashcard> completeFlashcards(String text, List<Flashcard> flashcards, int numberOfCards) {
+        return fillLocally(text, topUp(text, flashcards, numberOfCards), numberOfCards, "shortfall");
+    }
+    
+    // Asks again only for the flashcards the first answer was missing
+    private List<Flashcard> topUp(String text, List<Flashcard> flashcards, int expectedCount) {
+        log.info("Got {} of {} valid flashcards; requesting the rest", flashcards.size(), expectedCount);
+        try {
+            return batchFanOut.complete(text, flashcards, expectedCount,
+                batch -> generateBatch(batch, true), Flashcard::getFront);
+        } catch (AiServiceException e) {
+            log.warn("Error topping up flashcards: {}", e.getMessage());
+            return flashcards;
+        }
     }
     
     private String buildFlashcardPrompt(String text, int numberOfCards) {
@@ -71,110 +221,107 @@ public class FlashcardService {
             """, numberOfCards, text, numberOfCards);
     }
     
-    private String callAIService(String prompt) {
+    private String callAIService(ChatRequest request) {
         try {
-            System.out.println("Calling OpenAI API for flashcards...");
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-3.5-turbo");
-            requestBody.put("messages", List.of(
-                Map.of("role", "system", "content", "You are a flashcard generator. You must always respond with valid JSON array only. Never use markdown code blocks or any formatting. Just pure JSON."),
-                Map.of("role", "user", "content", prompt)
-            ));
-            requestBody.put("max_tokens", 2500);
-            requestBody.put("temperature", 0.7);
-            
-            // Make API call using RestTemplate
-            String response = restTemplate.postForObject(
-                "https://api.openai.com/v1/chat/completions",
-                requestBody,
-                String.class
-            );
-            
-            String content = extractContentFromResponse(response);
-            System.out.println("AI Response received for flashcards, length: " + content.length());
+            String content = aiClient.chat(request);
+            log.debug("AI response received for flashcards, length: {}", content.length());
+            payloadLog.debug("Flashcard AI response: {}", LogContext.preview(content, PAYLOAD_PREVIEW_CHARS));
             
             return content;
             
+        } catch (AiServiceException e) {
+            log.warn("Error calling AI service: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
-            System.err.println("Error calling AI service: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error calling AI service", e);
             throw new RuntimeException("Error generating flashcards: " + e.getMessage());
         }
     }
     
-    private String extractContentFromResponse(String response) {
-        try {
-            JsonNode root = objectMapper.readTree(response);
-            return root.path("choices").get(0)
-                      .path("message").path("content").asText();
-        } catch (Exception e) {
-            System.err.println("Error extracting content from response: " + e.getMessage());
-            throw new RuntimeException("Error parsing AI response");
-        }
+    // Sizes max_tokens to the number of cards asked for and trims the text
+    // so prompt plus answer fit the model's context window
+    private ChatRequest newChatRequest(String text, int numberOfCards, boolean fresh) {
+        return newChatRequest(text, numberOfCards, fresh, "");
+    }
+    
+    // instructions: extra prompt lines for a fan-out sub-batch, appended after the text
+    private ChatRequest newChatRequest(String text, int numberOfCards, boolean fresh, String instructions) {
+        int overhead = tokenCounter.countMessages(messages(buildFlashcardPrompt("", numberOfCards) + instructions));
+        TokenBudget budget = budgetPlanner.plan(text, overhead,
+            ANSWER_OVERHEAD_TOKENS + TOKENS_PER_CARD * numberOfCards);
+        
+        ChatRequest request = new ChatRequest("gpt-3.5-turbo",
+            messages(buildFlashcardPrompt(budget.input(), numberOfCards) + instructions), budget.maxTokens(), 0.7);
+        request.setBypassCache(fresh);
+        request.setCaller(METRICS_SERVICE);
+        return request;
     }
     
+    private static List<ChatMessage> messages(String prompt) {
+        return List.of(ChatMessage.system(SYSTEM_PROMPT), ChatMessage.user(prompt));
+    }
+    
+    // Salvages every valid card: malformed or invalid elements are dropped one by one
+    // instead of discarding the whole answer
     private List<Flashcard> parseFlashcardResponse(String jsonResponse, int expectedCount) {
-        try {
-            System.out.println("Parsing flashcard response...");
-            System.out.println("Raw response: " + jsonResponse.substring(0, Math.min(200, jsonResponse.length())));
-            
-            // Remove markdown code blocks if present
-            String cleanJson = jsonResponse
-                .replaceAll("```json\\s*", "")
-                .replaceAll("```\\s*", "")
-                .trim();
-            
-            // If it starts with text before JSON, try to extract just the JSON array
-            int jsonStart = cleanJson.indexOf('[');
-            int jsonEnd = cleanJson.lastIndexOf(']');
-            
-            if (jsonStart >= 0 && jsonEnd > jsonStart) {
-                cleanJson = cleanJson.substring(jsonStart, jsonEnd + 1);
+        List<Flashcard> flashcards = new ArrayList<>();
+        AtomicInteger invalid = new AtomicInteger();
+        JsonArrayStreamParser<Flashcard> parser = new JsonArrayStreamParser<>(objectMapper, Flashcard.class, card -> {
+            String problem = validationError(card);
+            if (problem != null) {
+                log.debug("Dropping flashcard that {}", problem);
+                invalid.incrementAndGet();
+            } else if (flashcards.size() < expectedCount) {
+                flashcards.add(card);
             }
-            
-            System.out.println("Clean JSON: " + cleanJson.substring(0, Math.min(200, cleanJson.length())));
-            
-            // Parse JSON array into list of Flashcard objects
-            List<Flashcard> flashcards = objectMapper.readValue(
-                cleanJson, 
-                new TypeReference<List<Flashcard>>() {}
-            );
-            
-            System.out.println("Successfully parsed " + flashcards.size() + " flashcards");
-            
-            // Validate flashcards
-            for (int i = 0; i < flashcards.size(); i++) {
-                Flashcard card = flashcards.get(i);
-                if (card.getFront() == null || card.getFront().isEmpty()) {
-                    throw new RuntimeException("Flashcard " + i + " is missing front text");
-                }
-                if (card.getBack() == null || card.getBack().isEmpty()) {
-                    throw new RuntimeException("Flashcard " + i + " is missing back text");
-                }
-            }
-            
-            return flashcards;
-            
-        } catch (Exception e) {
-            System.err.println("Error parsing flashcard response: " + e.getMessage());
-            e.printStackTrace();
-            // Return fallback flashcards on error
-            return createFallbackFlashcards(expectedCount);
+        });
+        parser.feed(jsonResponse);
+        
+        log.debug("Parsed {} valid flashcards, skipped {} malformed", flashcards.size(), parser.getSkipped());
+        pipelineMetrics.parseFailures(METRICS_SERVICE, "malformed", parser.getSkipped());
+        pipelineMetrics.parseFailures(METRICS_SERVICE, "invalid", invalid.get());
+        return flashcards;
+    }
+    
+    // Returns what is wrong with a flashcard, or null if it is usable
+    String validationError(Flashcard card) {
+        if (card.getFront() == null || card.getFront().isEmpty()) {
+            return "is missing front text";
+        }
+        if (card.getBack() == null || card.getBack().isEmpty()) {
+            return "is missing back text";
         }
+        return null;
     }
     
-    private List<Flashcard> createFallbackFlashcards(int count) {
-        System.out.println("Creating fallback flashcards due to parsing error");
-        List<Flashcard> fallback = new ArrayList<>();
+    // Covers whatever the AI could not deliver with cards built locally from the text
+    private List<Flashcard> fillLocally(String text, List<Flashcard> flashcards, int expectedCount,
+                                        String reason) {
+        if (flashcards.size() >= expectedCount) {
+            return flashcards;
+        }
+        pipelineMetrics.fallback(METRICS_SERVICE, reason);
         
-        for (int i = 1; i <= Math.min(count, 3); i++) {
-            fallback.add(new Flashcard(
-                "Error Card " + i,
-                "Unable to generate flashcards from AI. Please check your API key and try again."
-            ));
+        NearDuplicateFilter filter = new NearDuplicateFilter(1.0);
+        List<Flashcard> filled = new ArrayList<>(flashcards);
+        filled.forEach(card -> filter.add(card.getFront()));
+        for (Flashcard card : generateLocally(text, expectedCount)) {
+            if (filled.size() < expectedCount && filter.add(card.getFront())) {
+                filled.add(card);
+            }
         }
+        log.info("Added {} locally generated flashcards", filled.size() - flashcards.size());
         
-        return fallback;
+        if (filled.isEmpty()) {
+            throw new RuntimeException("Could not generate flashcards from this text");
+        }
+        return filled;
+    }
+    
+    // Up to a third enumeration cards, the rest identification cards
+    private List<Flashcard> generateLocally(String text, int count) {
+        List<Flashcard> cards = new ArrayList<>(enumerationGenerator.generate(text, Math.max(1, count / 3)));
+        cards.addAll(identificationGenerator.generate(text, count - cards.size()));
+        return cards.size() > count ? cards.subList(0, count) : cards;
     }
-}
\ No newline at end of file
+}
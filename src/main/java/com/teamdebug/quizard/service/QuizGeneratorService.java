@@ -1,45 +1,194 @@
 package com.teamdebug.quizard.service;
 
 import com.teamdebug.quizard.model.dto.QuizQuestion;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.AiServiceException;
+import com.teamdebug.quizard.service.ai.BatchFanOut;
+import com.teamdebug.quizard.service.ai.ChatMessage;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.JsonArrayStreamParser;
+import com.teamdebug.quizard.service.ai.TokenBudget;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.generator.MultipleChoiceGenerator;
+import com.teamdebug.quizard.service.logging.LogContext;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import com.teamdebug.quizard.service.text.NearDuplicateFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class QuizGeneratorService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizGeneratorService.class);
+    // Raw AI answers; sampled, see PayloadSamplingFilter
+    private static final Logger payloadLog = LoggerFactory.getLogger("quizard.payload.quiz");
+    
+    @Autowired
+    private AiClient aiClient;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TokenCounter tokenCounter;
+    
+    @Autowired
+    private TokenBudgetPlanner budgetPlanner;
+    
+    @Autowired
+    private BatchFanOut batchFanOut;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private MultipleChoiceGenerator multipleChoiceGenerator;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    
+    // Upper bound for fanned-out requests; a single call (and a stream) stays at MAX_SINGLE_CALL
+    @Value("${quizard.generation.max-items:500}")
+    private int maxItems;
+    
+    private static final int MAX_SINGLE_CALL = 50;
+    
+    // Service tag on AI, parse and fallback metrics
+    private static final String METRICS_SERVICE = "quiz";
+    
+    private static final int PAYLOAD_PREVIEW_CHARS = 2000;
     
-    @Value("${openai.api.key:}")
-    private String apiKey;
+    private static final String SYSTEM_PROMPT = "You are a quiz generator. You must always respond with valid JSON array only. Never use markdown code blocks or any formatting. Just pure JSON.";
     
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Measured answer size per question (question, four options, explanation) plus array framing
+    private static final int TOKENS_PER_QUESTION = 150;
+    private static final int ANSWER_OVERHEAD_TOKENS = 60;
     
     public List<QuizQuestion> generateQuiz(String text, int numberOfQuestions, String difficulty) {
-        if (text == null || text.isEmpty()) {
-            throw new IllegalArgumentException("Text cannot be empty");
-        }
+        return generateQuiz(text, numberOfQuestions, difficulty, false);
+    }
+    
+    // fresh = true skips cached AI answers
+    public List<QuizQuestion> generateQuiz(String text, int numberOfQuestions, String difficulty, boolean fresh) {
+        validateRequest(text, numberOfQuestions, maxItems);
         
-        if (numberOfQuestions < 1 || numberOfQuestions > 50) {
-            throw new IllegalArgumentException("Number of questions must be between 1 and 50");
+        log.info("Generating quiz with {} questions, difficulty: {}", numberOfQuestions, difficulty);
+        
+        List<QuizQuestion> questions;
+        String fallbackReason = "shortfall";
+        try {
+            if (batchFanOut.shouldFanOut(numberOfQuestions)) {
+                questions = batchFanOut.generate(text, numberOfQuestions,
+                    batch -> generateBatch(batch, difficulty, fresh || batch.retry()),
+                    QuizQuestion::getQuestion);
+            } else {
+                String response = callAIService(newChatRequest(text, numberOfQuestions, difficulty, fresh));
+                
+                questions = parseQuizResponse(response, numberOfQuestions);
+                if (questions.size() < numberOfQuestions) {
+                    questions = topUp(text, questions, numberOfQuestions, difficulty);
+                }
+            }
+        } catch (AiServiceException e) {
+            // Provider down, slow or refused by the circuit breaker: degrade to local questions
+            log.warn("AI quiz generation failed, generating locally: {}", e.getMessage());
+            questions = List.of();
+            fallbackReason = "ai-failed";
         }
+        return fillLocally(text, questions, numberOfQuestions, fallbackReason);
+    }
+    
+    // Streams questions to onQuestion as soon as each one is complete and valid;
+    // the future completes with the number of questions delivered
+    public CompletableFuture<Integer> streamQuiz(String text, int numberOfQuestions, String difficulty,
+                                                 boolean fresh, Consumer<QuizQuestion> onQuestion) {
+        validateRequest(text, numberOfQuestions);
         
-        System.out.println("Generating quiz with " + numberOfQuestions + " questions, difficulty: " + difficulty);
+        log.info("Streaming quiz with {} questions, difficulty: {}", numberOfQuestions, difficulty);
         
-        String prompt = buildQuizPrompt(text, numberOfQuestions, difficulty);
-        String response = callAIService(prompt);
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger invalid = new AtomicInteger();
+        JsonArrayStreamParser<QuizQuestion> parser = new JsonArrayStreamParser<>(objectMapper, QuizQuestion.class,
+            question -> {
+                if (validationError(question) != null) {
+                    invalid.incrementAndGet();
+                } else if (delivered.get() < numberOfQuestions) {
+                    onQuestion.accept(question);
+                    delivered.incrementAndGet();
+                }
+            });
         
-        return parseQuizResponse(response, numberOfQuestions);
+        ChatRequest request = newChatRequest(text, numberOfQuestions, difficulty, fresh);
+        return aiClient.streamChat(request, parser::feed).handle((content, error) -> {
+            pipelineMetrics.parseFailures(METRICS_SERVICE, "malformed", parser.getSkipped());
+            pipelineMetrics.parseFailures(METRICS_SERVICE, "invalid", invalid.get());
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (delivered.get() == 0 && (error == null || cause instanceof AiServiceException)) {
+                // Nothing reached the client yet, so local questions can stand in for the whole answer
+                if (error != null) {
+                    log.warn("AI quiz stream failed, generating locally: {}", error.getMessage());
+                }
+                pipelineMetrics.fallback(METRICS_SERVICE, error != null ? "ai-failed" : "shortfall");
+                List<QuizQuestion> local = multipleChoiceGenerator.generate(text, numberOfQuestions);
+                local.forEach(onQuestion);
+                delivered.addAndGet(local.size());
+            } else if (error != null) {
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            if (delivered.get() == 0) {
+                throw new RuntimeException("AI response contained no valid questions");
+            }
+            return delivered.get();
+        });
+    }
+    
+    void validateRequest(String text, int numberOfQuestions) {
+        validateRequest(text, numberOfQuestions, MAX_SINGLE_CALL);
+    }
+    
+    private void validateRequest(String text, int numberOfQuestions, int max) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Text cannot be empty");
+        }
+        
+        if (numberOfQuestions < 1 || numberOfQuestions > max) {
+            throw new IllegalArgumentException("Number of questions must be between 1 and " + max);
+        }
+    }
+    
+    // One fan-out sub-batch: keeps every valid question and drops the rest instead of failing the batch
+    private List<QuizQuestion> generateBatch(BatchFanOut.Batch batch, String difficulty, boolean fresh) {
+        ChatRequest request = newChatRequest(batch.section(), batch.count(), difficulty, fresh, batch.instructions());
+        return parseQuizResponse(aiClient.chat(request), batch.count());
+    }
+    
+    // Completes questions another call came back short with (the combined
+    // study set answer): the missing ones are requested, the rest built locally
+    List<QuizQuestion> completeQuiz(String text, List<QuizQuestion> questions, int numberOfQuestions,
+                                    String difficulty) {
+        return fillLocally(text, topUp(text, questions, numberOfQuestions, difficulty), numberOfQuestions,
+            "shortfall");
+    }
+    
+    // Asks again only for the questions the first answer was missing
+    private List<QuizQuestion> topUp(String text, List<QuizQuestion> questions, int expectedCount, String difficulty) {
+        log.info("Got {} of {} valid questions; requesting the rest", questions.size(), expectedCount);
+        try {
+            return batchFanOut.complete(text, questions, expectedCount,
+                batch -> generateBatch(batch, difficulty, true), QuizQuestion::getQuestion);
+        } catch (AiServiceException e) {
+            log.warn("Error topping up quiz: {}", e.getMessage());
+            return questions;
+        }
     }
     
     private String buildQuizPrompt(String text, int numberOfQuestions, String difficulty) {
@@ -74,121 +223,104 @@ public class QuizGeneratorService {
             """, numberOfQuestions, difficulty, text, numberOfQuestions);
     }
     
-    private String callAIService(String prompt) {
+    private String callAIService(ChatRequest request) {
         try {
-            System.out.println("Calling OpenAI API...");
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-3.5-turbo");
-            requestBody.put("messages", List.of(
-                Map.of("role", "system", "content", "You are a quiz generator. You must always respond with valid JSON array only. Never use markdown code blocks or any formatting. Just pure JSON."),
-                Map.of("role", "user", "content", prompt)
-            ));
-            requestBody.put("max_tokens", 3000);
-            requestBody.put("temperature", 0.7);
-            
-            // Make API call using RestTemplate
-            String response = restTemplate.postForObject(
-                "https://api.openai.com/v1/chat/completions",
-                requestBody,
-                String.class
-            );
-            
-            String content = extractContentFromResponse(response);
-            System.out.println("AI Response received, length: " + content.length());
+            String content = aiClient.chat(request);
+            log.debug("AI response received, length: {}", content.length());
+            payloadLog.debug("Quiz AI response: {}", LogContext.preview(content, PAYLOAD_PREVIEW_CHARS));
             
             return content;
             
+        } catch (AiServiceException e) {
+            log.warn("Error calling AI service: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
-            System.err.println("Error calling AI service: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error calling AI service", e);
             throw new RuntimeException("Error generating quiz: " + e.getMessage());
         }
     }
     
-    private String extractContentFromResponse(String response) {
-        try {
-            JsonNode root = objectMapper.readTree(response);
-            return root.path("choices").get(0)
-                      .path("message").path("content").asText();
-        } catch (Exception e) {
-            System.err.println("Error extracting content from response: " + e.getMessage());
-            throw new RuntimeException("Error parsing AI response");
-        }
+    // Sizes max_tokens to the number of questions asked for and trims the text
+    // so prompt plus answer fit the model's context window
+    private ChatRequest newChatRequest(String text, int numberOfQuestions, String difficulty, boolean fresh) {
+        return newChatRequest(text, numberOfQuestions, difficulty, fresh, "");
+    }
+    
+    // instructions: extra prompt lines for a fan-out sub-batch, appended after the text
+    private ChatRequest newChatRequest(String text, int numberOfQuestions, String difficulty, boolean fresh,
+                                       String instructions) {
+        int overhead = tokenCounter.countMessages(messages(buildQuizPrompt("", numberOfQuestions, difficulty) + instructions));
+        TokenBudget budget = budgetPlanner.plan(text, overhead,
+            ANSWER_OVERHEAD_TOKENS + TOKENS_PER_QUESTION * numberOfQuestions);
+        
+        ChatRequest request = new ChatRequest("gpt-3.5-turbo",
+            messages(buildQuizPrompt(budget.input(), numberOfQuestions, difficulty) + instructions), budget.maxTokens(), 0.7);
+        request.setBypassCache(fresh);
+        request.setCaller(METRICS_SERVICE);
+        return request;
     }
     
+    private static List<ChatMessage> messages(String prompt) {
+        return List.of(ChatMessage.system(SYSTEM_PROMPT), ChatMessage.user(prompt));
+    }
+    
+    // Salvages every valid question: malformed or invalid elements are dropped one by one
+    // instead of discarding the whole answer
     private List<QuizQuestion> parseQuizResponse(String jsonResponse, int expectedCount) {
-        try {
-            System.out.println("Parsing quiz response...");
-            System.out.println("Raw response: " + jsonResponse.substring(0, Math.min(200, jsonResponse.length())));
-            
-            // Remove markdown code blocks if present
-            String cleanJson = jsonResponse
-                .replaceAll("```json\\s*", "")
-                .replaceAll("```\\s*", "")
-                .trim();
-            
-            // If it starts with text before JSON, try to extract just the JSON array
-            int jsonStart = cleanJson.indexOf('[');
-            int jsonEnd = cleanJson.lastIndexOf(']');
-            
-            if (jsonStart >= 0 && jsonEnd > jsonStart) {
-                cleanJson = cleanJson.substring(jsonStart, jsonEnd + 1);
+        List<QuizQuestion> questions = new ArrayList<>();
+        AtomicInteger invalid = new AtomicInteger();
+        JsonArrayStreamParser<QuizQuestion> parser = new JsonArrayStreamParser<>(objectMapper, QuizQuestion.class, question -> {
+            String problem = validationError(question);
+            if (problem != null) {
+                log.debug("Dropping question that {}", problem);
+                invalid.incrementAndGet();
+            } else if (questions.size() < expectedCount) {
+                questions.add(question);
             }
-            
-            System.out.println("Clean JSON: " + cleanJson.substring(0, Math.min(200, cleanJson.length())));
-            
-            // Parse JSON array into list of QuizQuestion objects
-            List<QuizQuestion> questions = objectMapper.readValue(
-                cleanJson, 
-                new TypeReference<List<QuizQuestion>>() {}
-            );
-            
-            System.out.println("Successfully parsed " + questions.size() + " questions");
-            
-            // Validate questions
-            for (int i = 0; i < questions.size(); i++) {
-                QuizQuestion q = questions.get(i);
-                if (q.getQuestion() == null || q.getQuestion().isEmpty()) {
-                    throw new RuntimeException("Question " + i + " is missing question text");
-                }
-                if (q.getOptions() == null || q.getOptions().size() != 4) {
-                    throw new RuntimeException("Question " + i + " must have exactly 4 options");
-                }
-                if (q.getCorrectAnswer() == null || q.getCorrectAnswer().isEmpty()) {
-                    throw new RuntimeException("Question " + i + " is missing correct answer");
-                }
-            }
-            
-            return questions;
-            
-        } catch (Exception e) {
-            System.err.println("Error parsing quiz response: " + e.getMessage());
-            e.printStackTrace();
-            // Return fallback questions on error
-            return createFallbackQuestions(expectedCount);
+        });
+        parser.feed(jsonResponse);
+        
+        log.debug("Parsed {} valid questions, skipped {} malformed", questions.size(), parser.getSkipped());
+        pipelineMetrics.parseFailures(METRICS_SERVICE, "malformed", parser.getSkipped());
+        pipelineMetrics.parseFailures(METRICS_SERVICE, "invalid", invalid.get());
+        return questions;
+    }
+    
+    // Returns what is wrong with a question, or null if it is usable
+    String validationError(QuizQuestion q) {
+        if (q.getQuestion() == null || q.getQuestion().isEmpty()) {
+            return "is missing question text";
+        }
+        if (q.getOptions() == null || q.getOptions().size() != 4) {
+            return "must have exactly 4 options";
         }
+        if (q.getCorrectAnswer() == null || q.getCorrectAnswer().isEmpty()) {
+            return "is missing correct answer";
+        }
+        return null;
     }
     
-    private List<QuizQuestion> createFallbackQuestions(int count) {
-        System.out.println("Creating fallback questions due to parsing error");
-        List<QuizQuestion> fallback = new ArrayList<>();
+    // Covers whatever the AI could not deliver with questions built locally from the text
+    private List<QuizQuestion> fillLocally(String text, List<QuizQuestion> questions, int expectedCount,
+                                           String reason) {
+        if (questions.size() >= expectedCount) {
+            return questions;
+        }
+        pipelineMetrics.fallback(METRICS_SERVICE, reason);
         
-        for (int i = 1; i <= Math.min(count, 3); i++) {
-            fallback.add(new QuizQuestion(
-                "multiple_choice",
-                "Sample Question " + i + " - Unable to generate from AI",
-                List.of(
-                    "A) Option 1", 
-                    "B) Option 2", 
-                    "C) Option 3", 
-                    "D) Option 4"
-                ),
-                "A",
-                "This is a fallback question. Please check your API key and try again."
-            ));
+        NearDuplicateFilter filter = new NearDuplicateFilter(1.0);
+        List<QuizQuestion> filled = new ArrayList<>(questions);
+        filled.forEach(question -> filter.add(question.getQuestion()));
+        for (QuizQuestion question : multipleChoiceGenerator.generate(text, expectedCount)) {
+            if (filled.size() < expectedCount && filter.add(question.getQuestion())) {
+                filled.add(question);
+            }
         }
+        log.info("Added {} locally generated questions", filled.size() - questions.size());
         
-        return fallback;
+        if (filled.isEmpty()) {
+            throw new RuntimeException("Could not generate quiz questions from this text");
+        }
+        return filled;
     }
-}
\ No newline at end of file
+}
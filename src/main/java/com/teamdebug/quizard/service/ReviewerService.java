@@ -0,0 +1,342 @@
+package com.teamdebug.quizard.service;
+
+import com.teamdebug.quizard.model.dto.UploadResult;
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.model.entity.Reviewer;
+import com.teamdebug.quizard.service.cache.ArtifactCache;
+import com.teamdebug.quizard.service.cache.CachedArtifacts;
+import com.teamdebug.quizard.service.generator.MultipleChoiceGenerator;
+import com.teamdebug.quizard.service.job.UploadStage;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import com.teamdebug.quizard.service.parser.ChunkCollector;
+import com.teamdebug.quizard.service.store.ReviewerPersistenceService;
+import com.teamdebug.quizard.service.store.ReviewerStore;
+import com.teamdebug.quizard.service.store.ReviewerWriteBehind;
+import com.teamdebug.quizard.service.store.StoredText;
+import com.teamdebug.quizard.service.store.TextSegmentStore;
+import com.teamdebug.quizard.service.text.SegmentedText;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.function.Consumer;
+
+@Service
+public class ReviewerService {
+
+    private static final int QUIZ_ITEMS = 5;
+
+    // Part of every artifact cache key; bump when generator output changes
+    private static final String GENERATION_SETTINGS = "local-v3;summary=10;flashcards=10;quiz=5";
+
+    @Autowired
+    private FileExtractionService fileExtractionService;
+
+    @Autowired
+    private ArtifactCache artifactCache;
+
+    @Autowired
+    private ReviewerStore reviewerStore;
+
+    @Autowired
+    private TextSegmentStore textSegmentStore;
+
+    @Autowired
+    private MultipleChoiceGenerator multipleChoiceGenerator;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Absent when quizard.persistence.enabled=false
+    @Autowired(required = false)
+    private ReviewerPersistenceService reviewerPersistenceService;
+
+    // Absent unless write-behind persistence is on
+    @Autowired(required = false)
+    private ReviewerWriteBehind reviewerWriteBehind;
+
+    public UploadResult processUpload(String fileName, InputStreamSource source) throws IOException {
+        return processUpload(fileName, source, stage -> { });
+    }
+
+    // Extracts and generates everything for one upload, reporting each stage
+    public UploadResult processUpload(String fileName, InputStreamSource source,
+                                      Consumer<UploadStage> progress) throws IOException {
+        StageTimer stages = new StageTimer(progress);
+        try {
+            return process(fileName, source, stages);
+        } finally {
+            stages.finish();
+        }
+    }
+
+    private UploadResult process(String fileName, InputStreamSource source,
+                                 Consumer<UploadStage> progress) throws IOException {
+        // Identical uploads reuse the cached text and artifacts: no parse, no generation
+        String cacheKey = artifactCache.isEnabled() ? artifactCache.keyFor(source, GENERATION_SETTINGS) : null;
+
+        if (cacheKey != null) {
+            TextSegmentStore.TextWriter cachedText = textSegmentStore.newWriter();
+            Optional<CachedArtifacts> cached = artifactCache.get(cacheKey, cachedText::append);
+            if (cached.isPresent()) {
+                CachedArtifacts artifacts = cached.get();
+                Long id = storeReviewer(fileName, cachedText.finish(), artifacts.getSummarizedText(),
+                        copyFlashcards(artifacts.getFlashcards()), copyQuizItems(artifacts.getQuizItems()));
+                progress.accept(UploadStage.DONE);
+                return new UploadResult(id, fileName, true);
+            }
+            cachedText.discard();
+        }
+
+        // Stream file content through FileExtractionService in bounded chunks;
+        // the full text goes straight into compressed storage
+        progress.accept(UploadStage.EXTRACTING);
+        TextSegmentStore.TextWriter originalText = textSegmentStore.newWriter();
+        ChunkCollector collector = new ChunkCollector(chunk -> originalText.append(chunk.getText()));
+        try {
+            fileExtractionService.extractChunks(fileName, source, collector);
+        } catch (IOException | RuntimeException e) {
+            originalText.discard();
+            throw e;
+        }
+        StoredText storedText = originalText.finish();
+
+        // Generators only need the head of the document, segmented once
+        SegmentedText head = SegmentedText.of(collector.getHead());
+
+        progress.accept(UploadStage.SUMMARIZING);
+        String summary = generateSummary(head);
+
+        // Generate flashcards and quiz items
+        progress.accept(UploadStage.GENERATING_FLASHCARDS);
+        List<Flashcard> flashcards = generateFlashcards(head);
+
+        progress.accept(UploadStage.GENERATING_QUIZ);
+        List<QuizItem> quizItems = generateQuizItems(head);
+
+        Long id = storeReviewer(fileName, storedText, summary, flashcards, quizItems);
+
+        if (cacheKey != null) {
+            artifactCache.put(cacheKey, new CachedArtifacts(fileName, summary, flashcards, quizItems),
+                    storedText.openReader());
+        }
+
+        progress.accept(UploadStage.DONE);
+        return new UploadResult(id, fileName, false);
+    }
+
+    public Reviewer getReviewer(Long id) {
+        Reviewer reviewer = reviewerStore.getReviewer(id);
+        if (reviewer == null && loadReviewer(id)) {
+            reviewer = reviewerStore.getReviewer(id);
+        }
+        return reviewer;
+    }
+
+    // Length in characters of the original text, without decompressing it; -1 when there is no such reviewer
+    public long getOriginalTextLength(Long id) {
+        long length = reviewerStore.getOriginalTextLength(id);
+        if (length < 0 && loadReviewer(id)) {
+            length = reviewerStore.getOriginalTextLength(id);
+        }
+        return length;
+    }
+
+    // The original text decompressed into a String, or null when there is no such reviewer
+    public String loadOriginalText(Long id) throws IOException {
+        Reader reader = reviewerStore.openOriginalText(id);
+        if (reader == null && loadReviewer(id)) {
+            reader = reviewerStore.openOriginalText(id);
+        }
+        if (reader == null) {
+            return null;
+        }
+        try (Reader text = reader) {
+            StringWriter out = new StringWriter();
+            text.transferTo(out);
+            return out.toString();
+        }
+    }
+
+    public List<Flashcard> getFlashcards(Long id) {
+        if (!reviewerStore.contains(id)) {
+            loadReviewer(id);
+        }
+        return reviewerStore.getFlashcards(id);
+    }
+
+    public List<QuizItem> getQuizItems(Long id) {
+        if (!reviewerStore.contains(id)) {
+            loadReviewer(id);
+        }
+        return reviewerStore.getQuizItems(id);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", reviewerStore.getStats());
+        stats.put("artifactCache", artifactCache.getStats());
+        if (reviewerWriteBehind != null) {
+            stats.put("writeBehind", reviewerWriteBehind.getStats());
+        }
+        return stats;
+    }
+
+    // Helper: Store reviewer and its generated artifacts; the store assigns all ids.
+    // With write-behind on, only a local journal write happens before the reviewer
+    // becomes visible; otherwise the database write does.
+    private Long storeReviewer(String fileName, StoredText originalText, String summary,
+                               List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        Reviewer reviewer = new Reviewer();
+        reviewer.setFileName(fileName);
+        reviewer.setSummarizedText(summary);
+
+        reviewerStore.assignIds(reviewer, flashcards, quizItems);
+        if (reviewerPersistenceService != null) {
+            try {
+                if (reviewerWriteBehind != null) {
+                    reviewerWriteBehind.submit(reviewer, originalText, flashcards, quizItems);
+                } else {
+                    reviewerPersistenceService.save(reviewer, originalText, flashcards, quizItems);
+                }
+            } catch (RuntimeException e) {
+                originalText.release();
+                throw e;
+            }
+        }
+        reviewerStore.add(reviewer, originalText, flashcards, quizItems);
+        return reviewer.getId();
+    }
+
+    // Helper: Read a reviewer evicted from (or never in) memory back from the
+    // write-behind journal if it hasn't been flushed yet, else from the database
+    private boolean loadReviewer(Long id) {
+        if (reviewerPersistenceService == null || id == null) {
+            return false;
+        }
+        Optional<ReviewerPersistenceService.ReviewerRecord> record = Optional.empty();
+        if (reviewerWriteBehind != null) {
+            record = reviewerWriteBehind.getPending(id).map(this::moveTextToStore);
+        }
+        if (record.isEmpty()) {
+            record = reviewerPersistenceService.load(id);
+        }
+        return record
+                .map(loaded -> {
+                    reviewerStore.add(loaded.reviewer(), loaded.originalText(), loaded.flashcards(), loaded.quizItems());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // Helper: Move a journaled reviewer's original text into the segment store, still deflated
+    private ReviewerPersistenceService.ReviewerRecord moveTextToStore(ReviewerPersistenceService.ReviewerRecord record) {
+        StoredText originalText = record.originalText();
+        return new ReviewerPersistenceService.ReviewerRecord(record.reviewer(),
+                textSegmentStore.storeCompressed(originalText.readCompressed(), originalText.length()),
+                record.flashcards(), record.quizItems());
+    }
+
+    // Helper: Copy cached flashcards so every reviewer gets its own ids
+    private List<Flashcard> copyFlashcards(List<Flashcard> cached) {
+        List<Flashcard> flashcards = new ArrayList<>(cached.size());
+        for (Flashcard card : cached) {
+            flashcards.add(new Flashcard(null, card.getTerm(), card.getDefinition()));
+        }
+        return flashcards;
+    }
+
+    // Helper: Copy cached quiz items so every reviewer gets its own ids
+    private List<QuizItem> copyQuizItems(List<QuizItem> cached) {
+        List<QuizItem> quizItems = new ArrayList<>(cached.size());
+        for (QuizItem item : cached) {
+            quizItems.add(new QuizItem(null, item.getQuestion(), item.getChoices(),
+                    item.getCorrectAnswer(), item.getType()));
+        }
+        return quizItems;
+    }
+
+    // Helper: Generate summary
+    private String generateSummary(SegmentedText content) {
+        StringBuilder summary = new StringBuilder("📋 KEY POINTS:\n\n");
+
+        int count = 0;
+        for (int i = 0; i < content.sentenceCount() && count < 10; i++) {
+            if (content.sentenceLength(i) > 10) {  // Lowered from 20 to 10
+                summary.append(++count).append(". ");
+                content.appendSentence(summary, i).append(".\n\n");
+            }
+        }
+
+        if (count == 0) {
+            String text = content.text();
+            summary.append("Summary: ").append(text, 0, Math.min(200, text.length()));
+        }
+
+        return summary.toString();
+    }
+
+    // Helper: Generate flashcards
+    private List<Flashcard> generateFlashcards(SegmentedText content) {
+        List<Flashcard> flashcards = new ArrayList<>();
+
+        for (int i = 0; i < Math.min(10, content.sentenceCount()); i++) {
+            if (content.sentenceLength(i) > 10) {  // Lowered from 30 to 10
+                // Create term (first part of sentence)
+                StringBuilder term = new StringBuilder("Q: ");
+                content.appendTokens(term, i, 0, Math.min(5, content.tokenCount(i))).append("...");
+
+                // Create definition (full sentence)
+                String definition = content.sentence(i);
+
+                Flashcard flashcard = new Flashcard();
+                flashcard.setTerm(term.toString());
+                flashcard.setDefinition(definition);
+
+                flashcards.add(flashcard);
+            }
+        }
+
+        return flashcards;
+    }
+
+    // Helper: Generate fill-in-the-blank quiz items with look-alike distractors
+    private List<QuizItem> generateQuizItems(SegmentedText content) {
+        return multipleChoiceGenerator.generateQuizItems(content, QUIZ_ITEMS);
+    }
+
+    // Times each reported stage until the next one starts; a stage that
+    // throws is recorded when the upload ends
+    private final class StageTimer implements Consumer<UploadStage> {
+
+        private final Consumer<UploadStage> progress;
+        private UploadStage current;
+        private long startedAt;
+
+        StageTimer(Consumer<UploadStage> progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void accept(UploadStage stage) {
+            finish();
+            if (stage != UploadStage.DONE) {
+                current = stage;
+                startedAt = System.nanoTime();
+            }
+            progress.accept(stage);
+        }
+
+        void finish() {
+            if (current != null) {
+                pipelineMetrics.uploadStage(current.name().toLowerCase(), System.nanoTime() - startedAt);
+                current = null;
+            }
+        }
+    }
+}
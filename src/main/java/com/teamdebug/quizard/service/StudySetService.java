@@ -0,0 +1,249 @@
+package com.teamdebug.quizard.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.dto.Flashcard;
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.model.dto.StudySetResponse;
+import com.teamdebug.quizard.model.dto.SummaryResponse;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.AiServiceException;
+import com.teamdebug.quizard.service.ai.ChatMessage;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.logging.LogContext;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Generates a whole study set (summary, flashcards and quiz questions) with a
+// single AI call, so the document is sent upstream once instead of three
+// times. The combined answer is validated part by part; a part that comes
+// back missing or unusable is generated on its own by the regular service,
+// and a list that comes back short is topped up with only the missing items.
+// Text that would have to be trimmed to fit one call, or a set too large for
+// one answer, goes to the regular services from the start: the summary is
+// map-reduced and large item counts fan out over the document's sections.
+@Service
+public class StudySetService {
+
+    private static final Logger log = LoggerFactory.getLogger(StudySetService.class);
+    // Raw AI answers; sampled, see PayloadSamplingFilter
+    private static final Logger payloadLog = LoggerFactory.getLogger("quizard.payload.study-set");
+
+    @Autowired
+    private AiClient aiClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenCounter tokenCounter;
+
+    @Autowired
+    private TokenBudgetPlanner budgetPlanner;
+
+    @Autowired
+    private SummaryService summaryService;
+
+    @Autowired
+    private FlashcardService flashcardService;
+
+    @Autowired
+    private QuizGeneratorService quizGeneratorService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Service tag on AI, parse and fallback metrics
+    private static final String METRICS_SERVICE = "study-set";
+
+    private static final int PAYLOAD_PREVIEW_CHARS = 2000;
+
+    private static final String SYSTEM_PROMPT = "You are a study material generator. You must always respond with a valid JSON object only. Never use markdown code blocks or any formatting. Just pure JSON.";
+
+    // Same per-item answer sizes the single-purpose services budget for
+    private static final int TOKENS_PER_CARD = 80;
+    private static final int TOKENS_PER_QUESTION = 150;
+    private static final int ANSWER_OVERHEAD_TOKENS = 100;
+    private static final int MIN_SUMMARY_TOKENS = 200;
+    private static final int MAX_SUMMARY_TOKENS = 1500;
+
+    // fresh = true skips cached AI answers
+    public StudySetResponse generateStudySet(String text, int numberOfCards, int numberOfQuestions,
+                                             String difficulty, boolean fresh) {
+        flashcardService.validateRequest(text, numberOfCards);
+        quizGeneratorService.validateRequest(text, numberOfQuestions);
+
+        log.info("Generating study set with {} flashcards and {} questions, difficulty: {}",
+            numberOfCards, numberOfQuestions, difficulty);
+
+        ChatRequest request = newChatRequest(text, numberOfCards, numberOfQuestions, difficulty, fresh);
+        if (request == null) {
+            log.info("Study set does not fit one AI call; generating each part separately");
+            pipelineMetrics.fallback(METRICS_SERVICE, "oversized");
+            return new StudySetResponse(new SummaryResponse(summaryService.summarize(text, fresh)),
+                flashcardService.generateFlashcards(text, numberOfCards, fresh),
+                quizGeneratorService.generateQuiz(text, numberOfQuestions, difficulty, fresh));
+        }
+
+        // An unavailable provider leaves every part to the individual services, which degrade locally
+        String response = "";
+        try {
+            response = aiClient.chat(request);
+            payloadLog.debug("Study set AI response: {}", LogContext.preview(response, PAYLOAD_PREVIEW_CHARS));
+        } catch (AiServiceException e) {
+            log.warn("Study set AI call failed: {}", e.getMessage());
+        }
+        JsonNode root = parseResponse(response);
+
+        String summary = root.path("summary").asText("").trim();
+        List<Flashcard> flashcards = readFlashcards(root.path("flashcards"), numberOfCards);
+        List<QuizQuestion> questions = readQuestions(root.path("questions"), numberOfQuestions);
+
+        // Fill in only what the combined answer could not provide
+        if (summary.isEmpty()) {
+            log.info("Study set response had no summary; generating it separately");
+            pipelineMetrics.fallback(METRICS_SERVICE, "separate-summary");
+            summary = summaryService.summarize(text, fresh);
+        }
+        if (flashcards.isEmpty()) {
+            log.info("Study set response had no usable flashcards; generating them separately");
+            pipelineMetrics.fallback(METRICS_SERVICE, "separate-flashcards");
+            flashcards = flashcardService.generateFlashcards(text, numberOfCards, fresh);
+        } else if (flashcards.size() < numberOfCards) {
+            pipelineMetrics.fallback(METRICS_SERVICE, "topped-up-flashcards");
+            flashcards = flashcardService.completeFlashcards(text, flashcards, numberOfCards);
+        }
+        if (questions.isEmpty()) {
+            log.info("Study set response had no usable questions; generating them separately");
+            pipelineMetrics.fallback(METRICS_SERVICE, "separate-quiz");
+            questions = quizGeneratorService.generateQuiz(text, numberOfQuestions, difficulty, fresh);
+        } else if (questions.size() < numberOfQuestions) {
+            pipelineMetrics.fallback(METRICS_SERVICE, "topped-up-quiz");
+            questions = quizGeneratorService.completeQuiz(text, questions, numberOfQuestions, difficulty);
+        }
+
+        return new StudySetResponse(new SummaryResponse(summary), flashcards, questions);
+    }
+
+    // Null when the text would have to be trimmed or the answer would not fit max_tokens
+    private ChatRequest newChatRequest(String text, int numberOfCards, int numberOfQuestions,
+                                       String difficulty, boolean fresh) {
+        int overhead = tokenCounter.countMessages(messages(buildPrompt("", numberOfCards, numberOfQuestions, difficulty)));
+        int inputTokens = tokenCounter.count(text);
+        int summaryTokens = Math.min(MAX_SUMMARY_TOKENS, inputTokens * 2 / 5 + MIN_SUMMARY_TOKENS);
+        int answerTokens = ANSWER_OVERHEAD_TOKENS + summaryTokens
+            + TOKENS_PER_CARD * numberOfCards + TOKENS_PER_QUESTION * numberOfQuestions;
+        int maxTokens = budgetPlanner.outputTokens(answerTokens);
+        if (maxTokens < answerTokens || inputTokens > budgetPlanner.inputAllowance(overhead, maxTokens)) {
+            return null;
+        }
+
+        ChatRequest request = new ChatRequest("gpt-3.5-turbo",
+            messages(buildPrompt(text, numberOfCards, numberOfQuestions, difficulty)), maxTokens, 0.5);
+        request.setBypassCache(fresh);
+        request.setCaller(METRICS_SERVICE);
+        return request;
+    }
+
+    private static List<ChatMessage> messages(String prompt) {
+        return List.of(ChatMessage.system(SYSTEM_PROMPT), ChatMessage.user(prompt));
+    }
+
+    private String buildPrompt(String text, int numberOfCards, int numberOfQuestions, String difficulty) {
+        return String.format("""
+            Create study material for the following text: a summary, exactly %d flashcards and exactly %d multiple-choice quiz questions.
+            Quiz difficulty level: %s
+
+            Requirements:
+            - Summary: cover ALL major concepts and key points, organized into sections, using paragraphs
+            - Flashcards: front is a short question or term (under 100 characters), back is a 1-3 sentence answer
+            - Quiz questions: exactly 4 options labeled A, B, C, D, only ONE correct answer, a brief explanation
+            - Flashcards and quiz questions should cover different aspects of the text
+
+            IMPORTANT: Return ONLY a valid JSON object with this exact structure. Do not include any markdown formatting, code blocks, or extra text:
+
+            {
+              "summary": "The summary text",
+              "flashcards": [
+                {"front": "Question or term", "back": "Answer or definition"}
+              ],
+              "questions": [
+                {
+                  "question": "Question text here?",
+                  "options": ["A) First option", "B) Second option", "C) Third option", "D) Fourth option"],
+                  "correctAnswer": "A",
+                  "explanation": "Brief explanation why this is correct"
+                }
+              ]
+            }
+
+            Text to generate study material from:
+
+            %s
+            """, numberOfCards, numberOfQuestions, difficulty, text);
+    }
+
+    private JsonNode parseResponse(String response) {
+        String cleanJson = response
+            .replaceAll("```json\\s*", "")
+            .replaceAll("```\\s*", "")
+            .trim();
+
+        int jsonStart = cleanJson.indexOf('{');
+        int jsonEnd = cleanJson.lastIndexOf('}');
+        if (jsonStart >= 0 && jsonEnd > jsonStart) {
+            cleanJson = cleanJson.substring(jsonStart, jsonEnd + 1);
+        }
+
+        try {
+            JsonNode root = objectMapper.readTree(cleanJson);
+            if (root != null && root.isObject()) {
+                return root;
+            }
+        } catch (IOException e) {
+            log.warn("Error parsing study set response: {}", e.getMessage());
+            pipelineMetrics.parseFailures(METRICS_SERVICE, "unparseable", 1);
+        }
+        // Unparseable: every part gets generated separately
+        return objectMapper.createObjectNode();
+    }
+
+    private List<Flashcard> readFlashcards(JsonNode array, int limit) {
+        List<Flashcard> flashcards = new ArrayList<>();
+        for (JsonNode node : array) {
+            Flashcard card = convert(node, Flashcard.class);
+            if (card != null && flashcardService.validationError(card) == null && flashcards.size() < limit) {
+                flashcards.add(card);
+            }
+        }
+        return flashcards;
+    }
+
+    private List<QuizQuestion> readQuestions(JsonNode array, int limit) {
+        List<QuizQuestion> questions = new ArrayList<>();
+        for (JsonNode node : array) {
+            QuizQuestion question = convert(node, QuizQuestion.class);
+            if (question != null && quizGeneratorService.validationError(question) == null && questions.size() < limit) {
+                questions.add(question);
+            }
+        }
+        return questions;
+    }
+
+    private <T> T convert(JsonNode node, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
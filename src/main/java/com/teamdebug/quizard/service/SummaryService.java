@@ -1,35 +1,215 @@
 package com.teamdebug.quizard.service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.ChatMessage;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.TokenBudget;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.logging.LogContext;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import com.teamdebug.quizard.service.text.ParagraphChunker;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
     
     @Service
 public class SummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(SummaryService.class);
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiClient aiClient;
+    
+    @Autowired
+    private TokenCounter tokenCounter;
+    
+    @Autowired
+    private TokenBudgetPlanner budgetPlanner;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    
+    // Texts up to this size are summarized in one call; longer ones are map-reduced
+    @Value("${quizard.summary.single-pass-tokens:6000}")
+    private int singlePassTokens;
+    
+    @Value("${quizard.summary.chunk-tokens:3000}")
+    private int chunkTokens;
+    
+    @Value("${quizard.summary.parallelism:4}")
+    private int parallelism;
+    
+    // Most partial summaries merged by one reduce call before going hierarchical
+    @Value("${quizard.summary.merge-fan-in:6}")
+    private int mergeFanIn;
+    
+    private static final int MIN_SUMMARY_TOKENS = 200;
+    
+    private ExecutorService chunkPool;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        chunkPool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "summary-chunk-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pipelineMetrics.monitor(chunkPool, "summary-chunk");
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        chunkPool.shutdownNow();
+    }
     
     public String summarize(String text) {
+        return summarize(text, false);
+    }
+    
+    // fresh = true skips cached AI answers
+    public String summarize(String text, boolean fresh) {
         if (text.isEmpty()) {
             return "No text provided to summarize.";
         }
         
         // Summarize all text comprehensively in one pass if possible
-        return createDetailedSummary(text);
+        if (tokenCounter.count(text) <= singlePassTokens) {
+            return createDetailedSummary(text, fresh);
+        }
+        
+        try {
+            return createMapReduceSummary(text, fresh);
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Error generating summary", cause);
+            return "Error generating summary: " + cause.getMessage();
+        }
     }
     
-    private String createDetailedSummary(String text) {
-        String prompt = buildDetailedPrompt(text);
-        return callAIService(prompt);
+    // Map: summarize every chunk concurrently (bounded by the chunk pool), so
+    // wall-clock time follows the slowest chunk rather than the document length.
+    // Reduce: merge the partial summaries, in rounds when there are too many.
+    private String createMapReduceSummary(String text, boolean fresh) {
+        List<String> chunks = ParagraphChunker.split(text, chunkTokens, tokenCounter::count);
+        log.info("Summarizing {} chunks with parallelism {}", chunks.size(), parallelism);
+        
+        List<CompletableFuture<String>> partials = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            String prompt = buildChunkPrompt(chunks.get(i), i + 1, chunks.size());
+            int maxTokens = summaryTokens(tokenCounter.count(chunks.get(i)));
+            partials.add(CompletableFuture.supplyAsync(LogContext.wrap(() -> chat(prompt, maxTokens, fresh)), chunkPool));
+        }
+        List<String> summaries = joinAll(partials);
+        
+        while (summaries.size() > mergeFanIn || tokenCounter.count(String.join("\n\n", summaries)) > singlePassTokens) {
+            List<String> merged = mergeRound(summaries, fresh);
+            if (merged.size() == summaries.size()) {
+                break; // every summary is already too big to pair up; merge what we have
+            }
+            summaries = merged;
+        }
+        String prompt = buildMergePrompt(summaries, true);
+        return chat(prompt, budgetPlanner.outputTokens(tokenCounter.count(prompt)), fresh);
+    }
+    
+    // One level of the hierarchical reduce: merge neighbouring groups concurrently
+    private List<String> mergeRound(List<String> summaries, boolean fresh) {
+        List<CompletableFuture<String>> merged = new ArrayList<>();
+        List<String> group = new ArrayList<>();
+        int groupTokens = 0;
+        for (String summary : summaries) {
+            int tokens = tokenCounter.count(summary);
+            if (!group.isEmpty() && (group.size() >= mergeFanIn || groupTokens + tokens > singlePassTokens)) {
+                merged.add(mergeAsync(group, fresh));
+                group = new ArrayList<>();
+                groupTokens = 0;
+            }
+            group.add(summary);
+            groupTokens += tokens;
+        }
+        merged.add(mergeAsync(group, fresh));
+        return joinAll(merged);
+    }
+    
+    private CompletableFuture<String> mergeAsync(List<String> group, boolean fresh) {
+        if (group.size() == 1) {
+            return CompletableFuture.completedFuture(group.get(0));
+        }
+        String prompt = buildMergePrompt(group, false);
+        int maxTokens = budgetPlanner.outputTokens(tokenCounter.count(prompt) / 2 + MIN_SUMMARY_TOKENS);
+        return CompletableFuture.supplyAsync(LogContext.wrap(() -> chat(prompt, maxTokens, fresh)), chunkPool);
+    }
+    
+    private static List<String> joinAll(List<CompletableFuture<String>> futures) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+    
+    private String buildChunkPrompt(String chunk, int part, int parts) {
+        return "This is part " + part + " of " + parts + " of a longer document.\n"
+            + """
+            Summarize this part in detail so it can later be combined with the other parts.
+            
+            Requirements:
+            - Include ALL major concepts and key points from this part
+            - Provide explanations for technical terms
+            - Keep important examples and comparisons
+            - Use paragraphs, not just short bullet points
+            
+            Text:
+            
+            """ + chunk;
+    }
+    
+    private String buildMergePrompt(List<String> summaries, boolean last) {
+        StringBuilder prompt = new StringBuilder(last
+            ? """
+            Combine the following partial summaries of one document into a single comprehensive summary.
+            
+            Requirements:
+            - Include ALL major concepts and key points
+            - Remove repetition between the parts
+            - Organize into clear sections with headings
+            - Use paragraphs, not just short bullet points
+            - Maintain the educational value of the content
+            """
+            : """
+            Combine the following partial summaries of consecutive parts of one document into one summary.
+            Keep every key concept, explanation and example; remove only repetition.
+            """);
+        for (int i = 0; i < summaries.size(); i++) {
+            prompt.append("\nPart ").append(i + 1).append(":\n").append(summaries.get(i)).append('\n');
+        }
+        return prompt.toString();
+    }
+    
+    // Room for a summary of about 40% of the input, as the prompts ask for
+    private int summaryTokens(int inputTokens) {
+        return budgetPlanner.outputTokens(inputTokens * 2 / 5 + MIN_SUMMARY_TOKENS);
+    }
+    
+    private String createDetailedSummary(String text, boolean fresh) {
+        int inputTokens = tokenCounter.count(text);
+        int overhead = tokenCounter.countMessages(List.of(ChatMessage.user(buildDetailedPrompt(""))));
+        TokenBudget budget = budgetPlanner.plan(text, overhead, summaryTokens(inputTokens));
+        return callAIService(buildDetailedPrompt(budget.input()), budget.maxTokens(), fresh);
     }
     
     private String buildDetailedPrompt(String text) {
@@ -54,49 +234,29 @@ public class SummaryService {
             """;
     }
     
-    private String callAIService(String prompt) {
+    // Throws on failure; the map-reduce path reports errors once, at the top
+    private String chat(String prompt, int maxTokens, boolean fresh) {
+        ChatRequest request = new ChatRequest("gpt-3.5-turbo", List.of(ChatMessage.user(prompt)), maxTokens, 0.3);
+        request.setBypassCache(fresh);
+        request.setCaller("summary");
+        return aiClient.chat(request);
+    }
+    
+    private String callAIService(String prompt, int maxTokens, boolean fresh) {
         // Example for OpenAI API
         try {
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-3.5-turbo"); // or gpt-4
-            requestBody.put("messages", List.of(
-                Map.of("role", "user", "content", prompt)
-            ));
-            requestBody.put("max_tokens", 5000); // Increase for longer summaries
-            requestBody.put("temperature", 0.3); // Lower = more focused
+            ChatRequest request = new ChatRequest("gpt-3.5-turbo", // or gpt-4
+                List.of(ChatMessage.user(prompt)),
+                maxTokens,
+                0.3); // Lower = more focused
+            request.setBypassCache(fresh);
+            request.setCaller("summary");
             
-            // Make API call
-            String response = restTemplate.postForObject(
-                "https://api.openai.com/v1/chat/completions",
-                createHttpEntity(requestBody),
-                String.class
-            );
-            
-            // Parse and return summary
-            return extractSummaryFromResponse(response);
+            return aiClient.chat(request);
             
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error generating summary", e);
             return "Error generating summary: " + e.getMessage();
         }
     }
-    
-    private Object createHttpEntity(Map<String, Object> body) {
-        // This would need HttpHeaders and HttpEntity imports
-        // For now, return the body directly
-        return body;
-    }
-    
-    private String extractSummaryFromResponse(String response) {
-        // Parse JSON response and extract the summary text
-        // This depends on your AI service response format
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response);
-            return root.path("choices").get(0)
-                      .path("message").path("content").asText();
-        } catch (Exception e) {
-            return "Error parsing response";
-        }
-    }
 }
\ No newline at end of file
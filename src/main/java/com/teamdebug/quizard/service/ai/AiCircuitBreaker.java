@@ -0,0 +1,167 @@
+package com.teamdebug.quizard.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Circuit breaker around the AI provider. Outcomes of the last window-size
+// calls are kept in a ring; once at least minimum-calls are recorded and the
+// failure rate reaches the threshold, the breaker opens and every call is
+// refused at once (callers fall back to local generation) until open-ms has
+// passed. Then a few trial calls are let through: if they succeed the
+// breaker closes, if one fails it opens again.
+@Component
+public class AiCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(AiCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Value("${quizard.ai.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quizard.ai.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${quizard.ai.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${quizard.ai.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${quizard.ai.circuit-breaker.open-ms:30000}")
+    private long openMs;
+
+    @Value("${quizard.ai.circuit-breaker.half-open-calls:2}")
+    private int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private boolean[] outcomes; // true = failure
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int trialsInFlight;
+    private int trialsSucceeded;
+
+    private long opened;
+    private long refused;
+
+    // Throws AiUnavailableException when the call must not go upstream;
+    // otherwise exactly one of onSuccess, onFailure or onIgnored must follow
+    public synchronized void acquire() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < TimeUnit.MILLISECONDS.toNanos(openMs)) {
+                refused++;
+                throw new AiUnavailableException("AI provider circuit is open");
+            }
+            state = State.HALF_OPEN;
+            trialsInFlight = 0;
+            trialsSucceeded = 0;
+            log.info("AI circuit half-open: sending trial calls");
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsInFlight + trialsSucceeded >= halfOpenCalls) {
+                refused++;
+                throw new AiUnavailableException("AI provider circuit is half-open; trial calls in progress");
+            }
+            trialsInFlight++;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            trialsInFlight--;
+            if (++trialsSucceeded >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            trialsInFlight--;
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    // The call ended for reasons that say nothing about the provider's health
+    public synchronized void onIgnored() {
+        if (enabled && state == State.HALF_OPEN) {
+            trialsInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("recentCalls", recorded);
+        stats.put("recentFailures", failures);
+        stats.put("timesOpened", opened);
+        stats.put("refused", refused);
+        return stats;
+    }
+
+    // Caller must hold the monitor
+    private void record(boolean failure) {
+        if (outcomes == null) {
+            outcomes = new boolean[windowSize];
+        }
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    // Caller must hold the monitor
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        opened++;
+        log.warn("AI circuit opened; generating locally for the next {} ms", openMs);
+    }
+
+    // Caller must hold the monitor
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        log.info("AI circuit closed");
+    }
+}
@@ -0,0 +1,668 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.teamdebug.quizard.service.logging.LogContext;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// The one HTTP client every AI call goes through. A single JDK HttpClient
+// keeps connections alive and multiplexes requests over HTTP/2 (falling back
+// to pooled HTTP/1.1), so generations stop paying a TLS handshake each.
+// Connect, response and total timeouts bound how long a hung upstream can
+// hold a request thread, and AiRequestLimiter decides when a call may go
+// upstream at all. Throttled (429/503) and transient failures are retried
+// with jittered exponential backoff within the total timeout. Identical
+// requests that arrive while one is already in flight wait on that call's
+// future instead of sending their own (single-flight); a call every waiter
+// has given up on before it started is skipped. Calls queue for the bounded
+// AI call pool, and are turned away once that queue is full. An AiCircuitBreaker
+// refuses calls outright while the provider keeps failing; cached answers
+// are still served then.
+@Component
+public class AiClient {
+
+    private static final Logger log = LoggerFactory.getLogger(AiClient.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AiResponseCache responseCache;
+
+    @Autowired
+    private TokenCounter tokenCounter;
+
+    @Autowired
+    private AiRequestLimiter limiter;
+
+    @Autowired
+    private AiCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${openai.api.key:}")
+    private String apiKey;
+
+    // Any OpenAI-compatible endpoint: a proxy, another provider, or the load-test stub
+    @Value("${quizard.ai.base-url:https://api.openai.com/v1}")
+    private String baseUrl;
+
+    @Value("${quizard.ai.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${quizard.ai.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+
+    @Value("${quizard.ai.total-timeout-ms:120000}")
+    private long totalTimeoutMs;
+
+    @Value("${quizard.ai.max-concurrent-requests:32}")
+    private int maxConcurrentRequests;
+
+    // Calls waiting for a free AI call thread before new ones are turned away
+    @Value("${quizard.ai.max-queued-calls:200}")
+    private int maxQueuedCalls;
+
+    @Value("${quizard.ai.io-threads:4}")
+    private int ioThreads;
+
+    @Value("${quizard.ai.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${quizard.ai.retry.base-delay-ms:500}")
+    private long baseDelayMs;
+
+    @Value("${quizard.ai.retry.max-delay-ms:10000}")
+    private long maxDelayMs;
+
+    private URI chatCompletionsUri;
+    private HttpClient httpClient;
+    private ExecutorService executor;
+    private ExecutorService flightExecutor;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    // Local prompt estimates next to what upstream actually billed
+    private final LongAdder usageResponses = new LongAdder();
+    private final LongAdder estimatedPromptTokens = new LongAdder();
+    private final LongAdder actualPromptTokens = new LongAdder();
+    private final LongAdder completionTokens = new LongAdder();
+    private final LongAdder requestedMaxTokens = new LongAdder();
+    private final LongAdder truncatedResponses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        chatCompletionsUri = URI.create(baseUrl.replaceAll("/+$", "") + "/chat/completions");
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(ioThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ai-client-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger flightCount = new AtomicInteger();
+        flightExecutor = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedCalls), runnable -> {
+            Thread thread = new Thread(runnable, "ai-call-" + flightCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+        pipelineMetrics.monitor(flightExecutor, "ai-call");
+        pipelineMetrics.monitor(executor, "ai-client");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flightExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // Sends a chat completion and returns the first choice's message content.
+    // Answers come from the response cache unless the request bypasses it, and
+    // concurrent identical requests share a single upstream call.
+    public String chat(ChatRequest request) {
+        String key = responseCache.keyFor(request);
+        if (request.isBypassCache()) {
+            // A fresh answer was asked for; don't hand back someone else's
+            if (responseCache.isEnabled()) {
+                responseCache.recordBypass();
+            }
+            return complete(request, key);
+        }
+
+        if (responseCache.isEnabled()) {
+            Optional<String> cached = responseCache.get(key);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        // Join the call in flight unless everyone waiting on it has given up
+        Flight created = new Flight();
+        Flight flight = inFlight.compute(key, (k, existing) -> existing != null && existing.join() ? existing : created);
+        if (flight != created) {
+            coalesced.increment();
+            return await(flight);
+        }
+
+        // The shared call runs on its own thread so no single caller's
+        // interrupt or timeout can cancel it for everyone else
+        try {
+            flightExecutor.execute(LogContext.wrap(() -> {
+                try {
+                    if (!flight.hasWaiters()) {
+                        abandoned.increment();
+                        throw new AiServiceException("AI request abandoned by every caller", 0);
+                    }
+                    String content = complete(request, key);
+                    inFlight.remove(key, flight);
+                    flight.result.complete(content);
+                } catch (Throwable e) {
+                    inFlight.remove(key, flight);
+                    flight.result.completeExceptionally(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, flight);
+            flight.result.completeExceptionally(rejected(e));
+        }
+        return await(flight);
+    }
+
+    // Streams a chat completion, passing each content delta to onDelta as it
+    // arrives, and completes with the full content. A cached answer is
+    // replayed as a single delta. Runs on the AI call pool; an exception
+    // thrown by onDelta (say, the client went away) aborts the upstream call.
+    public CompletableFuture<String> streamChat(ChatRequest request, Consumer<String> onDelta) {
+        String key = responseCache.keyFor(request);
+        Optional<String> cached = Optional.empty();
+        if (responseCache.isEnabled()) {
+            if (request.isBypassCache()) {
+                responseCache.recordBypass();
+            } else {
+                cached = responseCache.get(key);
+            }
+        }
+
+        Optional<String> replay = cached;
+        try {
+            return CompletableFuture.supplyAsync(LogContext.wrap(() -> {
+                if (replay.isPresent()) {
+                    onDelta.accept(replay.get());
+                    return replay.get();
+                }
+                return guarded(request, () -> stream(request, key, onDelta));
+            }), flightExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(rejected(e));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("abandoned", abandoned.sum());
+        stats.put("retries", retries.sum());
+        stats.put("limiter", limiter.getStats());
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+        stats.put("cache", responseCache.getStats());
+
+        Map<String, Long> tokens = new LinkedHashMap<>();
+        tokens.put("responses", usageResponses.sum());
+        tokens.put("estimatedPromptTokens", estimatedPromptTokens.sum());
+        tokens.put("actualPromptTokens", actualPromptTokens.sum());
+        tokens.put("completionTokens", completionTokens.sum());
+        tokens.put("requestedMaxTokens", requestedMaxTokens.sum());
+        tokens.put("truncatedResponses", truncatedResponses.sum());
+        stats.put("tokens", tokens);
+        return stats;
+    }
+
+    private AiServiceException rejected(RejectedExecutionException e) {
+        if (flightExecutor.isShutdown()) {
+            return new AiServiceException("AI client is shutting down", e);
+        }
+        return new AiUnavailableException("Too many AI calls queued");
+    }
+
+    private String await(Flight flight) {
+        try {
+            return flight.result.get(totalTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Only this caller gives up; the shared call keeps going for the rest
+            flight.leave();
+            throw new AiServiceException("AI request timed out after " + totalTimeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            flight.leave();
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("AI request interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // Rebuilt with the same class: guarded callers treat unavailable as never sent
+            if (cause instanceof AiUnavailableException unavailable) {
+                throw new AiUnavailableException(unavailable.getMessage(), unavailable);
+            }
+            if (cause instanceof AiServiceException failure) {
+                throw new AiServiceException(failure.getMessage(), failure.getStatusCode(), failure);
+            }
+            throw new AiServiceException("AI request failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private String complete(ChatRequest request, String key) {
+        // Tokenized once per request: admission and the usage stats both need it
+        int promptTokens = tokenCounter.countMessages(request.getMessages());
+        JsonNode response = guarded(request, () -> send(request, promptTokens));
+        JsonNode choices = response.path("choices");
+        if (!choices.isArray() || choices.isEmpty()) {
+            throw new AiServiceException("AI response has no choices", 0);
+        }
+        JsonNode choice = choices.get(0);
+        String content = choice.path("message").path("content").asText();
+
+        // Truncated or filtered answers are not worth replaying
+        String finishReason = choice.path("finish_reason").asText("");
+        JsonNode usage = response.path("usage");
+        recordUsage(request, promptTokens, usage.isObject() ? usage : null, finishReason);
+        if (responseCache.isEnabled() && !content.isBlank()
+                && (finishReason.isEmpty() || finishReason.equals("stop"))) {
+            responseCache.put(key, content);
+        }
+        return content;
+    }
+
+    private JsonNode send(ChatRequest request, int promptTokens) {
+        byte[] body = serialize(request, false);
+        // What the provider's token-per-minute limit charges: prompt plus the answer it may produce
+        int tokens = promptTokens + request.getMaxTokens();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(totalTimeoutMs);
+        for (int attempt = 1; ; attempt++) {
+            AiRequestLimiter.Permit permit = limiter.acquire(tokens, deadline);
+            AiRequestLimiter.Outcome outcome = AiRequestLimiter.Outcome.FAILED;
+            long completionTokens = 0;
+            CompletableFuture<HttpResponse<byte[]>> pending = null;
+            AiServiceException failure;
+            try {
+                pending = httpClient.sendAsync(newHttpRequest(body).build(), HttpResponse.BodyHandlers.ofByteArray());
+                HttpResponse<byte[]> response = pending.get(remaining(deadline), TimeUnit.NANOSECONDS);
+
+                if (response.statusCode() / 100 == 2) {
+                    JsonNode json = objectMapper.readTree(response.body());
+                    outcome = AiRequestLimiter.Outcome.SUCCESS;
+                    completionTokens = json.path("usage").path("completion_tokens").asLong();
+                    return json;
+                }
+                outcome = outcomeFor(response.statusCode(), response.headers());
+                failure = new AiServiceException("AI service returned HTTP " + response.statusCode() + ": "
+                        + snippet(response.body()), response.statusCode());
+
+            } catch (TimeoutException e) {
+                pending.cancel(true);
+                outcome = AiRequestLimiter.Outcome.OVERLOADED;
+                throw new AiServiceException("AI request timed out after " + totalTimeoutMs + " ms", e);
+            } catch (InterruptedException e) {
+                pending.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new AiServiceException("AI request interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof HttpTimeoutException) {
+                    outcome = AiRequestLimiter.Outcome.OVERLOADED;
+                    failure = new AiServiceException("AI service did not respond within " + readTimeoutMs + " ms", cause);
+                } else {
+                    failure = new AiServiceException("AI request failed: " + cause.getMessage(), cause);
+                }
+            } catch (IOException e) {
+                throw new AiServiceException("Could not parse AI response", e);
+            } finally {
+                permit.release(outcome, completionTokens);
+            }
+            retryOrThrow(failure, attempt, deadline);
+        }
+    }
+
+    private String stream(ChatRequest request, String key, Consumer<String> onDelta) {
+        byte[] requestBody = serialize(request, true);
+        int promptTokens = tokenCounter.countMessages(request.getMessages());
+        int tokens = promptTokens + request.getMaxTokens();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(totalTimeoutMs);
+        AiRequestLimiter.Permit permit;
+        HttpResponse<InputStream> response;
+        // Retries are only possible until the first delta has been passed on
+        for (int attempt = 1; ; attempt++) {
+            permit = limiter.acquire(tokens, deadline);
+            AiRequestLimiter.Outcome outcome = AiRequestLimiter.Outcome.FAILED;
+            AiServiceException failure;
+            try {
+                response = httpClient.send(newHttpRequest(requestBody).build(), HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() / 100 == 2) {
+                    break;
+                }
+                try (InputStream errorBody = response.body()) {
+                    outcome = outcomeFor(response.statusCode(), response.headers());
+                    failure = new AiServiceException("AI service returned HTTP " + response.statusCode() + ": "
+                            + snippet(errorBody.readNBytes(300)), response.statusCode());
+                }
+            } catch (HttpTimeoutException e) {
+                outcome = AiRequestLimiter.Outcome.OVERLOADED;
+                failure = new AiServiceException("AI service did not respond within " + readTimeoutMs + " ms", e);
+            } catch (IOException e) {
+                failure = new AiServiceException("AI stream failed: " + e.getMessage(), e);
+            } catch (InterruptedException e) {
+                permit.release(outcome, 0);
+                Thread.currentThread().interrupt();
+                throw new AiServiceException("AI request interrupted", e);
+            }
+            permit.release(outcome, 0);
+            retryOrThrow(failure, attempt, deadline);
+        }
+
+        InputStream body = response.body();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        AiRequestLimiter.Outcome outcome = AiRequestLimiter.Outcome.FAILED;
+        long completionTokens = 0;
+        try {
+            // Closing the body is the only way to unblock a stalled read
+            CompletableFuture.delayedExecutor(remaining(deadline), TimeUnit.NANOSECONDS).execute(() -> {
+                timedOut.set(true);
+                closeQuietly(body);
+            });
+
+            // Server-sent events: one "data: {chunk}" line per delta, then "data: [DONE]"
+            StringBuilder content = new StringBuilder();
+            String finishReason = "";
+            JsonNode usage = null;
+            BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if (data.equals("[DONE]")) {
+                    break;
+                }
+                JsonNode chunk = objectMapper.readTree(data);
+                if (chunk.hasNonNull("usage")) {
+                    usage = chunk.get("usage");
+                }
+                JsonNode choice = chunk.path("choices").path(0);
+                String delta = choice.path("delta").path("content").asText("");
+                if (!delta.isEmpty()) {
+                    content.append(delta);
+                    onDelta.accept(delta);
+                }
+                if (choice.path("finish_reason").isTextual()) {
+                    finishReason = choice.path("finish_reason").asText();
+                }
+            }
+            if (timedOut.get()) {
+                outcome = AiRequestLimiter.Outcome.OVERLOADED;
+                throw new AiServiceException("AI stream timed out after " + totalTimeoutMs + " ms", 0);
+            }
+            recordUsage(request, promptTokens, usage, finishReason);
+            outcome = AiRequestLimiter.Outcome.SUCCESS;
+            completionTokens = usage != null ? usage.path("completion_tokens").asLong() : 0;
+
+            if (responseCache.isEnabled() && content.length() > 0 && finishReason.equals("stop")) {
+                responseCache.put(key, content.toString());
+            }
+            return content.toString();
+
+        } catch (IOException e) {
+            if (timedOut.get()) {
+                outcome = AiRequestLimiter.Outcome.OVERLOADED;
+                throw new AiServiceException("AI stream timed out after " + totalTimeoutMs + " ms", e);
+            }
+            throw new AiServiceException("AI stream failed: " + e.getMessage(), e);
+        } finally {
+            closeQuietly(body);
+            permit.release(outcome, completionTokens);
+        }
+    }
+
+    // Runs one upstream call (retries included) under the circuit breaker. Only
+    // failures that say something about the provider count against it; calls
+    // that never left (limiter rejections) or that the caller aborted don't.
+    private <T> T guarded(ChatRequest request, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "rejected";
+        try {
+            circuitBreaker.acquire();
+        } catch (AiUnavailableException e) {
+            pipelineMetrics.aiCall(callerOf(request), request.getModel(), outcome, System.nanoTime() - start);
+            throw e;
+        }
+        outcome = "error";
+        try {
+            T result = call.get();
+            circuitBreaker.onSuccess();
+            outcome = "success";
+            return result;
+        } catch (AiServiceException e) {
+            int status = e.getStatusCode();
+            boolean providerFault = !(e instanceof AiUnavailableException)
+                    && (status == 0 || status == 408 || status == 429 || status >= 500);
+            if (providerFault) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onIgnored();
+            }
+            outcome = e instanceof AiUnavailableException ? "rejected" : "error";
+            throw e;
+        } catch (RuntimeException | Error e) {
+            circuitBreaker.onIgnored();
+            throw e;
+        } finally {
+            pipelineMetrics.aiCall(callerOf(request), request.getModel(), outcome, System.nanoTime() - start);
+        }
+    }
+
+    private static String callerOf(ChatRequest request) {
+        return request.getCaller() != null ? request.getCaller() : "unknown";
+    }
+
+    // 429 and 503 mean back off: every caller waits out Retry-After and the concurrency limit shrinks
+    private AiRequestLimiter.Outcome outcomeFor(int status, HttpHeaders headers) {
+        if (status == 429 || status == 503) {
+            limiter.pause(retryAfterMs(headers));
+            return AiRequestLimiter.Outcome.OVERLOADED;
+        }
+        return AiRequestLimiter.Outcome.FAILED;
+    }
+
+    // Retries throttling, server errors and failures without a response; other 4xx are final
+    private void retryOrThrow(AiServiceException failure, int attempt, long deadline) {
+        int status = failure.getStatusCode();
+        boolean retryable = status == 0 || status == 408 || status == 429 || status >= 500;
+        long delayMs = backoffMs(attempt);
+        if (!retryable || attempt >= maxAttempts || TimeUnit.MILLISECONDS.toNanos(delayMs) >= remaining(deadline)) {
+            throw failure;
+        }
+
+        retries.increment();
+        log.warn("Retrying AI request in {} ms (attempt {} of {}): {}", delayMs, attempt + 1, maxAttempts,
+                failure.getMessage());
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    // Full jitter: uniformly random up to the exponential step, so retries don't arrive in waves
+    private long backoffMs(int attempt) {
+        long step = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(step + 1);
+    }
+
+    // Retry-After is seconds or an HTTP date; some providers also send retry-after-ms
+    static long retryAfterMs(HttpHeaders headers) {
+        Optional<String> millis = headers.firstValue("retry-after-ms");
+        if (millis.isPresent()) {
+            try {
+                return (long) Double.parseDouble(millis.get().trim());
+            } catch (NumberFormatException e) {
+                // fall through to Retry-After
+            }
+        }
+        Optional<String> retryAfter = headers.firstValue("retry-after");
+        if (retryAfter.isEmpty()) {
+            return 0;
+        }
+        String value = retryAfter.get().trim();
+        try {
+            return (long) (Double.parseDouble(value) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    // The local estimate is only counted next to a billed figure, so the two stay comparable
+    private void recordUsage(ChatRequest request, int promptTokens, JsonNode usage, String finishReason) {
+        requestedMaxTokens.add(request.getMaxTokens());
+        if (usage != null) {
+            long prompt = usage.path("prompt_tokens").asLong();
+            long completion = usage.path("completion_tokens").asLong();
+            usageResponses.increment();
+            estimatedPromptTokens.add(promptTokens);
+            actualPromptTokens.add(prompt);
+            completionTokens.add(completion);
+            pipelineMetrics.tokens(callerOf(request), request.getModel(), prompt, completion);
+        }
+        if (finishReason.equals("length")) {
+            truncatedResponses.increment();
+        }
+    }
+
+    private byte[] serialize(ChatRequest request, boolean stream) {
+        try {
+            if (!stream) {
+                return objectMapper.writeValueAsBytes(request);
+            }
+            ObjectNode body = objectMapper.valueToTree(request);
+            body.put("stream", true);
+            body.putObject("stream_options").put("include_usage", true);
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new AiServiceException("Could not serialize AI request", e);
+        }
+    }
+
+    private HttpRequest.Builder newHttpRequest(byte[] body) {
+        HttpRequest.Builder httpRequest = HttpRequest.newBuilder(chatCompletionsUri)
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (!apiKey.isBlank()) {
+            httpRequest.header("Authorization", "Bearer " + apiKey);
+        }
+        return httpRequest;
+    }
+
+    private static void closeQuietly(InputStream input) {
+        if (input == null) {
+            return;
+        }
+        try {
+            input.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+
+    // One shared upstream call and the number of callers still waiting for it.
+    // Once that drops to zero nobody can join any more, so a call that hasn't
+    // started yet can safely be skipped.
+    private static final class Flight {
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger(1);
+
+        boolean join() {
+            int count;
+            do {
+                count = waiters.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!waiters.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        void leave() {
+            waiters.decrementAndGet();
+        }
+
+        boolean hasWaiters() {
+            return waiters.get() > 0;
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static String snippet(byte[] body) {
+        String text = new String(body, 0, Math.min(body.length, 300), StandardCharsets.UTF_8);
+        return text.replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,274 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+
+// Admission control in front of the AI provider, shared by every call. A
+// request goes upstream only when
+//  - the provider has not told us to back off (Retry-After pauses everyone),
+//  - the request and token buckets hold a minute's budget worth of capacity
+//    for it (tokens = prompt estimate + max_tokens, the way providers count),
+//  - fewer calls are in flight than the adaptive concurrency limit.
+// The limit grows additively while calls succeed at a healthy output rate
+// and shrinks multiplicatively on 429/503s, timeouts or a slowing provider
+// (AIMD). Callers queue fairly; a full queue or a wait past the caller's
+// deadline is rejected rather than left holding a request thread.
+@Component
+public class AiRequestLimiter {
+
+    public enum Outcome {
+        SUCCESS,
+        // Provider pushed back: 429/503, timeouts
+        OVERLOADED,
+        // Failed for reasons that say nothing about load
+        FAILED
+    }
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${quizard.ai.limits.requests-per-minute:3500}")
+    private int requestsPerMinute;
+
+    @Value("${quizard.ai.limits.tokens-per-minute:90000}")
+    private int tokensPerMinute;
+
+    @Value("${quizard.ai.limits.initial-concurrency:8}")
+    private int initialConcurrency;
+
+    @Value("${quizard.ai.limits.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${quizard.ai.max-concurrent-requests:32}")
+    private int maxConcurrency;
+
+    @Value("${quizard.ai.limits.backoff-ratio:0.7}")
+    private double backoffRatio;
+
+    // Output slower than this (per completion token) counts as the provider struggling
+    @Value("${quizard.ai.limits.slow-ms-per-token:100}")
+    private long slowMsPerToken;
+
+    @Value("${quizard.ai.limits.max-queued:200}")
+    private int maxQueued;
+
+    @Value("${quizard.ai.limits.max-queue-wait-ms:30000}")
+    private long maxQueueWaitMs;
+
+    // At most one multiplicative decrease per window, so one burst of failures counts once
+    private static final long DECREASE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition changed = lock.newCondition();
+
+    private boolean initialized;
+    private double limit;
+    private int inUse;
+    private int queued;
+    private double requestTokens;
+    private double tokenTokens;
+    private long lastRefill;
+    private long pausedUntil;
+    private long lastDecrease;
+
+    private long admitted;
+    private long rejected;
+    private long throttled;
+    private long queueWaitNanos;
+    private long maxQueueWaitNanos;
+
+    @PostConstruct
+    public void init() {
+        pipelineMetrics.gauge("quizard.ai.limiter.queued", "Calls waiting for an AI provider slot",
+            this, limiter -> limiter.snapshot(() -> limiter.queued));
+        pipelineMetrics.gauge("quizard.ai.limiter.in.use", "AI calls in flight",
+            this, limiter -> limiter.snapshot(() -> limiter.inUse));
+        pipelineMetrics.gauge("quizard.ai.limiter.limit", "Adaptive concurrency limit",
+            this, limiter -> limiter.snapshot(() -> limiter.limit));
+        pipelineMetrics.counter("quizard.ai.limiter.rejected", "Calls rejected by admission control",
+            this, limiter -> limiter.snapshot(() -> limiter.rejected));
+    }
+
+    // Blocks until the request may go upstream; deadline is a System.nanoTime() value
+    public Permit acquire(int tokens, long deadline) {
+        long start = System.nanoTime();
+        long giveUpAt = Math.min(deadline, start + TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMs));
+        double cost = Math.min(tokens, tokensPerMinute);
+
+        lock.lock();
+        try {
+            initialize(start);
+            if (queued >= maxQueued) {
+                rejected++;
+                throw new AiUnavailableException("Too many AI requests waiting for the provider");
+            }
+            queued++;
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+
+                    long wait;
+                    if (now < pausedUntil) {
+                        wait = pausedUntil - now;
+                    } else if (inUse >= (int) limit) {
+                        wait = Long.MAX_VALUE; // until a call finishes
+                    } else if (requestTokens < 1 || tokenTokens < cost) {
+                        wait = Math.max(refillTime(1 - requestTokens, requestsPerMinute),
+                                refillTime(cost - tokenTokens, tokensPerMinute));
+                    } else {
+                        requestTokens -= 1;
+                        tokenTokens -= cost;
+                        inUse++;
+                        admitted++;
+                        long waited = now - start;
+                        queueWaitNanos += waited;
+                        maxQueueWaitNanos = Math.max(maxQueueWaitNanos, waited);
+                        pipelineMetrics.limiterWait(true, waited);
+                        return new Permit(now);
+                    }
+
+                    long remaining = giveUpAt - now;
+                    if (remaining <= 0) {
+                        rejected++;
+                        pipelineMetrics.limiterWait(false, now - start);
+                        throw new AiUnavailableException("Timed out waiting for an AI provider slot");
+                    }
+                    changed.awaitNanos(Math.min(wait, remaining));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AiServiceException("AI request interrupted", e);
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Provider asked for a break (Retry-After); holds back every caller until then
+    public void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+            throttled++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            initialize(now);
+            refill(now);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("concurrencyLimit", (int) limit);
+            stats.put("inUse", inUse);
+            stats.put("queued", queued);
+            stats.put("admitted", admitted);
+            stats.put("rejected", rejected);
+            stats.put("throttled", throttled);
+            stats.put("queueWaitMsTotal", TimeUnit.NANOSECONDS.toMillis(queueWaitNanos));
+            stats.put("queueWaitMsMax", TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos));
+            stats.put("pausedForMs", TimeUnit.NANOSECONDS.toMillis(Math.max(0, pausedUntil - now)));
+            stats.put("availableRequests", (long) requestTokens);
+            stats.put("availableTokens", (long) tokenTokens);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double snapshot(DoubleSupplier value) {
+        lock.lock();
+        try {
+            initialize(System.nanoTime());
+            return value.getAsDouble();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller must hold the lock
+    private void initialize(long now) {
+        if (!initialized) {
+            initialized = true;
+            limit = Math.max(minConcurrency, Math.min(initialConcurrency, maxConcurrency));
+            requestTokens = requestsPerMinute;
+            tokenTokens = tokensPerMinute;
+            lastRefill = now;
+            pausedUntil = now;
+            lastDecrease = now - DECREASE_WINDOW_NANOS;
+        }
+    }
+
+    // Caller must hold the lock
+    private void refill(long now) {
+        double minutes = (now - lastRefill) / (double) TimeUnit.MINUTES.toNanos(1);
+        requestTokens = Math.min(requestsPerMinute, requestTokens + minutes * requestsPerMinute);
+        tokenTokens = Math.min(tokensPerMinute, tokenTokens + minutes * tokensPerMinute);
+        lastRefill = now;
+    }
+
+    private static long refillTime(double missing, int perMinute) {
+        if (missing <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(missing / perMinute * TimeUnit.MINUTES.toNanos(1));
+    }
+
+    // One admitted call; release exactly once with how it went
+    public final class Permit {
+
+        private final long startedAt;
+        private boolean released;
+
+        private Permit(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        // completionTokens: output size when known (0 otherwise), to judge the provider's speed
+        public void release(Outcome outcome, long completionTokens) {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                inUse--;
+
+                long now = System.nanoTime();
+                boolean slow = completionTokens > 0
+                        && TimeUnit.NANOSECONDS.toMillis(now - startedAt) / completionTokens > slowMsPerToken;
+                if (outcome == Outcome.OVERLOADED || (outcome == Outcome.SUCCESS && slow)) {
+                    if (now - lastDecrease >= DECREASE_WINDOW_NANOS) {
+                        limit = Math.max(minConcurrency, limit * backoffRatio);
+                        lastDecrease = now;
+                    }
+                } else if (outcome == Outcome.SUCCESS && inUse + 1 >= limit / 2) {
+                    // Grow only while the limit is actually being used: about +1 per limit's worth of calls
+                    limit = Math.min(maxConcurrency, limit + 1 / limit);
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
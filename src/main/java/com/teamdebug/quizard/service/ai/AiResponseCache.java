@@ -0,0 +1,283 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Cache of AI completions keyed by a SHA-256 digest of everything that shapes
+// the answer: model, messages, max_tokens and temperature. A small LRU map
+// serves hot prompts from memory; every entry is also written as a gzipped
+// file so it survives restarts. Entries expire after a TTL counted from when
+// they were written, and the oldest files go first once the directory
+// outgrows its size budget.
+@Component
+public class AiResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AiResponseCache.class);
+
+    private static final String SUFFIX = ".txt.gz";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quizard.ai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quizard.ai.cache.memory-entries:500}")
+    private int memoryEntries;
+
+    @Value("${quizard.ai.cache.dir:${java.io.tmpdir}/quizard-ai-cache}")
+    private String directory;
+
+    @Value("${quizard.ai.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${quizard.ai.cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    private Path root;
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    // Disk index in write order, which is also expiry order
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>();
+    private long diskBytes;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(root)) {
+            listing.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    files.add(path);
+                } else if (name.endsWith(".tmp")) {
+                    deleteQuietly(path);
+                }
+            });
+        }
+        files.sort(Comparator.comparingLong(AiResponseCache::lastModified));
+
+        synchronized (this) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                disk.put(name.substring(0, name.length() - SUFFIX.length()),
+                        new DiskEntry(Files.size(file), lastModified(file)));
+                diskBytes += Files.size(file);
+            }
+            trimDisk();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String keyFor(ChatRequest request) {
+        try {
+            // Field order is fixed by ChatRequest, so equal requests serialize identically
+            byte[] canonical = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(sha256().digest(canonical));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize AI request for caching", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            MemoryEntry entry = memory.get(key);
+            if (entry != null) {
+                if (!isExpired(entry.writtenAt, now)) {
+                    memoryHits.increment();
+                    return Optional.of(entry.content);
+                }
+                memory.remove(key);
+            }
+
+            DiskEntry onDisk = disk.get(key);
+            if (onDisk == null || isExpired(onDisk.writtenAt, now)) {
+                if (onDisk != null) {
+                    removeFromDisk(key);
+                }
+                misses.increment();
+                return Optional.empty();
+            }
+        }
+
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(fileFor(key)))) {
+            String content = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            synchronized (this) {
+                DiskEntry onDisk = disk.get(key);
+                putInMemory(key, new MemoryEntry(content, onDisk != null ? onDisk.writtenAt : now));
+            }
+            diskHits.increment();
+            return Optional.of(content);
+        } catch (IOException e) {
+            synchronized (this) {
+                removeFromDisk(key);
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, String content) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            putInMemory(key, new MemoryEntry(content, now));
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, key, ".tmp");
+            try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                output.write(content.getBytes(StandardCharsets.UTF_8));
+            }
+            Path file = fileFor(key);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long size = Files.size(file);
+            synchronized (this) {
+                DiskEntry previous = disk.remove(key);
+                if (previous != null) {
+                    diskBytes -= previous.size;
+                }
+                disk.put(key, new DiskEntry(size, now));
+                diskBytes += size;
+                trimDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write AI cache entry {}: {}", key, e.getMessage());
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    // Caller asked for a fresh answer; counted so the hit rate stays honest
+    public void recordBypass() {
+        bypassed.increment();
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("memoryEntries", (long) memory.size());
+        stats.put("diskEntries", (long) disk.size());
+        stats.put("diskBytes", diskBytes);
+        stats.put("memoryHits", memoryHits.sum());
+        stats.put("diskHits", diskHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("bypassed", bypassed.sum());
+        return stats;
+    }
+
+    // Caller must hold the monitor
+    private void putInMemory(String key, MemoryEntry entry) {
+        memory.put(key, entry);
+        Iterator<String> eldest = memory.keySet().iterator();
+        while (memory.size() > memoryEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    // Caller must hold the monitor
+    private void trimDisk() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, DiskEntry>> oldest = disk.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, DiskEntry> entry = oldest.next();
+            if (diskBytes <= maxBytes && !isExpired(entry.getValue().writtenAt, now)) {
+                break;
+            }
+            diskBytes -= entry.getValue().size;
+            oldest.remove();
+            deleteQuietly(fileFor(entry.getKey()));
+        }
+    }
+
+    // Caller must hold the monitor
+    private void removeFromDisk(String key) {
+        DiskEntry entry = disk.remove(key);
+        if (entry != null) {
+            diskBytes -= entry.size;
+        }
+        deleteQuietly(fileFor(key));
+    }
+
+    private boolean isExpired(long writtenAt, long now) {
+        return now - writtenAt > TimeUnit.MINUTES.toMillis(ttlMinutes);
+    }
+
+    private Path fileFor(String key) {
+        return root.resolve(key + SUFFIX);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete AI cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record MemoryEntry(String content, long writtenAt) {}
+
+    private record DiskEntry(long size, long writtenAt) {}
+}
@@ -0,0 +1,28 @@
+package com.teamdebug.quizard.service.ai;
+
+// Upstream AI call failed; statusCode is 0 when no HTTP response arrived
+public class AiServiceException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public AiServiceException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public AiServiceException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    public AiServiceException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,16 @@
+package com.teamdebug.quizard.service.ai;
+
+// The call never reached the provider: the circuit breaker is open or the
+// outbound limiter turned it away. Callers should degrade, not wait.
+public class AiUnavailableException extends AiServiceException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AiUnavailableException(String message) {
+        super(message, 503);
+    }
+
+    public AiUnavailableException(String message, Throwable cause) {
+        super(message, 503, cause);
+    }
+}
@@ -0,0 +1,234 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.teamdebug.quizard.service.logging.LogContext;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import com.teamdebug.quizard.service.text.NearDuplicateFilter;
+import com.teamdebug.quizard.service.text.ParagraphChunker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+// Generates large item counts (exam banks of hundreds of questions or cards)
+// as many small AI calls instead of one huge completion. The document is cut
+// into sections, sub-batches spread over them run concurrently, and their
+// items are merged with near-duplicates dropped. A sub-batch that fails or
+// comes back empty is retried on its own; items still missing after
+// deduplication are topped up with further rounds. The same top-up rounds
+// complete a single call that came back with fewer valid items than asked.
+// Only AI call failures are retried; any other exception is a bug and
+// propagates. If every batch failed, the last AI failure is rethrown.
+// When there are more batches than sections, several batches share one; each
+// is told which of them it is, so their prompts differ and the response cache
+// or single-flight never hands them one and the same answer. Top-up batches
+// are also shown the items already kept, so they ask for new ones.
+@Component
+public class BatchFanOut {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchFanOut.class);
+
+    @FunctionalInterface
+    public interface BatchCall<T> {
+        List<T> generate(Batch batch);
+    }
+
+    // One sub-batch: count items from section, as part `part` of the `parts`
+    // batches sent for that section this round. retry = true when an earlier
+    // answer for this section must not be reused; kept holds the similarity
+    // keys of items already accepted (empty in the first round).
+    public record Batch(String section, int count, boolean retry, int part, int parts, List<String> kept) {
+
+        // Prompt lines to append after the text; empty for a first-round batch with a section of its own
+        public String instructions() {
+            StringBuilder lines = new StringBuilder();
+            if (parts > 1) {
+                lines.append("\nThis is request ").append(part).append(" of ").append(parts)
+                    .append(" for this same text. Cover different facts than the other requests: concentrate on the")
+                    .append(" part of the text starting about ").append((part - 1) * 100 / parts)
+                    .append("% of the way through.\n");
+            }
+            if (!kept.isEmpty()) {
+                lines.append("\nThese are already covered; do not repeat or rephrase them:\n");
+                // Only the latest ones, so the list cannot crowd the section out of the token budget
+                for (String key : kept.subList(Math.max(0, kept.size() - MAX_LISTED_KEPT), kept.size())) {
+                    lines.append("- ").append(key.length() > MAX_LISTED_CHARS
+                        ? key.substring(0, MAX_LISTED_CHARS) + "..." : key).append('\n');
+                }
+            }
+            return lines.toString();
+        }
+
+        Batch retried() {
+            return retry ? this : new Batch(section, count, true, part, parts, kept);
+        }
+    }
+
+    private static final int MIN_BATCH = 5;
+    private static final int MAX_LISTED_KEPT = 50;
+    private static final int MAX_LISTED_CHARS = 120;
+
+    @Autowired
+    private TokenCounter tokenCounter;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Requests above this many items are fanned out
+    @Value("${quizard.generation.fan-out.batch-size:15}")
+    private int batchSize;
+
+    @Value("${quizard.generation.fan-out.section-tokens:3000}")
+    private int sectionTokens;
+
+    @Value("${quizard.generation.fan-out.parallelism:4}")
+    private int parallelism;
+
+    @Value("${quizard.generation.fan-out.max-attempts:3}")
+    private int maxAttempts;
+
+    // Top-up rounds after the first, for items lost to failures or deduplication
+    @Value("${quizard.generation.fan-out.max-rounds:3}")
+    private int maxRounds;
+
+    @Value("${quizard.generation.fan-out.similarity-threshold:0.7}")
+    private double similarityThreshold;
+
+    private ExecutorService batchPool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        batchPool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ai-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pipelineMetrics.monitor(batchPool, "ai-batch");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdownNow();
+    }
+
+    public boolean shouldFanOut(int count) {
+        return count > batchSize;
+    }
+
+    // similarityKey: the text two items are compared on (question text, card front)
+    public <T> List<T> generate(String text, int total, BatchCall<T> call, Function<T, String> similarityKey) {
+        return run(text, List.of(), 0, total, call, similarityKey);
+    }
+
+    // Keeps the items already generated and asks only for the missing count
+    public <T> List<T> complete(String text, List<T> existing, int total, BatchCall<T> call,
+                                Function<T, String> similarityKey) {
+        return run(text, existing, 1, total, call, similarityKey);
+    }
+
+    private <T> List<T> run(String text, List<T> existing, int firstRound, int total, BatchCall<T> call,
+                            Function<T, String> similarityKey) {
+        List<String> sections = ParagraphChunker.split(text, sectionTokens, tokenCounter::count);
+        if (sections.isEmpty()) {
+            sections = List.of(text);
+        }
+
+        NearDuplicateFilter filter = new NearDuplicateFilter(similarityThreshold);
+        List<T> kept = new ArrayList<>(total);
+        int nextSection = 0;
+        int duplicates = 0;
+        AtomicReference<AiServiceException> lastFailure = new AtomicReference<>();
+        for (T item : existing) {
+            if (kept.size() < total && filter.add(similarityKey.apply(item))) {
+                kept.add(item);
+            }
+        }
+
+        for (int round = firstRound; round <= maxRounds && kept.size() < total; round++) {
+            int missing = total - kept.size();
+            // The first round also spreads over the document, but never below MIN_BATCH items a call
+            int batches = round == 0
+                ? Math.max(ceilDiv(missing, batchSize), Math.min(sections.size(), ceilDiv(missing, MIN_BATCH)))
+                : ceilDiv(missing, batchSize);
+            log.info("Fan-out round {}: {} items in {} batches over {} sections", round, missing, batches,
+                sections.size());
+
+            int[] sectionOf = new int[batches];
+            int[] sharing = new int[sections.size()];
+            for (int i = 0; i < batches; i++) {
+                sectionOf[i] = sectionFor(round == 0 ? i : nextSection + i, batches, sections.size(), round);
+                sharing[sectionOf[i]]++;
+            }
+            int[] seen = new int[sections.size()];
+            List<String> keptKeys = kept.stream().map(similarityKey).toList();
+            List<CompletableFuture<List<T>>> results = new ArrayList<>(batches);
+            for (int i = 0; i < batches; i++) {
+                int section = sectionOf[i];
+                Batch batch = new Batch(sections.get(section), missing / batches + (i < missing % batches ? 1 : 0),
+                    round > 0, ++seen[section], sharing[section], keptKeys);
+                results.add(CompletableFuture.supplyAsync(LogContext.wrap(() -> runBatch(call, batch, lastFailure)), batchPool));
+            }
+            nextSection += batches;
+
+            // Merge in batch order so the result follows the document
+            for (CompletableFuture<List<T>> result : results) {
+                for (T item : result.join()) {
+                    if (kept.size() >= total) {
+                        break;
+                    }
+                    if (filter.add(similarityKey.apply(item))) {
+                        kept.add(item);
+                    } else {
+                        duplicates++;
+                    }
+                }
+            }
+        }
+
+        log.info("Fan-out kept {} of {} items, dropped {} near-duplicates", kept.size(), total, duplicates);
+        if (kept.isEmpty() && lastFailure.get() != null) {
+            throw lastFailure.get();
+        }
+        return kept;
+    }
+
+    private <T> List<T> runBatch(BatchCall<T> call, Batch batch, AtomicReference<AiServiceException> lastFailure) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                List<T> items = call.generate(attempt > 1 ? batch.retried() : batch);
+                if (!items.isEmpty()) {
+                    return items;
+                }
+                log.warn("Batch attempt {} returned no valid items", attempt);
+            } catch (AiServiceException e) {
+                log.warn("Batch attempt {} failed: {}", attempt, e.getMessage());
+                lastFailure.set(e);
+            }
+        }
+        return List.of();
+    }
+
+    // First round spreads batches evenly over the document; top-ups continue round-robin
+    private static int sectionFor(int batch, int batches, int sections, int round) {
+        if (round == 0 && batches < sections) {
+            return (int) ((long) batch * sections / batches);
+        }
+        return batch % sections;
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
@@ -0,0 +1,28 @@
+package com.teamdebug.quizard.service.ai;
+
+public class ChatMessage {
+
+    private String role;
+    private String content;
+
+    public ChatMessage() {}
+
+    public ChatMessage(String role, String content) {
+        this.role = role;
+        this.content = content;
+    }
+
+    public static ChatMessage system(String content) {
+        return new ChatMessage("system", content);
+    }
+
+    public static ChatMessage user(String content) {
+        return new ChatMessage("user", content);
+    }
+
+    public String getRole() { return role; }
+    public String getContent() { return content; }
+
+    public void setRole(String role) { this.role = role; }
+    public void setContent(String content) { this.content = content; }
+}
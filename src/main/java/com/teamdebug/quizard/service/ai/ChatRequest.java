@@ -0,0 +1,43 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// Body of a chat completion request, serialized as the OpenAI API expects
+public class ChatRequest {
+
+    private String model;
+    private List<ChatMessage> messages;
+    @JsonProperty("max_tokens")
+    private int maxTokens;
+    private double temperature;
+    @JsonIgnore
+    private boolean bypassCache; // skip cached answers, e.g. when a user wants fresh questions
+    @JsonIgnore
+    private String caller; // service tag on the AI metrics: quiz, flashcards, summary...
+
+    public ChatRequest() {}
+
+    public ChatRequest(String model, List<ChatMessage> messages, int maxTokens, double temperature) {
+        this.model = model;
+        this.messages = messages;
+        this.maxTokens = maxTokens;
+        this.temperature = temperature;
+    }
+
+    public String getModel() { return model; }
+    public List<ChatMessage> getMessages() { return messages; }
+    public int getMaxTokens() { return maxTokens; }
+    public double getTemperature() { return temperature; }
+    public boolean isBypassCache() { return bypassCache; }
+    public String getCaller() { return caller; }
+
+    public void setModel(String model) { this.model = model; }
+    public void setMessages(List<ChatMessage> messages) { this.messages = messages; }
+    public void setMaxTokens(int maxTokens) { this.maxTokens = maxTokens; }
+    public void setTemperature(double temperature) { this.temperature = temperature; }
+    public void setBypassCache(boolean bypassCache) { this.bypassCache = bypassCache; }
+    public void setCaller(String caller) { this.caller = caller; }
+}
@@ -0,0 +1,248 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Parses a JSON array of objects as it streams in, handing each element to
+// the sink the moment its closing brace arrives. Uses Jackson's non-blocking
+// parser, so partial input never blocks or fails; tokens of the current
+// element are buffered until it is complete. Anything before the first '['
+// (stray prose or a ```json fence) and after the closing ']' is ignored.
+//
+// Malformed input only costs the element it occurs in: the parser skips
+// ahead to the next element start ('{' right after ',' or '}') and carries
+// on from there with a fresh parser. Elements are expected to be flat
+// objects, so such a brace never occurs inside one. Only the bytes a resync
+// could still need are kept: those after the last complete element, or after
+// the point a pending resync has already scanned to.
+public class JsonArrayStreamParser<T> {
+
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+    private final Consumer<T> sink;
+
+    private JsonParser parser;
+    // Fed bytes a resync may still need; offsets below are counted from the opening '['
+    private byte[] window = new byte[512];
+    private int windowLength;
+    // Offset of window[0]
+    private long windowStart;
+    // Bytes before this offset are dropped once the current chunk is parsed
+    private long keepFrom;
+    // Offset of the current parser's first real byte, minus its synthetic '['
+    private long parserBase;
+    private long resyncFrom = -1;
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private TokenBuffer element;
+    private int parsed;
+    private int skipped;
+
+    public JsonArrayStreamParser(ObjectMapper objectMapper, Class<T> type, Consumer<T> sink) {
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.sink = sink;
+        this.parser = newParser();
+    }
+
+    public void feed(CharSequence text) {
+        if (finished || text.length() == 0) {
+            return;
+        }
+
+        String chunk = text.toString();
+        if (!started) {
+            int start = chunk.indexOf('[');
+            if (start < 0) {
+                return;
+            }
+            started = true;
+            chunk = chunk.substring(start);
+        }
+
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        append(bytes);
+        if (resyncFrom >= 0) {
+            resync();
+        } else {
+            parse(bytes, 0, bytes.length);
+        }
+        dropConsumed();
+    }
+
+    // Elements successfully parsed and handed to the sink
+    public int getParsed() {
+        return parsed;
+    }
+
+    // Elements that were malformed or did not map onto the target type
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void parse(byte[] bytes, int offset, int length) {
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, offset, offset + length);
+            drain();
+        } catch (IOException e) {
+            if (element != null) {
+                skipped++;
+                element = null;
+            }
+            // Step back one byte in case the error is the next element's brace
+            // itself (a missing comma), but always move past this parser's start
+            long errorAt = parserBase + parser.currentLocation().getByteOffset();
+            resyncFrom = Math.max(Math.max(errorAt - 1, parserBase + 2), windowStart);
+            resync();
+        }
+    }
+
+    // Restart after the next element boundary past the error, or wait for more input
+    private void resync() {
+        int next = nextElementStart((int) (resyncFrom - windowStart));
+        if (next < 0) {
+            // Scan only new input next time; keep the last byte that may precede an element
+            int last = windowLength - 1;
+            while (last >= 0 && Character.isWhitespace(window[last])) {
+                last--;
+            }
+            resyncFrom = windowStart + windowLength;
+            keepFrom = windowStart + Math.max(last, 0);
+            return;
+        }
+
+        closeQuietly(parser);
+        parser = newParser();
+        parserBase = windowStart + next - 1;
+        keepFrom = windowStart + next;
+        resyncFrom = -1;
+        depth = 0;
+
+        // The feeder takes one buffer at a time, so the synthetic '[' goes in with the rest
+        byte[] resumed = new byte[windowLength - next + 1];
+        resumed[0] = '[';
+        System.arraycopy(window, next, resumed, 1, windowLength - next);
+        parse(resumed, 0, resumed.length);
+    }
+
+    private int nextElementStart(int from) {
+        for (int i = from; i < windowLength; i++) {
+            if (window[i] != '{') {
+                continue;
+            }
+            int previous = i - 1;
+            while (previous >= 0 && Character.isWhitespace(window[previous])) {
+                previous--;
+            }
+            if (previous >= 0 && (window[previous] == ',' || window[previous] == '}')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void append(byte[] bytes) {
+        if (windowLength + bytes.length > window.length) {
+            window = Arrays.copyOf(window, Math.max(window.length * 2, windowLength + bytes.length));
+        }
+        System.arraycopy(bytes, 0, window, windowLength, bytes.length);
+        windowLength += bytes.length;
+    }
+
+    private void dropConsumed() {
+        int drop = finished ? windowLength : (int) Math.min(keepFrom - windowStart, windowLength);
+        if (drop <= 0) {
+            return;
+        }
+        System.arraycopy(window, drop, window, 0, windowLength - drop);
+        windowLength -= drop;
+        windowStart += drop;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (depth == 0) {
+                if (token != JsonToken.START_ARRAY) {
+                    finished = true;
+                    return;
+                }
+                depth = 1;
+                continue;
+            }
+
+            if (depth == 1) {
+                if (token == JsonToken.END_ARRAY) {
+                    finished = true;
+                } else if (token == JsonToken.START_OBJECT) {
+                    element = new TokenBuffer(parser);
+                    element.copyCurrentEvent(parser);
+                    depth = 2;
+                }
+                // Bare scalars in the array are not elements we can use
+                continue;
+            }
+
+            element.copyCurrentEvent(parser);
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                depth++;
+            } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                depth--;
+                if (depth == 1) {
+                    // Keep the closing brace itself: it marks the next '{' as an element start
+                    keepFrom = parserBase + parser.currentTokenLocation().getByteOffset();
+                    emit(element);
+                    element = null;
+                }
+            }
+        }
+    }
+
+    private void emit(TokenBuffer buffer) {
+        T value;
+        try (JsonParser elementParser = buffer.asParser(objectMapper)) {
+            value = objectMapper.readValue(elementParser, type);
+        } catch (IOException e) {
+            skipped++;
+            return;
+        }
+        parsed++;
+        sink.accept(value);
+    }
+
+    // Lenient about the slips models make most: trailing commas and raw newlines in strings
+    @SuppressWarnings("deprecation")
+    private JsonParser newParser() {
+        try {
+            JsonParser created = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            created.enable(JsonParser.Feature.ALLOW_TRAILING_COMMA);
+            created.enable(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS);
+            return created;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void closeQuietly(JsonParser parser) {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+}
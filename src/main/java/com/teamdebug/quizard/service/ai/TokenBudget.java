@@ -0,0 +1,10 @@
+package com.teamdebug.quizard.service.ai;
+
+// How an input was fitted into a prompt: the (possibly trimmed) input, its
+// size before and after, and the max_tokens to request for the answer
+public record TokenBudget(String input, int originalTokens, int inputTokens, int maxTokens) {
+
+    public boolean isTrimmed() {
+        return inputTokens < originalTokens;
+    }
+}
@@ -0,0 +1,53 @@
+package com.teamdebug.quizard.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Splits the model's context window between prompt and answer. The answer
+// gets what the caller expects to need (capped at the model's output limit);
+// the input gets whatever is left after the fixed part of the prompt and a
+// safety margin, and is trimmed to fit rather than overflowing upstream.
+@Component
+public class TokenBudgetPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenBudgetPlanner.class);
+
+    @Autowired
+    private TokenCounter tokenCounter;
+
+    @Value("${quizard.ai.context-window:16385}")
+    private int contextWindow;
+
+    @Value("${quizard.ai.max-output-tokens:4096}")
+    private int maxOutputTokens;
+
+    @Value("${quizard.ai.safety-margin-tokens:64}")
+    private int safetyMargin;
+
+    // overheadTokens: the prompt without the input; expectedOutputTokens: the answer's likely size
+    public TokenBudget plan(String input, int overheadTokens, int expectedOutputTokens) {
+        int maxTokens = outputTokens(expectedOutputTokens);
+        int allowance = inputAllowance(overheadTokens, maxTokens);
+
+        int originalTokens = tokenCounter.count(input);
+        if (originalTokens <= allowance) {
+            return new TokenBudget(input, originalTokens, originalTokens, maxTokens);
+        }
+
+        String fitted = tokenCounter.truncate(input, allowance);
+        log.info("Trimmed AI input from {} to {} tokens to fit the context window", originalTokens, allowance);
+        return new TokenBudget(fitted, originalTokens, tokenCounter.count(fitted), maxTokens);
+    }
+
+    // Input tokens that still fit next to the given prompt overhead and answer size
+    public int inputAllowance(int overheadTokens, int maxTokens) {
+        return Math.max(0, contextWindow - overheadTokens - maxTokens - safetyMargin);
+    }
+
+    public int outputTokens(int expectedOutputTokens) {
+        return Math.max(1, Math.min(expectedOutputTokens, maxOutputTokens));
+    }
+}
@@ -0,0 +1,58 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Counts tokens locally with the same BPE encoding the chat models use
+// (cl100k_base), so prompts can be sized before anything is sent upstream.
+@Component
+public class TokenCounter {
+
+    // Chat framing per message and for priming the reply, as documented for the chat models
+    private static final int TOKENS_PER_MESSAGE = 3;
+    private static final int TOKENS_PER_REPLY = 3;
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokens(text);
+    }
+
+    // Prompt tokens a chat request will be billed for
+    public int countMessages(List<ChatMessage> messages) {
+        int tokens = TOKENS_PER_REPLY;
+        for (ChatMessage message : messages) {
+            tokens += TOKENS_PER_MESSAGE + count(message.getRole()) + count(message.getContent());
+        }
+        return tokens;
+    }
+
+    // Longest prefix of text that fits in maxTokens, ending at a paragraph or
+    // sentence boundary when one is reasonably close to the cut
+    public String truncate(String text, int maxTokens) {
+        if (maxTokens <= 0) {
+            return "";
+        }
+        EncodingResult result = encoding.encode(text, maxTokens);
+        if (!result.isTruncated()) {
+            return text;
+        }
+
+        int end = Math.min(text.length(), Math.max(0, result.getLastProcessedCharacterIndex() + 1));
+        String prefix = text.substring(0, end);
+        int paragraph = prefix.lastIndexOf("\n\n");
+        if (paragraph > end * 0.8) {
+            return prefix.substring(0, paragraph);
+        }
+        int sentence = Math.max(prefix.lastIndexOf(". "), prefix.lastIndexOf(".\n"));
+        if (sentence > end * 0.9) {
+            return prefix.substring(0, sentence + 1);
+        }
+        return prefix;
+    }
+}
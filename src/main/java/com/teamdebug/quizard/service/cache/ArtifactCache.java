@@ -0,0 +1,272 @@
+package com.teamdebug.quizard.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Content-addressed cache of extracted text and generated artifacts, keyed by
+// a SHA-256 digest of the uploaded bytes plus the generation settings.
+// Entries live as gzipped files in a local directory so they survive
+// restarts: a length-prefixed JSON header with the artifacts followed by the
+// raw extracted text, which is streamed in and out rather than held as one
+// String. Only the key -> size index is kept in memory, in LRU order, and
+// the least recently used files are deleted once the directory outgrows its
+// size budget.
+@Component
+public class ArtifactCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactCache.class);
+
+    private static final String SUFFIX = ".entry.gz";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quizard.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quizard.cache.dir:${java.io.tmpdir}/quizard-cache}")
+    private String directory;
+
+    @Value("${quizard.cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    private Path root;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+
+        // Rebuild the LRU index from disk, oldest access first
+        List<Path> files = new ArrayList<>();
+        // Half-written entries from a crash
+        List<Path> leftovers = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(root)) {
+            listing.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    files.add(path);
+                } else if (name.endsWith(".tmp")) {
+                    leftovers.add(path);
+                }
+            });
+        }
+        leftovers.forEach(ArtifactCache::deleteQuietly);
+        files.sort(Comparator.comparing(ArtifactCache::lastModified));
+
+        synchronized (this) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long size = Files.size(file);
+                index.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                totalBytes += size;
+            }
+            evictIfNeeded();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String keyFor(InputStreamSource source, String settings) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = source.getInputStream()) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        digest.update((byte) 0);
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // On a hit the extracted text is streamed into originalTextSink in
+    // bounded pieces; on a miss (or an unreadable entry) nothing is returned
+    // and the sink may have seen a partial text, which the caller discards.
+    public Optional<CachedArtifacts> get(String key, Consumer<CharSequence> originalTextSink) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        synchronized (this) {
+            if (index.get(key) == null) {
+                misses++;
+                return Optional.empty();
+            }
+        }
+
+        Path file = fileFor(key);
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            byte[] header = new byte[input.readInt()];
+            input.readFully(header);
+            CachedArtifacts artifacts = objectMapper.readValue(header, CachedArtifacts.class);
+
+            Reader text = new InputStreamReader(input, StandardCharsets.UTF_8);
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = text.read(buffer)) != -1) {
+                originalTextSink.accept(CharBuffer.wrap(buffer, 0, read));
+            }
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                hits++;
+            }
+            return Optional.of(artifacts);
+        } catch (IOException e) {
+            log.warn("Discarding unreadable cache entry {}: {}", key, e.getMessage());
+            remove(key);
+            synchronized (this) {
+                misses++;
+            }
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, CachedArtifacts artifacts, Reader originalText) {
+        if (!enabled) {
+            return;
+        }
+
+        Path file = fileFor(key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, key, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))));
+                 Reader text = originalText) {
+                byte[] header = objectMapper.writeValueAsBytes(artifacts);
+                output.writeInt(header.length);
+                output.write(header);
+
+                Writer textOutput = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+                text.transferTo(textOutput);
+                textOutput.flush();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long size = Files.size(file);
+            synchronized (this) {
+                Long previous = index.put(key, size);
+                totalBytes += size - (previous == null ? 0 : previous);
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write cache entry {}: {}", key, e.getMessage());
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) index.size());
+        stats.put("bytes", totalBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            Long size = index.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        deleteQuietly(fileFor(key));
+    }
+
+    // Caller must hold the monitor
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            eldest.remove();
+            evictions++;
+            deleteQuietly(fileFor(entry.getKey()));
+        }
+    }
+
+    private Path fileFor(String key) {
+        return root.resolve(key + SUFFIX);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
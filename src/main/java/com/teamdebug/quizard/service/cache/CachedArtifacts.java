@@ -0,0 +1,34 @@
+package com.teamdebug.quizard.service.cache;
+
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.QuizItem;
+
+import java.util.List;
+
+public class CachedArtifacts {
+
+    private String fileName;
+    private String summarizedText;
+    private List<Flashcard> flashcards;
+    private List<QuizItem> quizItems;
+
+    public CachedArtifacts() {}
+
+    public CachedArtifacts(String fileName, String summarizedText,
+                           List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        this.fileName = fileName;
+        this.summarizedText = summarizedText;
+        this.flashcards = flashcards;
+        this.quizItems = quizItems;
+    }
+
+    public String getFileName() { return fileName; }
+    public String getSummarizedText() { return summarizedText; }
+    public List<Flashcard> getFlashcards() { return flashcards; }
+    public List<QuizItem> getQuizItems() { return quizItems; }
+
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public void setSummarizedText(String summarizedText) { this.summarizedText = summarizedText; }
+    public void setFlashcards(List<Flashcard> flashcards) { this.flashcards = flashcards; }
+    public void setQuizItems(List<QuizItem> quizItems) { this.quizItems = quizItems; }
+}
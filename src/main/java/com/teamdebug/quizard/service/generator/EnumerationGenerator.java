@@ -1,5 +1,87 @@
 package com.teamdebug.quizard.service.generator;
 
+import com.teamdebug.quizard.model.dto.Flashcard;
+import com.teamdebug.quizard.service.text.SegmentedText;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Builds enumeration flashcards from the text without the AI provider: a
+// sentence that introduces a list ("... include A, B and C", "...: A, B, C")
+// becomes a card asking for its items. Output is deterministic for a given
+// text.
+@Component
 public class EnumerationGenerator {
-    
+
+    private static final Pattern LIST_INTRO = Pattern.compile(
+        "^(.{3,120}?)(:|\\s+(?:such as|including|includes|include|consists of|consist of|are))\\s+(.+)$",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern ITEM_SEPARATOR = Pattern.compile(
+        "\\s*(?:;|,\\s*(?:and|or)\\s+|,|\\s+and\\s+|\\s+or\\s+)\\s*", Pattern.CASE_INSENSITIVE);
+
+    private static final int MIN_ITEMS = 2;
+    private static final int MAX_ITEMS = 8;
+    private static final int MAX_ITEM_WORDS = 6;
+
+    public List<Flashcard> generate(String text, int count) {
+        SegmentedText content = SegmentedText.of(text);
+
+        List<Flashcard> lists = new ArrayList<>();
+        for (int s = 0; s < content.sentenceCount(); s++) {
+            Flashcard card = enumeration(content.sentence(s));
+            if (card != null) {
+                lists.add(card);
+            }
+        }
+
+        List<Flashcard> cards = new ArrayList<>(Math.min(count, lists.size()));
+        for (int index : Terms.spread(lists.size(), count)) {
+            cards.add(lists.get(index));
+        }
+        return cards;
+    }
+
+    private static Flashcard enumeration(String sentence) {
+        Matcher matcher = LIST_INTRO.matcher(sentence);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String intro = matcher.group(1).trim();
+        String list = matcher.group(3).trim();
+        // Without a colon, only a comma-separated list is clearly a list ("X are fast and cheap" is not)
+        if (!matcher.group(2).equals(":") && list.indexOf(',') < 0) {
+            return null;
+        }
+
+        List<String> items = new ArrayList<>();
+        for (String part : ITEM_SEPARATOR.split(list)) {
+            String item = Terms.clean(part);
+            if (item.isEmpty()) {
+                continue;
+            }
+            if (item.split("\\s+").length > MAX_ITEM_WORDS) {
+                return null;
+            }
+            items.add(item);
+        }
+        if (items.size() < MIN_ITEMS || items.size() > MAX_ITEMS) {
+            return null;
+        }
+
+        String keyword = matcher.group(2).trim();
+        String front = "Name the " + items.size() + " items: " + intro
+            + (keyword.equals(":") ? "" : " " + keyword) + " ...";
+        StringBuilder back = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                back.append('\n');
+            }
+            back.append(i + 1).append(". ").append(items.get(i));
+        }
+        return new Flashcard(front, back.toString());
+    }
 }
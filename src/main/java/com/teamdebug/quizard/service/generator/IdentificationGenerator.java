@@ -1,5 +1,80 @@
 package com.teamdebug.quizard.service.generator;
 
+import com.teamdebug.quizard.model.dto.Flashcard;
+import com.teamdebug.quizard.service.text.SegmentedText;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Builds identification flashcards from the text without the AI provider.
+// Definitional sentences ("X is ...", "X refers to ...") become "What is X?"
+// cards first; the rest of the document is covered by cards that blank out
+// a sentence's key term. Output is deterministic for a given text.
+@Component
 public class IdentificationGenerator {
-    
+
+    private static final Pattern DEFINITION = Pattern.compile(
+        "^(?:(?:a|an|the)\\s+)?(.{2,60}?)\\s+(is defined as|refers to|means|is|are)\\s+(.{10,})$",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final int MAX_TERM_WORDS = 5;
+    private static final int MIN_SENTENCE_LENGTH = 20;
+    private static final int MIN_WORDS = 5;
+
+    public List<Flashcard> generate(String text, int count) {
+        SegmentedText content = SegmentedText.of(text);
+
+        List<Flashcard> definitions = new ArrayList<>();
+        List<Integer> others = new ArrayList<>();
+        for (int s = 0; s < content.sentenceCount(); s++) {
+            if (content.sentenceLength(s) < MIN_SENTENCE_LENGTH || content.tokenCount(s) < MIN_WORDS) {
+                continue;
+            }
+            Flashcard definition = definition(content.sentence(s));
+            if (definition != null) {
+                definitions.add(definition);
+            } else if (Terms.keyTermIndex(content, s) >= 0) {
+                others.add(s);
+            }
+        }
+
+        List<Flashcard> cards = new ArrayList<>(count);
+        for (int index : Terms.spread(definitions.size(), count)) {
+            cards.add(definitions.get(index));
+        }
+        for (int index : Terms.spread(others.size(), count - cards.size())) {
+            int sentence = others.get(index);
+            int blankIndex = Terms.keyTermIndex(content, sentence);
+            cards.add(new Flashcard("Fill in the blank: " + Terms.blankOut(content, sentence, blankIndex),
+                Terms.clean(content.token(sentence, blankIndex))));
+        }
+        return cards;
+    }
+
+    private static Flashcard definition(String sentence) {
+        Matcher matcher = DEFINITION.matcher(sentence);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String term = matcher.group(1).trim();
+        String[] words = term.split("\\s+");
+        if (words.length > MAX_TERM_WORDS || !hasKeyTerm(words)) {
+            return null;
+        }
+        String verb = matcher.group(2).equalsIgnoreCase("are") ? "are" : "is";
+        return new Flashcard("What " + verb + " " + term + "?", sentence + ".");
+    }
+
+    // Rules out pronoun subjects like "It is" or "This is"
+    private static boolean hasKeyTerm(String[] words) {
+        for (String word : words) {
+            if (Terms.isKeyTerm(Terms.clean(word))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -1,5 +1,159 @@
 package com.teamdebug.quizard.service.generator;
 
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.service.text.SegmentedText;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+// Builds fill-in-the-blank multiple-choice questions straight from the text,
+// without the AI provider: the longest key term of a sentence is blanked out
+// and three key terms resembling it serve as distractors, looked up in a
+// TermIndex built once per document. Output is deterministic for a given
+// text. The AI fallback gets the same shape as AI questions (four "A) ..."
+// options, letter answer); uploads get QuizItems with plain choices. A
+// document too short to offer blanks with distractors still gets upload
+// items: true/false statements taken from its sentences.
+@Component
 public class MultipleChoiceGenerator {
-    
+
+    private static final int MIN_SENTENCE_LENGTH = 20;
+    private static final int MIN_WORDS = 5;
+    private static final int DISTRACTORS = 3;
+    private static final int MIN_STATEMENT_LENGTH = 16;
+    private static final String STATEMENT_ANSWER = "True - This is correct";
+    private static final List<String> STATEMENT_CHOICES = List.of(
+        STATEMENT_ANSWER, "False - This is incorrect", "Partially correct", "Cannot determine");
+
+    public List<QuizQuestion> generate(String text, int count) {
+        return generate(SegmentedText.of(text), count);
+    }
+
+    public List<QuizQuestion> generate(SegmentedText content, int count) {
+        List<QuizQuestion> questions = new ArrayList<>();
+        for (Blank blank : blanks(content, count)) {
+            List<String> options = new ArrayList<>(blank.choices().size());
+            String correct = null;
+            for (int i = 0; i < blank.choices().size(); i++) {
+                char letter = (char) ('A' + i);
+                options.add(letter + ") " + blank.choices().get(i));
+                if (blank.choices().get(i).equals(blank.answer())) {
+                    correct = String.valueOf(letter);
+                }
+            }
+            String explanation = "The text states: \""
+                + content.appendSentence(new StringBuilder(), blank.sentence()) + ".\"";
+            questions.add(new QuizQuestion("multiple_choice", blank.prompt(), options, correct, explanation));
+        }
+        return questions;
+    }
+
+    public List<QuizItem> generateQuizItems(SegmentedText content, int count) {
+        List<QuizItem> quizItems = new ArrayList<>();
+        Set<Integer> used = new HashSet<>();
+        for (Blank blank : blanks(content, count)) {
+            quizItems.add(quizItem(blank.prompt(), blank.choices(), blank.answer()));
+            used.add(blank.sentence());
+        }
+        if (quizItems.size() < count) {
+            addStatements(content, used, count, quizItems);
+        }
+        return quizItems;
+    }
+
+    // Fills up to count with "is this from the document?" items from sentences no blank used
+    private static void addStatements(SegmentedText content, Set<Integer> used, int count, List<QuizItem> quizItems) {
+        List<Integer> sentences = new ArrayList<>();
+        for (int s = 0; s < content.sentenceCount(); s++) {
+            if (content.sentenceLength(s) >= MIN_STATEMENT_LENGTH && !used.contains(s)) {
+                sentences.add(s);
+            }
+        }
+        for (int i : Terms.spread(sentences.size(), count - quizItems.size())) {
+            String question = "Is this statement from the document? \"" + content.sentence(sentences.get(i)) + "\"";
+            quizItems.add(quizItem(question, new ArrayList<>(STATEMENT_CHOICES), STATEMENT_ANSWER));
+        }
+    }
+
+    private static QuizItem quizItem(String question, List<String> choices, String correctAnswer) {
+        QuizItem quizItem = new QuizItem();
+        quizItem.setType("MCQ");
+        quizItem.setQuestion(question);
+        quizItem.setChoices(choices);
+        quizItem.setCorrectAnswer(correctAnswer);
+        return quizItem;
+    }
+
+    // Up to count questions, from sentences spread evenly over the text
+    private List<Blank> blanks(SegmentedText content, int count) {
+        TermIndex index = TermIndex.of(content);
+        if (index.size() <= DISTRACTORS) {
+            return new ArrayList<>();
+        }
+        Random random = Terms.randomFor(content.text());
+
+        List<Integer> sentences = new ArrayList<>();
+        for (int s = 0; s < content.sentenceCount(); s++) {
+            if (content.sentenceLength(s) >= MIN_SENTENCE_LENGTH && content.tokenCount(s) >= MIN_WORDS
+                    && index.keyTermIndex(s) >= 0) {
+                sentences.add(s);
+            }
+        }
+
+        List<Blank> blanks = new ArrayList<>();
+        for (int i : Terms.spread(sentences.size(), count)) {
+            Blank blank = blank(content, sentences.get(i), index, random);
+            if (blank != null) {
+                blanks.add(blank);
+            }
+        }
+        return blanks;
+    }
+
+    private Blank blank(SegmentedText content, int sentence, TermIndex index, Random random) {
+        int blankIndex = index.keyTermIndex(sentence);
+        String answer = Terms.clean(content.token(sentence, blankIndex));
+
+        // Words already in the sentence would make poor distractors
+        Set<String> excluded = new HashSet<>();
+        for (int t = 0; t < content.tokenCount(sentence); t++) {
+            excluded.add(Terms.clean(content.token(sentence, t)).toLowerCase(Locale.ROOT));
+        }
+        List<TermIndex.Term> distractors = index.distractors(index.get(answer), DISTRACTORS, excluded, random);
+        if (distractors.size() < DISTRACTORS) {
+            return null;
+        }
+
+        // Distractors follow the blank's capitalization, or the odd one out gives the answer away
+        boolean sentenceStart = blankIndex == 0 && Character.isUpperCase(answer.charAt(0));
+        List<String> choices = new ArrayList<>(DISTRACTORS + 1);
+        choices.add(answer);
+        for (TermIndex.Term distractor : distractors) {
+            choices.add(spelling(distractor, sentenceStart));
+        }
+        Collections.shuffle(choices, random);
+
+        String prompt = "Complete the sentence: " + Terms.blankOut(content, sentence, blankIndex);
+        return new Blank(sentence, prompt, answer, choices);
+    }
+
+    private static String spelling(TermIndex.Term term, boolean sentenceStart) {
+        if (sentenceStart) {
+            return Character.toUpperCase(term.text.charAt(0)) + term.text.substring(1);
+        }
+        // Only ever seen opening a sentence: an ordinary word, lowercase mid-sentence
+        if (!term.lowercaseSeen && !term.capitalizedInside && term.shape != TermIndex.Shape.ACRONYM) {
+            return term.key;
+        }
+        return term.text;
+    }
+
+    private record Blank(int sentence, String prompt, String answer, List<String> choices) {}
 }
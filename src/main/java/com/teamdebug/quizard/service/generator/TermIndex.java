@@ -0,0 +1,263 @@
+package com.teamdebug.quizard.service.generator;
+
+import com.teamdebug.quizard.service.text.SegmentedText;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Per-document index of key terms for picking distractors. Built in one pass
+// over the text; every term is classified by a part-of-speech-like shape
+// (acronym, proper name, -ing/-ed form, adverb, abstract noun, adjective,
+// plural, plain word), bucketed by length and ranked by frequency within its
+// bucket. A good distractor has the answer's shape and length and is about
+// as common in the document, so lookups start at the answer's own rank in
+// its bucket and walk outwards, widening to neighbouring lengths and then
+// to the whole shape only when a bucket runs dry. Each step is bounded, so
+// picking distractors costs the same however large the document is.
+final class TermIndex {
+
+    // Last-resort lookups walk these from the end: plain words first, names last
+    enum Shape {
+        ACRONYM, PROPER, GERUND, PAST, ADVERB, ABSTRACT_NOUN, ADJECTIVE, PLURAL, WORD
+    }
+
+    static final class Term {
+        final String key;
+        String text;
+        int frequency;
+        boolean lowercaseSeen;
+        boolean capitalizedInside;
+        Shape shape;
+        int lengthBucket;
+        int rank;
+
+        Term(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    private static final int[] LENGTH_LIMITS = {5, 7, 9, 12};
+    private static final int LENGTH_BUCKETS = LENGTH_LIMITS.length + 1;
+
+    private static final String[] ABSTRACT_SUFFIXES = {"tion", "sion", "ment", "ness", "ity", "ance", "ence", "ism", "ship", "sis"};
+    private static final String[] ADJECTIVE_SUFFIXES = {"ous", "ful", "ive", "able", "ible", "ical", "less", "ic", "al"};
+
+    // How far from the answer's rank a walk may look, per distractor needed
+    private static final int STEPS_PER_PICK = 6;
+    // Random shift of the walk's start, so questions on one term don't all get the same neighbours
+    private static final int JITTER = 3;
+
+    private final Map<String, Term> terms;
+    private final List<List<Term>> buckets;
+    private final List<List<Term>> shapes;
+    // Per sentence, the token index of its longest key term (the first on ties), or -1
+    private final int[] keyTerms;
+
+    private TermIndex(Map<String, Term> terms, int[] keyTerms) {
+        this.terms = terms;
+        this.keyTerms = keyTerms;
+        this.buckets = new ArrayList<>(Shape.values().length * LENGTH_BUCKETS);
+        this.shapes = new ArrayList<>(Shape.values().length);
+        for (int i = 0; i < Shape.values().length * LENGTH_BUCKETS; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int i = 0; i < Shape.values().length; i++) {
+            shapes.add(new ArrayList<>());
+        }
+
+        for (Term term : terms.values()) {
+            term.shape = shapeOf(term);
+            term.lengthBucket = lengthBucket(term.key.length());
+            buckets.get(bucket(term.shape, term.lengthBucket)).add(term);
+            shapes.get(term.shape.ordinal()).add(term);
+        }
+        // Most frequent first; ties keep document order (the map is insertion-ordered)
+        Comparator<Term> byFrequency = Comparator.comparingInt((Term term) -> term.frequency).reversed();
+        for (List<Term> bucket : buckets) {
+            bucket.sort(byFrequency);
+            for (int i = 0; i < bucket.size(); i++) {
+                bucket.get(i).rank = i;
+            }
+        }
+        for (List<Term> shape : shapes) {
+            shape.sort(byFrequency);
+        }
+    }
+
+    static TermIndex of(SegmentedText content) {
+        Map<String, Term> terms = new LinkedHashMap<>();
+        int[] keyTerms = new int[content.sentenceCount()];
+        for (int s = 0; s < content.sentenceCount(); s++) {
+            keyTerms[s] = -1;
+            int longest = 0;
+            for (int t = 0; t < content.tokenCount(s); t++) {
+                String word = Terms.clean(content.token(s, t));
+                String key = word.toLowerCase(Locale.ROOT);
+                if (!Terms.isKeyTerm(word, key)) {
+                    continue;
+                }
+                if (word.length() > longest) {
+                    keyTerms[s] = t;
+                    longest = word.length();
+                }
+                Term term = terms.computeIfAbsent(key, k -> new Term(k, word));
+                term.frequency++;
+                if (Character.isLowerCase(word.charAt(0))) {
+                    if (!term.lowercaseSeen) {
+                        term.text = word;
+                    }
+                    term.lowercaseSeen = true;
+                } else if (t > 0) {
+                    if (!term.lowercaseSeen && !term.capitalizedInside) {
+                        term.text = word;
+                    }
+                    term.capitalizedInside = true;
+                }
+            }
+        }
+        return new TermIndex(terms, keyTerms);
+    }
+
+    int size() {
+        return terms.size();
+    }
+
+    // Same choice as Terms.keyTermIndex, without rescanning the sentence
+    int keyTermIndex(int sentence) {
+        return keyTerms[sentence];
+    }
+
+    Term get(String word) {
+        return terms.get(word.toLowerCase(Locale.ROOT));
+    }
+
+    // Up to count distinct terms resembling the answer, none of them in
+    // excluded (lowercase keys, e.g. the words of the question itself) and
+    // none a mere inflection of the answer
+    List<Term> distractors(Term answer, int count, Set<String> excluded, Random random) {
+        List<Term> picked = new ArrayList<>(count);
+        int steps = count * STEPS_PER_PICK;
+
+        walk(buckets.get(bucket(answer.shape, answer.lengthBucket)), answer.rank, answer, count, excluded, picked, steps, random);
+        for (int distance = 1; distance < LENGTH_BUCKETS && picked.size() < count; distance++) {
+            for (int lengthBucket : new int[] {answer.lengthBucket - distance, answer.lengthBucket + distance}) {
+                if (lengthBucket >= 0 && lengthBucket < LENGTH_BUCKETS && picked.size() < count) {
+                    List<Term> bucket = buckets.get(bucket(answer.shape, lengthBucket));
+                    walk(bucket, scaledRank(answer, bucket), answer, count, excluded, picked, steps, random);
+                }
+            }
+        }
+        // Short on look-alikes: any term, as close in frequency as possible, names and acronyms last
+        for (int i = shapes.size() - 1; i >= 0 && picked.size() < count; i--) {
+            List<Term> shape = shapes.get(i);
+            walk(shape, scaledRank(answer, shape), answer, count, excluded, picked, steps, random);
+        }
+        return picked;
+    }
+
+    // Visits center, center+1, center-1, center+2, ... from a jittered start, for at most steps positions
+    private static void walk(List<Term> list, int center, Term answer, int count, Set<String> excluded,
+                             List<Term> picked, int steps, Random random) {
+        if (list.isEmpty()) {
+            return;
+        }
+        int start = Math.max(0, Math.min(list.size() - 1, center + random.nextInt(2 * JITTER + 1) - JITTER));
+        int limit = Math.min(steps, 2 * list.size());
+        for (int step = 0; step < limit && picked.size() < count; step++) {
+            int index = start + (step % 2 == 0 ? step / 2 : -(step / 2 + 1));
+            if (index < 0 || index >= list.size()) {
+                continue;
+            }
+            Term candidate = list.get(index);
+            if (usable(candidate, answer, excluded, picked)) {
+                picked.add(candidate);
+            }
+        }
+    }
+
+    private static boolean usable(Term candidate, Term answer, Set<String> excluded, List<Term> picked) {
+        if (candidate == answer || excluded.contains(candidate.key) || picked.contains(candidate)) {
+            return false;
+        }
+        // "cell" next to "cells" gives the answer away
+        return !candidate.key.startsWith(answer.key) && !answer.key.startsWith(candidate.key);
+    }
+
+    // Where a term of the answer's frequency would sit in another, differently sized list
+    private int scaledRank(Term answer, List<Term> list) {
+        List<Term> own = buckets.get(bucket(answer.shape, answer.lengthBucket));
+        return (int) ((long) answer.rank * list.size() / Math.max(1, own.size()));
+    }
+
+    private static int bucket(Shape shape, int lengthBucket) {
+        return shape.ordinal() * LENGTH_BUCKETS + lengthBucket;
+    }
+
+    private static int lengthBucket(int length) {
+        for (int i = 0; i < LENGTH_LIMITS.length; i++) {
+            if (length <= LENGTH_LIMITS[i]) {
+                return i;
+            }
+        }
+        return LENGTH_LIMITS.length;
+    }
+
+    private static Shape shapeOf(Term term) {
+        String text = term.text;
+        if (isAllUpperCase(text)) {
+            return Shape.ACRONYM;
+        }
+        // Capitalized mid-sentence and never written in lowercase: a name
+        if (term.capitalizedInside && !term.lowercaseSeen) {
+            return Shape.PROPER;
+        }
+        String key = term.key;
+        if (key.endsWith("ing")) {
+            return Shape.GERUND;
+        }
+        if (key.endsWith("ed")) {
+            return Shape.PAST;
+        }
+        if (key.endsWith("ly")) {
+            return Shape.ADVERB;
+        }
+        if (endsWithAny(key, ABSTRACT_SUFFIXES)) {
+            return Shape.ABSTRACT_NOUN;
+        }
+        if (endsWithAny(key, ADJECTIVE_SUFFIXES)) {
+            return Shape.ADJECTIVE;
+        }
+        if (key.endsWith("s") && !key.endsWith("ss") && !key.endsWith("us") && !key.endsWith("is")) {
+            return Shape.PLURAL;
+        }
+        return Shape.WORD;
+    }
+
+    private static boolean isAllUpperCase(String text) {
+        boolean letters = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLowerCase(c)) {
+                return false;
+            }
+            letters |= Character.isLetter(c);
+        }
+        return letters;
+    }
+
+    private static boolean endsWithAny(String key, String[] suffixes) {
+        for (String suffix : suffixes) {
+            if (key.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
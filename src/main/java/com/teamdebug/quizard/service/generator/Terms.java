@@ -0,0 +1,105 @@
+package com.teamdebug.quizard.service.generator;
+
+import com.teamdebug.quizard.service.text.SegmentedText;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+// Word-level helpers shared by the local generators: which words are worth
+// asking about, and how a raw token is cleaned into an answer.
+final class Terms {
+
+    private static final Set<String> STOPWORDS = Set.of(
+        "about", "above", "after", "again", "also", "although", "among", "because", "been", "before",
+        "being", "below", "between", "both", "could", "does", "doing", "during", "each", "either",
+        "every", "from", "further", "have", "having", "here", "into", "itself", "just", "like",
+        "many", "more", "most", "much", "must", "neither", "only", "other", "over", "same",
+        "should", "since", "some", "such", "than", "that", "their", "them", "themselves", "then",
+        "there", "these", "they", "this", "those", "through", "under", "until", "upon", "very",
+        "were", "what", "when", "where", "whether", "which", "while", "whom", "whose", "will",
+        "with", "within", "without", "would", "your", "yours");
+
+    private Terms() {
+    }
+
+    // Token without surrounding punctuation or quotes; may be empty
+    static String clean(String token) {
+        int start = 0;
+        int end = token.length();
+        while (start < end && !Character.isLetterOrDigit(token.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(token.charAt(end - 1))) {
+            end--;
+        }
+        return token.substring(start, end);
+    }
+
+    // Long enough, not a function word, and mostly letters
+    static boolean isKeyTerm(String word) {
+        return isKeyTerm(word, word.toLowerCase(Locale.ROOT));
+    }
+
+    // For callers that already hold the lowercase form
+    static boolean isKeyTerm(String word, String lowercase) {
+        if (word.length() < 4 || STOPWORDS.contains(lowercase)) {
+            return false;
+        }
+        int letters = 0;
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isLetter(word.charAt(i))) {
+                letters++;
+            }
+        }
+        return letters * 2 > word.length();
+    }
+
+    // Same text, same output: seeded from the content, never from the clock
+    static Random randomFor(String text) {
+        return new Random(text.hashCode());
+    }
+
+    // Index of the sentence's longest key term (the first on ties), or -1
+    static int keyTermIndex(SegmentedText content, int sentence) {
+        int best = -1;
+        int bestLength = 0;
+        for (int t = 0; t < content.tokenCount(sentence); t++) {
+            String word = clean(content.token(sentence, t));
+            if (word.length() > bestLength && isKeyTerm(word)) {
+                best = t;
+                bestLength = word.length();
+            }
+        }
+        return best;
+    }
+
+    // The sentence with one token's cleaned core replaced by a blank, keeping punctuation around it
+    static String blankOut(SegmentedText content, int sentence, int token) {
+        String raw = content.token(sentence, token);
+        String core = clean(raw);
+        int at = raw.indexOf(core);
+
+        StringBuilder out = new StringBuilder();
+        content.appendTokens(out, sentence, 0, token);
+        if (token > 0) {
+            out.append(' ');
+        }
+        out.append(raw, 0, at).append("________").append(raw, at + core.length(), raw.length());
+        if (token + 1 < content.tokenCount(sentence)) {
+            out.append(' ');
+            content.appendTokens(out, sentence, token + 1, content.tokenCount(sentence));
+        }
+        return out.toString();
+    }
+
+    // Indexes of count items spread evenly over total, in order
+    static int[] spread(int total, int count) {
+        int picked = Math.min(total, count);
+        int[] indexes = new int[picked];
+        for (int i = 0; i < picked; i++) {
+            indexes[i] = (int) ((long) i * total / picked);
+        }
+        return indexes;
+    }
+}
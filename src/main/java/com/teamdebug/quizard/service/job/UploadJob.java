@@ -0,0 +1,90 @@
+package com.teamdebug.quizard.service.job;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class UploadJob {
+
+    private final String id;
+    private final String fileName;
+    private final long createdAt = System.currentTimeMillis();
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile UploadStage stage = UploadStage.QUEUED;
+    private volatile Long reviewerId;
+    private volatile boolean cached;
+    private volatile String error;
+    private volatile long updatedAt = createdAt;
+
+    public UploadJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+
+    public String getId() { return id; }
+    public String getFileName() { return fileName; }
+    public UploadStage getStage() { return stage; }
+    public Long getReviewerId() { return reviewerId; }
+    public String getError() { return error; }
+    public long getUpdatedAt() { return updatedAt; }
+
+    public Map<String, Object> toStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", id);
+        status.put("fileName", fileName);
+        status.put("status", stage.name());
+        if (reviewerId != null) {
+            status.put("id", reviewerId);
+            status.put("cached", cached);
+        }
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+
+    public void subscribe(SseEmitter emitter) {
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+
+        // Late subscribers immediately see where the job is
+        send(emitter);
+    }
+
+    void advance(UploadStage next) {
+        stage = next;
+        updatedAt = System.currentTimeMillis();
+        subscribers.forEach(this::send);
+    }
+
+    void complete(Long reviewerId, boolean cached) {
+        this.reviewerId = reviewerId;
+        this.cached = cached;
+        advance(UploadStage.DONE);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        advance(UploadStage.FAILED);
+    }
+
+    private void send(SseEmitter emitter) {
+        UploadStage current = stage;
+        try {
+            emitter.send(SseEmitter.event().name(current.name().toLowerCase()).data(toStatus()));
+            if (current.isTerminal()) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; drop it
+            subscribers.remove(emitter);
+        }
+    }
+}
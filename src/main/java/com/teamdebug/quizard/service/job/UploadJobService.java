@@ -0,0 +1,153 @@
+package com.teamdebug.quizard.service.job;
+
+import com.teamdebug.quizard.model.dto.UploadResult;
+import com.teamdebug.quizard.service.ReviewerService;
+import com.teamdebug.quizard.service.logging.LogContext;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs uploads off the servlet threads on a bounded worker pool. The queue
+// has a hard depth limit: when it is full, submit() rejects instead of
+// letting a burst pile up unbounded work and memory. Finished jobs are
+// forgotten after the retention period, checked once a minute.
+@Service
+public class UploadJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadJobService.class);
+
+    @Autowired
+    private ReviewerService reviewerService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${quizard.upload.workers:4}")
+    private int workers;
+
+    @Value("${quizard.upload.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${quizard.upload.job-retention-minutes:30}")
+    private long jobRetentionMinutes;
+
+    private static final long PURGE_INTERVAL_SECONDS = 60;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService purger;
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "upload-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        pipelineMetrics.monitor(executor, "upload-worker");
+        pipelineMetrics.gauge("quizard.upload.jobs", "Upload jobs tracked, finished ones included", jobs, Map::size);
+
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-job-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purgeExpiredJobs, PURGE_INTERVAL_SECONDS, PURGE_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // Spools the upload (the multipart temp file is gone once the request
+    // returns) and queues it. Throws RejectedExecutionException when full.
+    public UploadJob submit(MultipartFile file) throws IOException {
+        purgeExpiredJobs();
+
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Upload queue is full");
+        }
+
+        String fileName = file.getOriginalFilename();
+        Path spooled = Files.createTempFile("quizard-upload-", ".tmp");
+        file.transferTo(spooled);
+
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), fileName);
+        jobs.put(job.getId(), job);
+
+        try {
+            executor.execute(LogContext.wrap(() -> run(job, spooled)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<UploadJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private void run(UploadJob job, Path spooled) {
+        MDC.put(LogContext.JOB_ID, job.getId());
+        try {
+            UploadResult result = reviewerService.processUpload(job.getFileName(), new FileSystemResource(spooled),
+                    stage -> {
+                        if (stage != UploadStage.DONE) {
+                            job.advance(stage);
+                        }
+                    });
+            job.complete(result.getReviewerId(), result.isCached());
+        } catch (Exception e) {
+            log.warn("Upload of {} failed", job.getFileName(), e);
+            job.fail("Upload failed: " + e.getMessage());
+        } finally {
+            MDC.remove(LogContext.JOB_ID);
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                log.warn("Could not delete spooled upload {}: {}", spooled, e.getMessage());
+            }
+        }
+    }
+
+    void purgeExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.getStage().isTerminal() && job.getUpdatedAt() < cutoff);
+    }
+}
@@ -0,0 +1,15 @@
+package com.teamdebug.quizard.service.job;
+
+public enum UploadStage {
+    QUEUED,
+    EXTRACTING,
+    SUMMARIZING,
+    GENERATING_FLASHCARDS,
+    GENERATING_QUIZ,
+    DONE,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == DONE || this == FAILED;
+    }
+}
@@ -0,0 +1,65 @@
+package com.teamdebug.quizard.service.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Correlation ids in the logging MDC, and carrying them onto pool threads.
+// Work handed to an executor is wrapped so that whatever it logs still
+// carries the id of the request (or upload job) it is doing work for.
+public final class LogContext {
+
+    public static final String REQUEST_ID = "requestId";
+    public static final String JOB_ID = "jobId";
+
+    private LogContext() {
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            restore(context);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            restore(context);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    // First characters of a large payload, cut only if the log line is actually written
+    public static Object preview(String payload, int maxChars) {
+        return new Object() {
+            @Override
+            public String toString() {
+                if (payload == null || payload.length() <= maxChars) {
+                    return String.valueOf(payload);
+                }
+                return payload.substring(0, maxChars) + "... (" + payload.length() + " chars)";
+            }
+        };
+    }
+
+    private static void restore(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.teamdebug.quizard.service.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Lets through only a random fraction of the verbose payload logs (raw AI
+// answers and the like), decided before logback builds an event, so skipped
+// lines cost no formatting or queue space. Payloads go to loggers named
+// under PAYLOAD_LOGGER; everything else passes untouched. Configured in
+// logback-spring.xml.
+public class PayloadSamplingFilter extends TurboFilter {
+
+    public static final String PAYLOAD_LOGGER = "quizard.payload";
+
+    private double rate = 0.01;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!logger.getName().startsWith(PAYLOAD_LOGGER) || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        // isDebugEnabled() checks come without a format; sample the write itself, not the check
+        if (format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+}
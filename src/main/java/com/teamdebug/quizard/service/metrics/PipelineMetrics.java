@@ -0,0 +1,116 @@
+package com.teamdebug.quizard.service.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// Names and tags of every pipeline meter, in one place. Meters go to the
+// application's MeterRegistry (Prometheus at /actuator/prometheus); components
+// created outside Spring (unit tests, benchmarks) pass in a SimpleMeterRegistry.
+@Component
+public class PipelineMetrics {
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * KB;
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // quizard.extraction{type, size, outcome}
+    public void extraction(String type, long bytes, long nanos, boolean success) {
+        Timer.builder("quizard.extraction")
+            .description("Text extraction from an uploaded document")
+            .tags("type", type, "size", sizeBucket(bytes), "outcome", success ? "success" : "failure")
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // quizard.upload.stage{stage}: time spent in each upload stage
+    public void uploadStage(String stage, long nanos) {
+        Timer.builder("quizard.upload.stage")
+            .description("Time an upload spends in each processing stage")
+            .tag("stage", stage)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // quizard.ai.requests{service, model, outcome}: one upstream call, retries included
+    public void aiCall(String service, String model, String outcome, long nanos) {
+        Timer.builder("quizard.ai.requests")
+            .description("AI provider calls, including retries")
+            .tags("service", service, "model", model, "outcome", outcome)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // quizard.ai.limiter.wait{outcome=admitted|rejected}: time a call queued for a provider slot
+    public void limiterWait(boolean admitted, long nanos) {
+        Timer.builder("quizard.ai.limiter.wait")
+            .description("Time AI calls wait in admission control before going upstream or giving up")
+            .tag("outcome", admitted ? "admitted" : "rejected")
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // quizard.ai.tokens{service, model, type=prompt|completion}, as billed by the provider
+    public void tokens(String service, String model, long promptTokens, long completionTokens) {
+        registry.counter("quizard.ai.tokens", "service", service, "model", model, "type", "prompt")
+            .increment(promptTokens);
+        registry.counter("quizard.ai.tokens", "service", service, "model", model, "type", "completion")
+            .increment(completionTokens);
+    }
+
+    // quizard.ai.parse.failures{service, reason}: items or answers dropped while parsing
+    public void parseFailures(String service, String reason, int count) {
+        if (count > 0) {
+            registry.counter("quizard.ai.parse.failures", "service", service, "reason", reason).increment(count);
+        }
+    }
+
+    // quizard.generation.fallbacks{service, reason}: local generation stepped in
+    public void fallback(String service, String reason) {
+        registry.counter("quizard.generation.fallbacks", "service", service, "reason", reason).increment();
+    }
+
+    public <T> void gauge(String name, String description, T owner, ToDoubleFunction<T> value) {
+        Gauge.builder(name, owner, value)
+            .description(description)
+            .register(registry);
+    }
+
+    // For totals a component already keeps, e.g. in a LongAdder
+    public <T> void counter(String name, String description, T owner, ToDoubleFunction<T> total) {
+        FunctionCounter.builder(name, owner, total)
+            .description(description)
+            .register(registry);
+    }
+
+    // executor.queued, executor.active, executor.pool.size ... {name}
+    public void monitor(ExecutorService executor, String name) {
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+    }
+
+    private static String sizeBucket(long bytes) {
+        if (bytes < 100 * KB) {
+            return "<100KB";
+        }
+        if (bytes < MB) {
+            return "100KB-1MB";
+        }
+        if (bytes < 10 * MB) {
+            return "1-10MB";
+        }
+        return bytes < 50 * MB ? "10-50MB" : ">=50MB";
+    }
+}
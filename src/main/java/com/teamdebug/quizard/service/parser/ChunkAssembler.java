@@ -0,0 +1,76 @@
+package com.teamdebug.quizard.service.parser;
+
+import java.util.function.Consumer;
+
+// Buffers extracted characters and emits them as bounded TextChunks.
+// Paragraphs are coalesced up to TARGET_CHARS; a single paragraph longer than
+// MAX_CHARS is cut at the last whitespace so no chunk grows with the file.
+public class ChunkAssembler {
+
+    public static final int TARGET_CHARS = 4 * 1024;
+    public static final int MAX_CHARS = 16 * 1024;
+
+    private final Consumer<TextChunk> sink;
+    private final StringBuilder buffer = new StringBuilder(TARGET_CHARS);
+    private int index;
+    private long offset;
+    private int page;
+
+    public ChunkAssembler(Consumer<TextChunk> sink) {
+        this.sink = sink;
+    }
+
+    public void append(char c) {
+        buffer.append(c);
+        if (buffer.length() >= MAX_CHARS) {
+            emitUpToWhitespace();
+        }
+    }
+
+    public void append(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    // Paragraph boundary: emit once enough text has been coalesced
+    public void endParagraph() {
+        if (buffer.length() >= TARGET_CHARS) {
+            emit(buffer.length());
+        }
+    }
+
+    // Page boundary: never let a chunk span two pages
+    public void startPage(int pageNumber) {
+        flush();
+        this.page = pageNumber;
+    }
+
+    public void flush() {
+        if (buffer.length() > 0) {
+            emit(buffer.length());
+        }
+    }
+
+    public long getOffset() {
+        return offset + buffer.length();
+    }
+
+    private void emitUpToWhitespace() {
+        int cut = buffer.length();
+        for (int i = buffer.length() - 1; i > buffer.length() / 2; i--) {
+            if (Character.isWhitespace(buffer.charAt(i))) {
+                cut = i + 1;
+                break;
+            }
+        }
+        emit(cut);
+    }
+
+    private void emit(int length) {
+        String text = buffer.substring(0, length);
+        buffer.delete(0, length);
+        sink.accept(new TextChunk(index++, offset, page, text));
+        offset += length;
+    }
+}
@@ -0,0 +1,71 @@
+package com.teamdebug.quizard.service.parser;
+
+import java.util.function.Consumer;
+
+// Consumes a chunk stream once, keeping a bounded head window for the local
+// generators, which only ever look at the first few dozen sentences of a
+// document. The full text is either kept on heap or forwarded downstream
+// (e.g. into compressed storage) without being retained here.
+public class ChunkCollector implements Consumer<TextChunk> {
+
+    public static final int HEAD_CHARS = 64 * 1024;
+
+    private final StringBuilder text;
+    private final Consumer<TextChunk> downstream;
+    private final StringBuilder head = new StringBuilder();
+    private int chunkCount;
+
+    public ChunkCollector() {
+        this.text = new StringBuilder(ChunkAssembler.TARGET_CHARS);
+        this.downstream = null;
+    }
+
+    public ChunkCollector(Consumer<TextChunk> downstream) {
+        this.text = null;
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(TextChunk chunk) {
+        String chunkText = chunk.getText();
+        if (downstream != null) {
+            downstream.accept(chunk);
+        } else {
+            text.append(chunkText);
+        }
+
+        int room = HEAD_CHARS - head.length();
+        if (room > 0) {
+            head.append(chunkText, 0, Math.min(room, chunkText.length()));
+        }
+        chunkCount++;
+    }
+
+    public String getText() {
+        if (text == null) {
+            throw new IllegalStateException("Full text was forwarded downstream, not retained");
+        }
+        return trimmed(text);
+    }
+
+    public String getHead() {
+        return trimmed(head);
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    // Same result as toString().trim(), with a single copy of the text
+    private static String trimmed(StringBuilder builder) {
+        int start = 0;
+        int end = builder.length();
+        while (start < end && builder.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && builder.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return builder.substring(start, end);
+    }
+}
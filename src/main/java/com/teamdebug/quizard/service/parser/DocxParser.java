@@ -1,11 +1,86 @@
 package com.teamdebug.quizard.service.parser;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Reads word/document.xml straight out of the zip with StAX instead of
+// building an XWPFDocument, so memory stays bounded by the chunk size.
 public class DocxParser implements FileParser {
 
+    private static final String DOCUMENT_ENTRY = "word/document.xml";
+    private static final String WORD_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
     @Override
-     public String parse(byte[] fileBytes) {
-        // Later: Apache POI
-        return "Parsed DOCX content...";
+    public void parse(InputStream input, Consumer<TextChunk> sink) throws IOException {
+        ZipInputStream zip = new ZipInputStream(input);
+        ZipEntry entry;
+
+        while ((entry = zip.getNextEntry()) != null) {
+            if (DOCUMENT_ENTRY.equals(entry.getName())) {
+                parseDocumentXml(zip, sink);
+                return;
+            }
+        }
+
+        throw new IOException("Not a valid DOCX file: " + DOCUMENT_ENTRY + " not found");
+    }
+
+    private void parseDocumentXml(InputStream xml, Consumer<TextChunk> sink) throws IOException {
+        ChunkAssembler assembler = new ChunkAssembler(sink);
+        XMLStreamReader reader = null;
+
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(xml);
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                    switch (reader.getLocalName()) {
+                        case "t" -> assembler.append(reader.getElementText());
+                        case "tab" -> assembler.append('\t');
+                        case "br", "cr" -> assembler.append('\n');
+                        default -> { }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                    switch (reader.getLocalName()) {
+                        case "p" -> {
+                            assembler.append('\n');
+                            assembler.endParagraph();
+                        }
+                        case "tc" -> assembler.append('\t');
+                        default -> { }
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Error reading DOCX content: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+
+        assembler.flush();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
     }
 
 }
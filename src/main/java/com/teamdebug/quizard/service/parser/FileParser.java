@@ -1,5 +1,24 @@
 package com.teamdebug.quizard.service.parser;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
 public interface FileParser {
-    String parse(byte[] fileBytes);
+
+    // Streams the document as ordered, bounded chunks; concatenating the chunk
+    // texts yields the full extracted text.
+    void parse(InputStream input, Consumer<TextChunk> sink) throws IOException;
+
+    default String parse(byte[] fileBytes) {
+        StringBuilder text = new StringBuilder();
+        try {
+            parse(new ByteArrayInputStream(fileBytes), chunk -> text.append(chunk.getText()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
 }
@@ -9,7 +9,7 @@ public class ParserFactory {
         if (lower.endsWith(".pdf")) {
             return new PdfParser();
         }
-        if (lower.endsWith(".docx")) {
+        if (lower.endsWith(".docx") || lower.endsWith(".doc")) {
             return new DocxParser();
         }
         if (lower.endsWith(".txt")) {
@@ -1,11 +1,116 @@
 package com.teamdebug.quizard.service.parser;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Splits the PDF into page ranges and extracts them in parallel. PDDocument is
+// not thread-safe, so every range opens its own document from a spooled temp
+// file, with PDFBox scratch buffers kept in temp files rather than on heap.
+// Ranges are emitted strictly in page order and only a bounded window of
+// ranges is in flight at once.
 public class PdfParser implements FileParser {
+
+    public static final int DEFAULT_PAGES_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+    private final int pagesPerTask;
+
+    public PdfParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PAGES_PER_TASK);
+    }
+
+    public PdfParser(ForkJoinPool pool, int pagesPerTask) {
+        this.pool = pool;
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+    }
     
     @Override
-    public String parse(byte[] fileBytes) {
-        // PDF parsing logic goes here
-        return "Parsed PDF content";
+    public void parse(InputStream input, Consumer<TextChunk> sink) throws IOException {
+        Path spooled = Files.createTempFile("quizard-pdf-", ".pdf");
+        try {
+            Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            extractPages(spooled, sink);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    private void extractPages(Path pdf, Consumer<TextChunk> sink) throws IOException {
+        int pageCount;
+        try (PDDocument document = load(pdf)) {
+            pageCount = document.getNumberOfPages();
+        }
+
+        ChunkAssembler assembler = new ChunkAssembler(sink);
+        AtomicBoolean aborted = new AtomicBoolean();
+        int window = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<List<String>>> inFlight = new ArrayDeque<>();
+        int nextPage = 1;
+        int emittedPage = 1;
+
+        try {
+            while (nextPage <= pageCount || !inFlight.isEmpty()) {
+                while (nextPage <= pageCount && inFlight.size() < window) {
+                    int startPage = nextPage;
+                    int endPage = Math.min(pageCount, startPage + pagesPerTask - 1);
+                    inFlight.addLast(pool.submit(() -> extractRange(pdf, startPage, endPage, aborted)));
+                    nextPage = endPage + 1;
+                }
+
+                for (String pageText : inFlight.removeFirst().get()) {
+                    assembler.startPage(emittedPage++);
+                    assembler.append(pageText);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF extraction interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error reading PDF content: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // cancel() never interrupts a running range, so stop them between pages
+            // and wait, or they would still be reading the spooled file as it is deleted
+            aborted.set(true);
+            inFlight.forEach(ForkJoinTask::quietlyJoin);
+        }
+
+        assembler.flush();
+    }
+
+    private List<String> extractRange(Path pdf, int startPage, int endPage, AtomicBoolean aborted) throws IOException {
+        List<String> pages = new ArrayList<>(endPage - startPage + 1);
+        if (aborted.get()) {
+            return pages;
+        }
+        try (PDDocument document = load(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = startPage; page <= endPage && !aborted.get(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                pages.add(stripper.getText(document));
+            }
+        }
+        return pages;
+    }
+
+    private PDDocument load(Path pdf) throws IOException {
+        return PDDocument.load(pdf.toFile(), MemoryUsageSetting.setupTempFileOnly());
     }
     
 }
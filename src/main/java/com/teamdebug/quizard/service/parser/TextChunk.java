@@ -0,0 +1,22 @@
+package com.teamdebug.quizard.service.parser;
+
+public class TextChunk {
+
+    private final int index;
+    private final long offset;
+    private final int page;
+    private final String text;
+
+    public TextChunk(int index, long offset, int page, String text) {
+        this.index = index;
+        this.offset = offset;
+        this.page = page;
+        this.text = text;
+    }
+
+    public int getIndex() { return index; }
+    public long getOffset() { return offset; }
+    public int getPage() { return page; } // 1-based, 0 when the format has no pages
+    public String getText() { return text; }
+    public int length() { return text.length(); }
+}
@@ -1,11 +1,48 @@
 package com.teamdebug.quizard.service.parser;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
 public class TxtParser implements FileParser {
-    
+
+    private static final char BOM = '\uFEFF';
+
     @Override
-    public String parse(byte[] fileBytes) {
-        // TXT parsing logic goes here
-        return new String(fileBytes);
+    public void parse(InputStream input, Consumer<TextChunk> sink) throws IOException {
+        ChunkAssembler assembler = new ChunkAssembler(sink);
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        char[] buffer = new char[8192];
+        boolean first = true;
+        boolean blankLine = true;
+        int read;
+
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (first) {
+                    first = false;
+                    if (c == BOM) {
+                        continue;
+                    }
+                }
+                assembler.append(c);
+                if (c == '\n') {
+                    // A blank line closes a paragraph
+                    if (blankLine) {
+                        assembler.endParagraph();
+                    }
+                    blankLine = true;
+                } else if (!Character.isWhitespace(c)) {
+                    blankLine = false;
+                }
+            }
+        }
+
+        assembler.flush();
     }
-    
+
 }
@@ -0,0 +1,21 @@
+package com.teamdebug.quizard.service.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory ids for when persistence is switched off; they restart at 1
+@Component
+@ConditionalOnProperty(name = "quizard.persistence.enabled", havingValue = "false")
+public class AtomicIdAllocator implements IdAllocator {
+
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    @Override
+    public long nextId(String sequence) {
+        return sequences.computeIfAbsent(sequence, name -> new AtomicLong(1)).getAndIncrement();
+    }
+}
@@ -0,0 +1,11 @@
+package com.teamdebug.quizard.service.store;
+
+public interface IdAllocator {
+
+    String REVIEWER = "reviewer";
+    String FLASHCARD = "flashcard";
+    String QUIZ_ITEM = "quiz_item";
+    String QUIZ_ATTEMPT = "quiz_attempt";
+
+    long nextId(String sequence);
+}
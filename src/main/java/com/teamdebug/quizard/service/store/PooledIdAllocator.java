@@ -0,0 +1,78 @@
+package com.teamdebug.quizard.service.store;
+
+import com.teamdebug.quizard.model.entity.IdSequence;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Pooled sequence allocation: ids are handed out from in-memory blocks and
+// the database is only touched (one locked row update in its own short
+// transaction) when a block runs out. Ids are known before anything is
+// written, so inserts never need a round trip to learn their key.
+@Component
+@ConditionalOnProperty(name = "quizard.persistence.enabled", havingValue = "true", matchIfMissing = true)
+public class PooledIdAllocator implements IdAllocator {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${quizard.persistence.id-block-size:50}")
+    private int blockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    @Override
+    public long nextId(String sequence) {
+        Block block = blocks.computeIfAbsent(sequence, name -> new Block());
+        synchronized (block) {
+            if (block.next >= block.limit) {
+                long start = reserveBlock(sequence);
+                block.next = start;
+                block.limit = start + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserveBlock(String sequence) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        try {
+            return transaction.execute(status -> advance(sequence));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the row first; it exists now
+            return transaction.execute(status -> advance(sequence));
+        }
+    }
+
+    private long advance(String sequence) {
+        IdSequence row = entityManager.find(IdSequence.class, sequence, LockModeType.PESSIMISTIC_WRITE);
+        if (row == null) {
+            row = new IdSequence(sequence, 1);
+            entityManager.persist(row);
+        }
+        long start = row.getNextValue();
+        row.setNextValue(start + blockSize);
+        return start;
+    }
+
+    private static final class Block {
+        long next;
+        long limit;
+    }
+}
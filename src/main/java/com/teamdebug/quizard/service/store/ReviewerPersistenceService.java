@@ -0,0 +1,115 @@
+package com.teamdebug.quizard.service.store;
+
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.model.entity.Reviewer;
+import com.teamdebug.quizard.repository.FlashcardRepository;
+import com.teamdebug.quizard.repository.QuizItemRepository;
+import com.teamdebug.quizard.repository.ReviewerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Writes a reviewer with all of its cards and items in one transaction.
+// Ids are pre-allocated, so persist() never selects first, and with JDBC
+// batching enabled the rows go out as one batch per table.
+@Service
+@ConditionalOnProperty(name = "quizard.persistence.enabled", havingValue = "true", matchIfMissing = true)
+public class ReviewerPersistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewerPersistenceService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReviewerRepository reviewerRepository;
+
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+
+    @Autowired
+    private QuizItemRepository quizItemRepository;
+
+    @Autowired
+    private TextSegmentStore textSegmentStore;
+
+    @Transactional
+    public void save(Reviewer reviewer, StoredText originalText, List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        entityManager.persist(persistentCopy(reviewer, originalText));
+        flashcards.forEach(entityManager::persist);
+        quizItems.forEach(entityManager::persist);
+
+        // Send the batches now and detach, so nothing is dirty-checked at commit
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Writes many reviewers in one transaction. Reviewers already in the table
+    // are skipped: a replayed journal may hold a batch that committed just
+    // before a crash. Returns the number of reviewers written.
+    @Transactional
+    public int saveAll(List<ReviewerRecord> records) {
+        List<Long> ids = records.stream().map(record -> record.reviewer().getId()).toList();
+        Set<Long> existing = new HashSet<>();
+        reviewerRepository.findAllById(ids).forEach(reviewer -> existing.add(reviewer.getId()));
+        entityManager.clear();
+
+        int written = 0;
+        for (ReviewerRecord record : records) {
+            if (existing.contains(record.reviewer().getId())) {
+                continue;
+            }
+            Reviewer reviewer = record.reviewer();
+            entityManager.persist(persistentCopy(reviewer, record.originalText()));
+            record.flashcards().forEach(entityManager::persist);
+            record.quizItems().forEach(entityManager::persist);
+            written++;
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        return written;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ReviewerRecord> load(Long id) {
+        return reviewerRepository.findById(id).map(reviewer -> {
+            entityManager.detach(reviewer);
+            // Straight back into the segment store, still deflated
+            byte[] compressed = reviewer.getCompressedOriginalText();
+            if (compressed == null && reviewer.getOriginalTextLength() == null) {
+                // Saved before texts were stored compressed; database-setup.sql migrates such rows
+                log.warn("Reviewer {} has no compressed original text; run the original_text migration", id);
+            }
+            StoredText originalText = compressed == null ? textSegmentStore.store("")
+                    : textSegmentStore.storeCompressed(compressed, reviewer.getOriginalTextLength());
+            reviewer.setCompressedOriginalText(null);
+            return new ReviewerRecord(reviewer, originalText,
+                    flashcardRepository.findByReviewerIdOrderByIdAsc(id),
+                    quizItemRepository.findByReviewerIdOrderByIdAsc(id));
+        });
+    }
+
+    // A copy, so the shared in-memory reviewer never carries the text; the
+    // deflated bytes are persisted as they are, never decompressed
+    private static Reviewer persistentCopy(Reviewer reviewer, StoredText originalText) {
+        Reviewer copy = new Reviewer(reviewer.getId(), reviewer.getFileName(), reviewer.getSummarizedText());
+        copy.setCompressedOriginalText(originalText.readCompressed());
+        copy.setOriginalTextLength(originalText.length());
+        return copy;
+    }
+
+    public record ReviewerRecord(Reviewer reviewer, StoredText originalText,
+                                 List<Flashcard> flashcards, List<QuizItem> quizItems) {}
+}
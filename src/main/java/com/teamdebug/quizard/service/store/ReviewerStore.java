@@ -0,0 +1,254 @@
+package com.teamdebug.quizard.service.store;
+
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.model.entity.Reviewer;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe in-memory home for reviewers and their generated artifacts.
+// Reads and writes are lock-free on a ConcurrentHashMap and ids come from
+// the IdAllocator, so they stay unique across restarts when persisted. Memory is bounded by the retained text size (not entry
+// count): once the budget is exceeded, the least recently read reviewers are
+// evicted down to a low-water mark, by one thread at a time. Each entry owns
+// its reviewer's StoredText; readers go through openOriginalText(), which
+// keeps the text readable even if the entry is evicted mid-read.
+@Component
+public class ReviewerStore {
+
+    private static final double LOW_WATER_MARK = 0.9;
+
+    @Value("${quizard.store.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    private final Map<Long, StoredReviewer> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        pipelineMetrics.gauge("quizard.store.reviewers", "Reviewers held in memory", this, ReviewerStore::size);
+        pipelineMetrics.gauge("quizard.store.retained.bytes", "Text retained by in-memory reviewers",
+            this, ReviewerStore::getRetainedBytes);
+        pipelineMetrics.counter("quizard.store.evictions", "Reviewers evicted to stay within the memory budget",
+            evictions, LongAdder::sum);
+    }
+
+    // Assigns ids to the reviewer and all of its items, then stores them
+    public Long put(Reviewer reviewer, StoredText originalText, List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        assignIds(reviewer, flashcards, quizItems);
+        add(reviewer, originalText, flashcards, quizItems);
+        return reviewer.getId();
+    }
+
+    public void assignIds(Reviewer reviewer, List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        Long id = idAllocator.nextId(IdAllocator.REVIEWER);
+        reviewer.setId(id);
+        for (Flashcard flashcard : flashcards) {
+            flashcard.setId(idAllocator.nextId(IdAllocator.FLASHCARD));
+            flashcard.setReviewerId(id);
+        }
+        for (QuizItem quizItem : quizItems) {
+            quizItem.setId(idAllocator.nextId(IdAllocator.QUIZ_ITEM));
+            quizItem.setReviewerId(id);
+        }
+    }
+
+    // Stores a reviewer whose ids are already assigned (fresh or loaded from the database)
+    public void add(Reviewer reviewer, StoredText originalText, List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        Long id = reviewer.getId();
+        StoredReviewer entry = new StoredReviewer(reviewer, originalText, List.copyOf(flashcards),
+                List.copyOf(quizItems), retainedSize(reviewer, originalText, flashcards, quizItems),
+                clock.incrementAndGet());
+        StoredReviewer previous = entries.put(id, entry);
+        if (previous != null) {
+            retainedBytes.addAndGet(-previous.retainedBytes);
+            release(previous);
+        }
+
+        if (retainedBytes.addAndGet(entry.retainedBytes) > maxBytes) {
+            evictColdEntries(id);
+        }
+    }
+
+    public Reviewer getReviewer(Long id) {
+        StoredReviewer entry = lookup(id);
+        return entry == null ? null : entry.reviewer;
+    }
+
+    public List<Flashcard> getFlashcards(Long id) {
+        StoredReviewer entry = lookup(id);
+        return entry == null ? new ArrayList<>() : entry.flashcards;
+    }
+
+    public List<QuizItem> getQuizItems(Long id) {
+        StoredReviewer entry = lookup(id);
+        return entry == null ? new ArrayList<>() : entry.quizItems;
+    }
+
+    // Characters in the original text, without decompressing it; -1 when not in memory
+    public long getOriginalTextLength(Long id) {
+        StoredReviewer entry = lookup(id);
+        return entry == null || entry.originalText == null ? -1 : entry.originalText.length();
+    }
+
+    // Null when the reviewer is not in memory, including when it was evicted just now
+    public Reader openOriginalText(Long id) throws IOException {
+        StoredReviewer entry = lookup(id);
+        if (entry == null || entry.originalText == null) {
+            return null;
+        }
+        try {
+            return entry.originalText.openReader();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    // Presence check that does not count as a read
+    public boolean contains(Long id) {
+        return id != null && entries.containsKey(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) entries.size());
+        stats.put("retainedBytes", retainedBytes.get());
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private StoredReviewer lookup(Long id) {
+        StoredReviewer entry = id == null ? null : entries.get(id);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        entry.lastAccess = clock.incrementAndGet();
+        hits.increment();
+        return entry;
+    }
+
+    private void evictColdEntries(Long justStored) {
+        // Someone else is already evicting; they will bring us under budget
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            long target = (long) (maxBytes * LOW_WATER_MARK);
+            if (retainedBytes.get() <= maxBytes) {
+                return;
+            }
+
+            // Snapshot access times so concurrent reads can't reorder the sort
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((id, entry) -> candidates.add(new Candidate(id, entry, entry.lastAccess)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+
+            for (Candidate candidate : candidates) {
+                if (retainedBytes.get() <= target) {
+                    break;
+                }
+                if (candidate.id().equals(justStored)) {
+                    continue;
+                }
+                if (entries.remove(candidate.id(), candidate.entry())) {
+                    retainedBytes.addAndGet(-candidate.entry().retainedBytes);
+                    evictions.increment();
+                    release(candidate.entry());
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static void release(StoredReviewer entry) {
+        if (entry.originalText != null) {
+            entry.originalText.release();
+        }
+    }
+
+    // Approximate retained size: UTF-16 text plus a small per-object overhead
+    private static long retainedSize(Reviewer reviewer, StoredText originalText,
+                                     List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        // Compressed original texts live off-heap and only count what they keep on heap
+        long chars = length(reviewer.getFileName()) + length(reviewer.getSummarizedText())
+                + (originalText != null ? originalText.getHeapChars() : 0);
+        for (Flashcard flashcard : flashcards) {
+            chars += length(flashcard.getTerm()) + length(flashcard.getDefinition());
+        }
+        for (QuizItem quizItem : quizItems) {
+            chars += length(quizItem.getQuestion()) + length(quizItem.getCorrectAnswer());
+            if (quizItem.getChoices() != null) {
+                for (String choice : quizItem.getChoices()) {
+                    chars += length(choice);
+                }
+            }
+        }
+        return chars * 2 + 64L * (1 + flashcards.size() + quizItems.size());
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record Candidate(Long id, StoredReviewer entry, long lastAccess) {}
+
+    private static final class StoredReviewer {
+        final Reviewer reviewer;
+        final StoredText originalText;
+        final List<Flashcard> flashcards;
+        final List<QuizItem> quizItems;
+        final long retainedBytes;
+        volatile long lastAccess;
+
+        StoredReviewer(Reviewer reviewer, StoredText originalText, List<Flashcard> flashcards,
+                       List<QuizItem> quizItems, long retainedBytes, long lastAccess) {
+            this.reviewer = reviewer;
+            this.originalText = originalText;
+            this.flashcards = flashcards;
+            this.quizItems = quizItems;
+            this.retainedBytes = retainedBytes;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
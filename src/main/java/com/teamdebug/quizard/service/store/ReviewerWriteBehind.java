@@ -0,0 +1,355 @@
+package com.teamdebug.quizard.service.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.model.entity.Reviewer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Write-behind persistence: an upload only pays for a local journal write
+// (fsynced, so it survives a crash) and the reviewer is visible in memory
+// right away. A background flusher drains the bounded queue, lingering up to
+// one flush interval to coalesce writes, and commits each batch as one
+// transaction. When the queue is full the
+// caller writes its own reviewer synchronously, which slows uploads down to
+// what the database can take. Journal files are deleted only after their
+// batch commits; leftovers from a crash are replayed at startup. A journal
+// holds a JSON header followed by the original text exactly as deflated in
+// the TextSegmentStore, so the text is copied, never decompressed.
+@Component
+@ConditionalOnExpression("${quizard.persistence.enabled:true} and ${quizard.persistence.write-behind.enabled:true}")
+public class ReviewerWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewerWriteBehind.class);
+
+    private static final String SUFFIX = ".journal";
+    private static final String PREFIX = "reviewer-";
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    @Autowired
+    private ReviewerPersistenceService reviewerPersistenceService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quizard.persistence.write-behind.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${quizard.persistence.write-behind.batch-size:50}")
+    private int batchSize;
+
+    @Value("${quizard.persistence.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${quizard.persistence.write-behind.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    @Value("${quizard.persistence.write-behind.journal-dir:${java.io.tmpdir}/quizard-journal}")
+    private String journalDirectory;
+
+    private Path root;
+    private BlockingQueue<Long> queue;
+    private final Map<Long, Path> pending = new ConcurrentHashMap<>();
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final LongAdder flushedReviewers = new LongAdder();
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder synchronousWrites = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(journalDirectory);
+        Files.createDirectories(root);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        // Anything still journaled never reached the database
+        List<Long> recovered = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(root)) {
+            listing.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    deleteQuietly(path);
+                } else if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    Long id = Long.valueOf(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    pending.put(id, path);
+                    recovered.add(id);
+                }
+            });
+        }
+        recovered.sort(null);
+        for (Long id : recovered) {
+            if (!queue.offer(id)) {
+                break; // the rest stay journaled for the next start
+            }
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} journaled reviewer(s)", recovered.size());
+        }
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "reviewer-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+
+        // Flush whatever is still queued on the way out
+        List<Long> batch = new ArrayList<>();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                log.error("Could not flush {} reviewer(s) on shutdown, they stay journaled: {}", batch.size(),
+                        e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    // Journals the reviewer and queues it for the flusher. Ids must already be assigned.
+    public void submit(Reviewer reviewer, StoredText originalText, List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        Long id = reviewer.getId();
+        pending.put(id, writeJournal(reviewer, originalText, flashcards, quizItems));
+
+        boolean queued;
+        try {
+            queued = queue.offer(id, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+
+        // Backpressure: the flusher is behind, so this caller writes its own reviewer
+        if (!queued) {
+            synchronousWrites.increment();
+            try {
+                flush(List.of(id));
+            } catch (RuntimeException e) {
+                // The upload fails, so nothing should be replayed for it later
+                Path journal = pending.remove(id);
+                if (journal != null) {
+                    deleteQuietly(journal);
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Reads a reviewer that is journaled but not yet in the database
+    public Optional<ReviewerPersistenceService.ReviewerRecord> getPending(Long id) {
+        Path journal = id == null ? null : pending.get(id);
+        if (journal == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(readJournal(journal));
+        } catch (IOException e) {
+            // Flushed and deleted while we were reading; the database has it now
+            return Optional.empty();
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("pending", (long) pending.size());
+        stats.put("queued", (long) queue.size());
+        stats.put("flushedReviewers", flushedReviewers.sum());
+        stats.put("flushedBatches", flushedBatches.sum());
+        stats.put("synchronousWrites", synchronousWrites.sum());
+        stats.put("failedBatches", failedBatches.sum());
+        return stats;
+    }
+
+    private void runFlusher() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        long retryDelay = 0;
+
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    Long first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    lingerForBatch(batch);
+                }
+
+                flush(batch);
+                batch.clear();
+                retryDelay = 0;
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                // Keep the batch and retry with backoff; new writes pile up in the queue
+                failedBatches.increment();
+                retryDelay = Math.min(MAX_RETRY_DELAY_MS, Math.max(500, retryDelay * 2));
+                log.warn("Reviewer flush failed, retrying in {} ms: {}", retryDelay, e.getMessage());
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+
+        // Hand an unfinished batch back so shutdown() can try it once more
+        for (Long id : batch) {
+            if (!queue.offer(id)) {
+                break;
+            }
+        }
+    }
+
+    // Coalesce: keep collecting for up to one flush interval or until the batch is full
+    private void lingerForBatch(List<Long> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        queue.drainTo(batch, batchSize - batch.size());
+        while (batch.size() < batchSize) {
+            Long next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    private void flush(List<Long> ids) {
+        List<ReviewerPersistenceService.ReviewerRecord> records = new ArrayList<>(ids.size());
+        List<Long> flushed = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Path journal = pending.get(id);
+            if (journal == null) {
+                continue;
+            }
+            try {
+                records.add(readJournal(journal));
+                flushed.add(id);
+            } catch (IOException e) {
+                log.warn("Dropping unreadable journal {}: {}", journal, e.getMessage());
+                pending.remove(id);
+                deleteQuietly(journal);
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+
+        reviewerPersistenceService.saveAll(records);
+
+        for (Long id : flushed) {
+            Path journal = pending.remove(id);
+            if (journal != null) {
+                deleteQuietly(journal);
+            }
+        }
+        flushedReviewers.add(flushed.size());
+        flushedBatches.increment();
+    }
+
+    private Path writeJournal(Reviewer reviewer, StoredText originalText,
+                              List<Flashcard> flashcards, List<QuizItem> quizItems) {
+        Path file = root.resolve(PREFIX + reviewer.getId() + SUFFIX);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, PREFIX + reviewer.getId(), ".tmp");
+            FileOutputStream fileOutput = new FileOutputStream(temp.toFile());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+                byte[] header = objectMapper.writeValueAsBytes(new JournalHeader(reviewer.getId(),
+                        reviewer.getFileName(), reviewer.getSummarizedText(), flashcards, quizItems));
+                output.writeInt(header.length);
+                output.write(header);
+                output.writeLong(originalText.length());
+                originalText.writeCompressed(output);
+                output.flush();
+                fileOutput.getFD().sync();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+            return file;
+        } catch (IOException e) {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+            throw new UncheckedIOException("Could not journal reviewer " + reviewer.getId(), e);
+        }
+    }
+
+    // The rename only survives a crash once the directory entry is on disk too
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(root, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Not supported everywhere (e.g. Windows); the rename is then as durable as the OS makes it
+            log.debug("Could not sync journal directory {}: {}", root, e.getMessage());
+        }
+    }
+
+    private ReviewerPersistenceService.ReviewerRecord readJournal(Path journal) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            JournalHeader header = readHeader(input);
+            long length = input.readLong();
+            StoredText originalText = new StoredText(input.readAllBytes(), length);
+            return new ReviewerPersistenceService.ReviewerRecord(
+                    new Reviewer(header.id(), header.fileName(), header.summarizedText()),
+                    originalText, header.flashcards(), header.quizItems());
+        }
+    }
+
+    private JournalHeader readHeader(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return objectMapper.readValue(bytes, JournalHeader.class);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete journal file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record JournalHeader(Long id, String fileName, String summarizedText,
+                                 List<Flashcard> flashcards, List<QuizItem> quizItems) {}
+}
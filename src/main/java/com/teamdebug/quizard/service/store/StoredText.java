@@ -0,0 +1,174 @@
+package com.teamdebug.quizard.service.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.InflaterInputStream;
+
+// Handle to a text kept by TextSegmentStore: either deflated in a segment
+// file (off-heap) or, when the store is disabled, a plain on-heap String.
+// Texts read back from the write-behind journal stay deflated on the heap
+// until they are moved into the store. Nothing is decompressed until load()
+// or openReader() is called. The owner holds one reference and every open
+// reader another, so a text released (e.g. evicted) mid-read stays readable
+// until that reader is closed.
+public class StoredText {
+
+    private final TextSegmentStore.Segment segment;
+    private final long position;
+    private final int compressedLength;
+    private final long length;
+    private final String heapText;
+    private final byte[] heapCompressed;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    StoredText(TextSegmentStore.Segment segment, long position, int compressedLength, long length) {
+        this.segment = segment;
+        this.position = position;
+        this.compressedLength = compressedLength;
+        this.length = length;
+        this.heapText = null;
+        this.heapCompressed = null;
+    }
+
+    StoredText(byte[] heapCompressed, long length) {
+        this.segment = null;
+        this.position = 0;
+        this.compressedLength = heapCompressed.length;
+        this.length = length;
+        this.heapText = null;
+        this.heapCompressed = heapCompressed;
+    }
+
+    StoredText(String heapText) {
+        this.segment = null;
+        this.position = 0;
+        this.compressedLength = 0;
+        this.length = heapText.length();
+        this.heapText = heapText;
+        this.heapCompressed = null;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int getCompressedLength() {
+        return compressedLength;
+    }
+
+    // Characters this handle keeps on the Java heap; deflated bytes count as half a char each
+    public long getHeapChars() {
+        if (heapCompressed != null) {
+            return (heapCompressed.length + 1) / 2;
+        }
+        return heapText == null ? 0 : heapText.length();
+    }
+
+    public String load() {
+        if (heapText != null) {
+            return heapText;
+        }
+        StringBuilder text = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        char[] buffer = new char[8192];
+        try (Reader reader = openReader()) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stored text", e);
+        }
+        return text.toString();
+    }
+
+    // The deflated bytes, as TextSegmentStore.storeCompressed() takes them back;
+    // only the compressed form passes through the heap
+    public byte[] readCompressed() {
+        if (heapCompressed != null) {
+            return heapCompressed;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, compressedLength));
+        try {
+            writeCompressed(compressed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stored text", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    // Streams the deflated bytes to out, which is left open
+    public void writeCompressed(OutputStream out) throws IOException {
+        if (heapCompressed != null) {
+            out.write(heapCompressed);
+            return;
+        }
+        if (heapText != null) {
+            TextSegmentStore.deflate(heapText, out);
+            return;
+        }
+        retain();
+        try (InputStream compressed = segment.openStream(position, compressedLength)) {
+            compressed.transferTo(out);
+        } finally {
+            unretain();
+        }
+    }
+
+    // Throws IllegalStateException once the text is released and no reader holds it any more
+    public Reader openReader() throws IOException {
+        if (heapText != null) {
+            return new StringReader(heapText);
+        }
+        if (heapCompressed != null) {
+            return new InputStreamReader(new InflaterInputStream(new ByteArrayInputStream(heapCompressed)),
+                    StandardCharsets.UTF_8);
+        }
+        retain();
+        InputStream compressed = new FilterInputStream(segment.openStream(position, compressedLength)) {
+            private final AtomicBoolean closed = new AtomicBoolean();
+
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    unretain();
+                }
+            }
+        };
+        return new InputStreamReader(new InflaterInputStream(compressed), StandardCharsets.UTF_8);
+    }
+
+    // Frees the space once the owner and all open readers are gone; safe to call more than once
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            unretain();
+        }
+    }
+
+    private void retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                throw new IllegalStateException("Stored text was released");
+            }
+        } while (!references.compareAndSet(count, count + 1));
+    }
+
+    private void unretain() {
+        if (references.decrementAndGet() == 0 && segment != null) {
+            segment.release();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.teamdebug.quizard.service.store;
+
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Cold storage tier for reviewer original texts. Texts are deflated while
+// they stream in and appended to segment files on local disk, so only the
+// small compressed form passes through the heap. Segments roll over at a
+// fixed size and are deleted once every text in them has been released.
+// Segment contents do not outlive the process: the directory is cleared on
+// startup.
+@Component
+public class TextSegmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TextSegmentStore.class);
+
+    private static final String SUFFIX = ".seg";
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${quizard.text-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quizard.text-store.dir:${java.io.tmpdir}/quizard-text}")
+    private String directory;
+
+    @Value("${quizard.text-store.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    private Path root;
+    private Segment current;
+    private final AtomicInteger nextSegmentId = new AtomicInteger();
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        pipelineMetrics.gauge("quizard.text-store.stored.bytes", "Compressed original texts on disk",
+            this, TextSegmentStore::getStoredBytes);
+
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+        List<Path> stale;
+        try (Stream<Path> listing = Files.list(root)) {
+            stale = listing.filter(path -> path.toString().endsWith(SUFFIX)).toList();
+        }
+        for (Path segment : stale) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (current != null) {
+            current.seal();
+            current = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    public TextWriter newWriter() {
+        return new TextWriter();
+    }
+
+    public StoredText store(String text) {
+        TextWriter writer = newWriter();
+        writer.append(text);
+        return writer.finish();
+    }
+
+    // Stores text that is already deflated (e.g. read back from the database) without inflating it
+    public StoredText storeCompressed(byte[] compressed, long length) {
+        if (!enabled) {
+            return new StoredText(inflate(compressed, length));
+        }
+        try {
+            return appendCompressed(compressed, compressed.length, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store text", e);
+        }
+    }
+
+    // Deflates text the same way a TextWriter does, leaving out open
+    static void deflate(String text, OutputStream out) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream compressed = new DeflaterOutputStream(out, deflater, 8192);
+            Writer writer = new OutputStreamWriter(compressed, StandardCharsets.UTF_8);
+            writer.write(text);
+            writer.flush();
+            compressed.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] compressed, long length) {
+        StringBuilder text = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        try (Reader reader = new InputStreamReader(new InflaterInputStream(new ByteArrayInputStream(compressed)),
+                StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decompress text", e);
+        }
+        return text.toString();
+    }
+
+    private synchronized StoredText appendCompressed(byte[] compressed, int compressedLength, long length) throws IOException {
+        if (current == null || current.size + compressedLength > segmentBytes) {
+            if (current != null) {
+                current.seal();
+            }
+            current = new Segment(root.resolve(nextSegmentId.getAndIncrement() + SUFFIX));
+        }
+
+        long position = current.size;
+        ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, compressedLength);
+        while (buffer.hasRemaining()) {
+            current.channel.write(buffer, position + buffer.position());
+        }
+        current.size += compressedLength;
+        current.live.incrementAndGet();
+        storedBytes.addAndGet(compressedLength);
+        return new StoredText(current, position, compressedLength, length);
+    }
+
+    // Streams text in; finish() hands back the StoredText handle
+    public class TextWriter {
+
+        private final StringBuilder heapText;
+        private final ByteArrayOutputStream compressed;
+        private final Deflater deflater;
+        private final Writer writer;
+        private long length;
+
+        private TextWriter() {
+            if (enabled) {
+                heapText = null;
+                compressed = new ByteArrayOutputStream(8192);
+                deflater = new Deflater(Deflater.BEST_SPEED);
+                writer = new OutputStreamWriter(new DeflaterOutputStream(compressed, deflater, 8192),
+                        StandardCharsets.UTF_8);
+            } else {
+                heapText = new StringBuilder();
+                compressed = null;
+                deflater = null;
+                writer = null;
+            }
+        }
+
+        public TextWriter append(CharSequence text) {
+            return append(text, 0, text.length());
+        }
+
+        public TextWriter append(CharSequence text, int start, int end) {
+            length += end - start;
+            if (heapText != null) {
+                heapText.append(text, start, end);
+                return this;
+            }
+            try {
+                writer.append(text, start, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        // Abandons the text, releasing the native deflater
+        public void discard() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        public StoredText finish() {
+            if (heapText != null) {
+                return new StoredText(heapText.toString());
+            }
+            try {
+                writer.close();
+                return appendCompressed(compressed.toByteArray(), compressed.size(), length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store text", e);
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicInteger live = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private volatile boolean sealed;
+        private long size;
+
+        private Segment(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        InputStream openStream(long position, int length) {
+            return new SegmentInputStream(channel, position, length);
+        }
+
+        void release() {
+            if (live.decrementAndGet() == 0 && sealed) {
+                delete();
+            }
+        }
+
+        void seal() {
+            sealed = true;
+            if (live.get() == 0) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            if (!deleted.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                storedBytes.addAndGet(-size);
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Could not delete text segment {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    // Positional reads only, so concurrent readers never share a file pointer
+    private static class SegmentInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        SegmentInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, (int) Math.min(length, remaining));
+            int read = channel.read(target, position);
+            if (read > 0) {
+                position += read;
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
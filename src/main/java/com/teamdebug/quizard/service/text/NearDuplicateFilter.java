@@ -0,0 +1,108 @@
+package com.teamdebug.quizard.service.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Remembers the texts it has accepted and rejects new ones that are near
+// duplicates of any of them. Texts are normalized, cut into overlapping
+// character shingles and reduced to a MinHash signature; the share of equal
+// signature slots estimates the Jaccard similarity of the shingle sets.
+// Not thread-safe.
+public class NearDuplicateFilter {
+
+    private static final int SHINGLE_LENGTH = 4;
+    private static final int SIGNATURE_SIZE = 64;
+
+    // Same seeds for every filter so signatures are comparable across runs
+    private static final long[] MULTIPLIERS = new long[SIGNATURE_SIZE];
+    private static final long[] OFFSETS = new long[SIGNATURE_SIZE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    private final double threshold;
+    private final Set<String> seen = new HashSet<>();
+    private final List<long[]> signatures = new ArrayList<>();
+
+    // threshold: estimated Jaccard similarity at or above which a text counts as a duplicate
+    public NearDuplicateFilter(double threshold) {
+        this.threshold = threshold;
+    }
+
+    // True if the text was kept, false if it duplicates something kept before
+    public boolean add(String text) {
+        String normalized = normalize(text);
+        if (!seen.add(normalized)) {
+            return false;
+        }
+
+        long[] signature = signature(normalized);
+        for (long[] kept : signatures) {
+            if (similarity(signature, kept) >= threshold) {
+                seen.remove(normalized);
+                return false;
+            }
+        }
+        signatures.add(signature);
+        return true;
+    }
+
+    public static double similarity(String a, String b) {
+        return similarity(signature(normalize(a)), signature(normalize(b)));
+    }
+
+    private static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    private static long[] signature(String normalized) {
+        long[] signature = new long[SIGNATURE_SIZE];
+        Arrays.fill(signature, Long.MAX_VALUE);
+
+        int shingles = Math.max(1, normalized.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            String shingle = normalized.substring(start, Math.min(normalized.length(), start + SHINGLE_LENGTH));
+            long base = mix(shingle.hashCode());
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                long hash = mix(base * MULTIPLIERS[i] + OFFSETS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    // Case, punctuation and spacing don't make a question different
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT)
+            .replaceAll("[^\\p{L}\\p{N}]+", " ")
+            .trim();
+    }
+
+    // 64-bit finalizer from MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
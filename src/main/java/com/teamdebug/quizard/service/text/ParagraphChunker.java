@@ -0,0 +1,105 @@
+package com.teamdebug.quizard.service.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+// Splits a long text into chunks that each fit a token budget, breaking at
+// the most natural boundary available: whole paragraphs (and so sections)
+// are packed together first, an oversized paragraph falls back to sentence
+// boundaries, and only a single oversized sentence is cut mid-way.
+public final class ParagraphChunker {
+
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_BREAK = Pattern.compile("(?<=[.!?])\\s+");
+
+    private ParagraphChunker() {}
+
+    public static List<String> split(String text, int maxTokens, ToIntFunction<String> tokenCount) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+
+        for (String paragraph : PARAGRAPH_BREAK.split(text)) {
+            paragraph = paragraph.strip();
+            if (paragraph.isEmpty()) {
+                continue;
+            }
+
+            int tokens = tokenCount.applyAsInt(paragraph);
+            if (tokens > maxTokens) {
+                flush(chunks, current);
+                currentTokens = 0;
+                splitParagraph(paragraph, maxTokens, tokenCount, chunks);
+                continue;
+            }
+
+            if (currentTokens + tokens > maxTokens) {
+                flush(chunks, current);
+                currentTokens = 0;
+            }
+            if (current.length() > 0) {
+                current.append("\n\n");
+            }
+            current.append(paragraph);
+            currentTokens += tokens;
+        }
+        flush(chunks, current);
+        return chunks;
+    }
+
+    private static void splitParagraph(String paragraph, int maxTokens, ToIntFunction<String> tokenCount,
+                                       List<String> chunks) {
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+
+        for (String sentence : SENTENCE_BREAK.split(paragraph)) {
+            int tokens = tokenCount.applyAsInt(sentence);
+            if (tokens > maxTokens) {
+                flush(chunks, current);
+                currentTokens = 0;
+                splitHard(sentence, maxTokens, tokenCount, chunks);
+                continue;
+            }
+
+            if (currentTokens + tokens > maxTokens) {
+                flush(chunks, current);
+                currentTokens = 0;
+            }
+            if (current.length() > 0) {
+                current.append(' ');
+            }
+            current.append(sentence);
+            currentTokens += tokens;
+        }
+        flush(chunks, current);
+    }
+
+    // Last resort: cut proportionally to the measured size, at a space where possible
+    private static void splitHard(String sentence, int maxTokens, ToIntFunction<String> tokenCount,
+                                  List<String> chunks) {
+        String rest = sentence;
+        while (!rest.isEmpty()) {
+            int tokens = tokenCount.applyAsInt(rest);
+            if (tokens <= maxTokens) {
+                chunks.add(rest);
+                return;
+            }
+            int cut = Math.max(1, (int) ((long) rest.length() * maxTokens / tokens));
+            int space = rest.lastIndexOf(' ', cut);
+            if (space > cut / 2) {
+                cut = space;
+            }
+            chunks.add(rest.substring(0, cut).strip());
+            rest = rest.substring(cut).strip();
+        }
+    }
+
+    private static void flush(List<String> chunks, StringBuilder current) {
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+            current.setLength(0);
+        }
+    }
+}
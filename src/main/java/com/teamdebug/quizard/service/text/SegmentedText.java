@@ -0,0 +1,173 @@
+package com.teamdebug.quizard.service.text;
+
+import java.util.Arrays;
+
+// Sentence and token index over a text, built in a single pass.
+// Sentences follow the same rule as split("[.!?]+") and tokens the same rule
+// as split("\\s+") on the trimmed sentence, but only int offsets are stored;
+// substrings are materialized lazily, at most once each, when asked for.
+public final class SegmentedText {
+
+    private final String text;
+
+    private int sentenceCount;
+    private int[] sentenceStart;
+    private int[] sentenceEnd;
+    private int[] sentenceFirstToken; // sentenceCount + 1 entries
+
+    private int tokenCount;
+    private int[] tokenStart;
+    private int[] tokenEnd;
+
+    private String[] sentenceCache;
+    private String[] tokenCache;
+
+    private SegmentedText(String text) {
+        this.text = text;
+        int estimatedSentences = Math.max(8, text.length() / 64);
+        this.sentenceStart = new int[estimatedSentences];
+        this.sentenceEnd = new int[estimatedSentences];
+        this.sentenceFirstToken = new int[estimatedSentences + 1];
+        int estimatedTokens = Math.max(16, text.length() / 6);
+        this.tokenStart = new int[estimatedTokens];
+        this.tokenEnd = new int[estimatedTokens];
+        segment();
+    }
+
+    public static SegmentedText of(String text) {
+        return new SegmentedText(text == null ? "" : text);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public int sentenceCount() {
+        return sentenceCount;
+    }
+
+    // Length of the trimmed sentence, without materializing it
+    public int sentenceLength(int sentence) {
+        return sentenceEnd[sentence] - sentenceStart[sentence];
+    }
+
+    public String sentence(int sentence) {
+        if (sentenceCache == null) {
+            sentenceCache = new String[sentenceCount];
+        }
+        String value = sentenceCache[sentence];
+        if (value == null) {
+            value = text.substring(sentenceStart[sentence], sentenceEnd[sentence]);
+            sentenceCache[sentence] = value;
+        }
+        return value;
+    }
+
+    public int tokenCount(int sentence) {
+        return sentenceFirstToken[sentence + 1] - sentenceFirstToken[sentence];
+    }
+
+    public int tokenLength(int sentence, int token) {
+        int index = sentenceFirstToken[sentence] + token;
+        return tokenEnd[index] - tokenStart[index];
+    }
+
+    public String token(int sentence, int token) {
+        if (tokenCache == null) {
+            tokenCache = new String[tokenCount];
+        }
+        int index = sentenceFirstToken[sentence] + token;
+        String value = tokenCache[index];
+        if (value == null) {
+            value = text.substring(tokenStart[index], tokenEnd[index]);
+            tokenCache[index] = value;
+        }
+        return value;
+    }
+
+    // Appends tokens [from, to) of a sentence separated by single spaces
+    public StringBuilder appendTokens(StringBuilder out, int sentence, int from, int to) {
+        int first = sentenceFirstToken[sentence];
+        for (int t = from; t < to; t++) {
+            if (t > from) {
+                out.append(' ');
+            }
+            out.append(text, tokenStart[first + t], tokenEnd[first + t]);
+        }
+        return out;
+    }
+
+    public StringBuilder appendSentence(StringBuilder out, int sentence) {
+        return out.append(text, sentenceStart[sentence], sentenceEnd[sentence]);
+    }
+
+    private void segment() {
+        int length = text.length();
+        int segmentStart = 0;
+        int i = 0;
+
+        while (i < length) {
+            if (isDelimiter(text.charAt(i))) {
+                addSentence(segmentStart, i);
+                while (i < length && isDelimiter(text.charAt(i))) {
+                    i++;
+                }
+                segmentStart = i;
+            } else {
+                i++;
+            }
+        }
+
+        // Like String.split, a trailing empty segment is dropped
+        if (segmentStart < length) {
+            addSentence(segmentStart, length);
+        }
+        sentenceFirstToken[sentenceCount] = tokenCount;
+    }
+
+    private void addSentence(int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        if (sentenceCount == sentenceStart.length) {
+            int capacity = sentenceCount * 2;
+            sentenceStart = Arrays.copyOf(sentenceStart, capacity);
+            sentenceEnd = Arrays.copyOf(sentenceEnd, capacity);
+            sentenceFirstToken = Arrays.copyOf(sentenceFirstToken, capacity + 1);
+        }
+        sentenceStart[sentenceCount] = start;
+        sentenceEnd[sentenceCount] = end;
+        sentenceFirstToken[sentenceCount] = tokenCount;
+        sentenceCount++;
+
+        int tokenBegin = -1;
+        for (int i = start; i <= end; i++) {
+            boolean boundary = i == end || Character.isWhitespace(text.charAt(i));
+            if (boundary && tokenBegin >= 0) {
+                addToken(tokenBegin, i);
+                tokenBegin = -1;
+            } else if (!boundary && tokenBegin < 0) {
+                tokenBegin = i;
+            }
+        }
+    }
+
+    private void addToken(int start, int end) {
+        if (tokenCount == tokenStart.length) {
+            int capacity = tokenCount * 2;
+            tokenStart = Arrays.copyOf(tokenStart, capacity);
+            tokenEnd = Arrays.copyOf(tokenEnd, capacity);
+        }
+        tokenStart[tokenCount] = start;
+        tokenEnd[tokenCount] = end;
+        tokenCount++;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+}
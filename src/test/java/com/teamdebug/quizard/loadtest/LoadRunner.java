@@ -0,0 +1,197 @@
+package com.teamdebug.quizard.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+// Open-loop load generator: requests go out on a fixed schedule at the target
+// rate whether or not earlier ones have finished, and latency is measured
+// from the scheduled send time. A server that falls behind therefore shows
+// up as growing latency instead of silently lowering the offered load
+// (no coordinated omission). Requests sent during warm-up are not recorded.
+public class LoadRunner {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    private final double rps;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+
+    public LoadRunner(double rps, Duration warmup, Duration duration, Duration requestTimeout) {
+        this.rps = rps;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.requestTimeout = requestTimeout;
+    }
+
+    // requests: builds the n-th request; failed: tells a 2xx answer that still carries an error
+    public Result run(String name, IntFunction<HttpRequest> requests, Predicate<String> failed)
+            throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+        int warmupCount = (int) (warmup.toNanos() / periodNanos);
+        int total = warmupCount + (int) (duration.toNanos() / periodNanos);
+
+        Result result = new Result(name);
+        List<CompletableFuture<?>> pending = new ArrayList<>(total);
+        AtomicInteger sequence = new AtomicInteger();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+
+        ScheduledFuture<?> ticks = scheduler.scheduleAtFixedRate(() -> {
+            int n = sequence.getAndIncrement();
+            if (n >= total) {
+                return;
+            }
+            if (n == warmupCount) {
+                threads.resetPeakThreadCount();
+                result.markStart();
+            }
+            long intended = start + n * periodNanos;
+            boolean recorded = n >= warmupCount;
+            HttpRequest request = requests.apply(n);
+            CompletableFuture<?> call = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (!recorded) {
+                        return;
+                    }
+                    long latency = System.nanoTime() - intended;
+                    if (error != null) {
+                        result.record(latency, "exception", true);
+                    } else {
+                        boolean bad = response.statusCode() >= 400 || failed.test(response.body());
+                        result.record(latency, String.valueOf(response.statusCode()), bad);
+                    }
+                });
+            synchronized (pending) {
+                pending.add(call);
+            }
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        while (sequence.get() < total) {
+            Thread.sleep(50);
+        }
+        ticks.cancel(false);
+        scheduler.shutdownNow();
+
+        CompletableFuture<?>[] calls;
+        synchronized (pending) {
+            calls = pending.toArray(new CompletableFuture<?>[0]);
+        }
+        try {
+            CompletableFuture.allOf(calls).get(requestTimeout.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Failed or late calls are already counted per request
+        }
+        result.finish(total - warmupCount, threads.getPeakThreadCount());
+        return result;
+    }
+
+    public static class Result {
+
+        private final String name;
+        private final Map<String, Integer> statuses = new TreeMap<>();
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private int sent;
+        private int peakThreads;
+        private long measureStart;
+        private long measureEnd;
+
+        Result(String name) {
+            this.name = name;
+        }
+
+        synchronized void markStart() {
+            measureStart = System.nanoTime();
+        }
+
+        synchronized void record(long latencyNanos, String status, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            statuses.merge(status, 1, Integer::sum);
+            if (error) {
+                errors++;
+            }
+            measureEnd = System.nanoTime();
+        }
+
+        synchronized void finish(int sent, int peakThreads) {
+            this.sent = sent;
+            this.peakThreads = peakThreads;
+            Arrays.sort(latencies, 0, count);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public synchronized double getErrorRate() {
+            return sent == 0 ? 0 : (double) (errors + sent - count) / sent;
+        }
+
+        // Successful responses per second over the measured window
+        public synchronized double getThroughput() {
+            double seconds = (measureEnd - measureStart) / 1e9;
+            return seconds <= 0 ? 0 : (count - errors) / seconds;
+        }
+
+        // Nearest-rank percentile, in milliseconds
+        public synchronized long percentileMs(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * count) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(latencies[Math.max(0, Math.min(count - 1, rank))]);
+        }
+
+        public synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("scenario", name);
+            map.put("sent", sent);
+            map.put("completed", count);
+            map.put("errors", errors + sent - count);
+            map.put("errorRate", getErrorRate());
+            map.put("throughputPerSecond", getThroughput());
+            map.put("p50Ms", percentileMs(50));
+            map.put("p95Ms", percentileMs(95));
+            map.put("p99Ms", percentileMs(99));
+            map.put("maxMs", percentileMs(100));
+            map.put("peakThreads", peakThreads);
+            map.put("statuses", new TreeMap<>(statuses));
+            return map;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%-12s sent=%-6d ok/s=%-8.1f errors=%5.1f%%  p50=%-6d p95=%-6d p99=%-6d max=%-6d threads=%-4d %s",
+                name, sent, getThroughput(), getErrorRate() * 100, percentileMs(50), percentileMs(95),
+                percentileMs(99), percentileMs(100), peakThreads, statuses);
+        }
+    }
+}
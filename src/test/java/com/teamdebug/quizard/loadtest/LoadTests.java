@@ -0,0 +1,189 @@
+package com.teamdebug.quizard.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// End-to-end load test against the real controllers, with the AI provider
+// replaced by StubLlmServer. Each scenario runs at the target rate in turn
+// and reports throughput, latency percentiles, error rate and the peak JVM
+// thread count. Excluded from the normal build; run with
+//   mvn test -Pload-test [-Dload.rps=20 -Dload.duration-seconds=60 -Dstub.median-ms=1500 ...]
+// The report is also written as JSON to load.report. load.max-error-rate and
+// load.max-p99-ms, when set, turn the report into a pass/fail gate.
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadTests {
+
+	private static final String[] SCENARIOS = { "upload", "summary", "quiz", "flashcards", "quiz-stream" };
+
+	private static final StubLlmServer stub = startStub();
+
+	@LocalServerPort
+	private int port;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@DynamicPropertySource
+	static void aiProperties(DynamicPropertyRegistry registry) {
+		registry.add("quizard.ai.base-url", stub::getBaseUrl);
+		// Every request should reach the stub, not a cached answer
+		registry.add("quizard.ai.cache.enabled", () -> false);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stub.close();
+	}
+
+	@Test
+	void generationEndpointsUnderLoad() throws Exception {
+		LoadRunner runner = new LoadRunner(
+				Double.parseDouble(System.getProperty("load.rps", "10")),
+				Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5)),
+				Duration.ofSeconds(Long.getLong("load.duration-seconds", 30)),
+				Duration.ofSeconds(Long.getLong("load.timeout-seconds", 120)));
+
+		List<LoadRunner.Result> results = new ArrayList<>();
+		for (String scenario : System.getProperty("load.scenarios", String.join(",", SCENARIOS)).split(",")) {
+			String name = scenario.trim();
+			LoadRunner.Result result = runner.run(name, requests(name), LoadTests::carriesError);
+			System.out.println(result);
+			results.add(result);
+		}
+
+		report(results);
+
+		String maxErrorRate = System.getProperty("load.max-error-rate");
+		String maxP99 = System.getProperty("load.max-p99-ms");
+		for (LoadRunner.Result result : results) {
+			if (maxErrorRate != null) {
+				assertThat(result.getErrorRate()).as(result.getName() + " error rate")
+						.isLessThanOrEqualTo(Double.parseDouble(maxErrorRate));
+			}
+			if (maxP99 != null) {
+				assertThat(result.percentileMs(99)).as(result.getName() + " p99")
+						.isLessThanOrEqualTo(Long.parseLong(maxP99));
+			}
+		}
+	}
+
+	private IntFunction<HttpRequest> requests(String scenario) {
+		return switch (scenario) {
+			case "upload" -> n -> upload("notes-" + n + ".txt", document(n));
+			case "summary" -> n -> json("/api/summary/generate", Map.of("text", document(n)));
+			case "quiz" -> n -> json("/api/quiz/generate",
+					Map.of("text", document(n), "numberOfQuestions", 5, "difficulty", "medium"));
+			case "flashcards" -> n -> json("/api/flashcards/generate",
+					Map.of("text", document(n), "numberOfCards", 5));
+			case "quiz-stream" -> n -> json("/api/quiz/generate/stream",
+					Map.of("text", document(n), "numberOfQuestions", 5, "difficulty", "medium"));
+			default -> throw new IllegalArgumentException("Unknown load scenario: " + scenario);
+		};
+	}
+
+	// Several controllers answer 200 with the failure in the body
+	private static boolean carriesError(String body) {
+		return body.contains("\"error\"") || body.contains("Error generating") || body.contains("event:error");
+	}
+
+	private HttpRequest json(String path, Map<String, Object> body) {
+		try {
+			return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+					.build();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private HttpRequest upload(String fileName, String content) {
+		String boundary = "quizard-load-" + fileName.hashCode();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		String head = "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\n";
+		body.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+		body.writeBytes(content.getBytes(StandardCharsets.UTF_8));
+		body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/reviewers/upload"))
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+	}
+
+	// A different ~2 KB study text per request, so neither caches nor single-flight collapse the load
+	private static String document(int n) {
+		Random random = new Random(n);
+		String[] subjects = { "The cell membrane", "Photosynthesis", "The French Revolution", "Supply and demand",
+				"A binary search tree", "Plate tectonics", "The immune system", "Newton's second law" };
+		String[] predicates = { "controls what enters and leaves", "converts light into chemical energy",
+				"reshaped European politics", "determines market prices", "keeps keys in sorted order",
+				"explains earthquakes and mountain ranges", "defends the body against pathogens",
+				"relates force, mass and acceleration" };
+		StringBuilder text = new StringBuilder("Study notes ").append(n).append(". ");
+		while (text.length() < 2048) {
+			int i = random.nextInt(subjects.length);
+			text.append(subjects[i]).append(' ').append(predicates[random.nextInt(predicates.length)])
+					.append(" in example ").append(random.nextInt(1000)).append(". ");
+		}
+		return text.toString();
+	}
+
+	private void report(List<LoadRunner.Result> results) throws IOException, InterruptedException {
+		Map<String, Object> report = new LinkedHashMap<>();
+		List<Map<String, Object>> scenarios = new ArrayList<>();
+		results.forEach(result -> scenarios.add(result.toMap()));
+		report.put("scenarios", scenarios);
+		report.put("stub", stub.getStats());
+
+		// Retries, limiter and circuit breaker counters from the app itself
+		HttpResponse<String> stats = HttpClient.newHttpClient().send(
+				HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/reviewers/stats")).build(),
+				HttpResponse.BodyHandlers.ofString());
+		report.put("app", objectMapper.readTree(stats.body()).path("ai"));
+
+		Path file = Path.of(System.getProperty("load.report", "target/load-test-report.json"));
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+		System.out.println("Stub: " + stub.getStats());
+		System.out.println("Load test report written to " + file.toAbsolutePath());
+	}
+
+	private static StubLlmServer startStub() {
+		StubLlmServer server = StubLlmServer.fromSystemProperties();
+		try {
+			server.start(0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return server;
+	}
+}
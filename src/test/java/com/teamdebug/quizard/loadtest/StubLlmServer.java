@@ -0,0 +1,368 @@
+package com.teamdebug.quizard.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local stand-in for an OpenAI-compatible /chat/completions endpoint, so the
+// whole generation path can be exercised without the real provider. Answers
+// match what each service asks for (quiz array, flashcard array, study-set
+// object, prose summary) with random but well-formed content. Latency is
+// drawn from a log-normal distribution fixed by its median and p99; a share
+// of calls fail with 500 or are throttled with 429 + Retry-After; streamed
+// answers are sent as server-sent events, one word per chunk.
+//
+// Run on its own with
+//   java -cp target/test-classes:target/classes:<deps> com.teamdebug.quizard.loadtest.StubLlmServer 8089
+// and start the app with quizard.ai.base-url=http://localhost:8089/v1.
+// Settings come from stub.* system properties (see fromSystemProperties).
+public class StubLlmServer implements AutoCloseable {
+
+    private static final Pattern EXACTLY = Pattern.compile("exactly (\\d+)");
+    private static final String[] WORDS = (
+        "atom cell gene enzyme protein membrane nucleus energy photon orbit planet galaxy comet glacier river "
+        + "delta canyon volcano mineral crystal fossil species habitat climate ocean current tide island desert "
+        + "forest market price supply demand budget tariff contract treaty empire senate court statute verdict "
+        + "theorem axiom vector matrix integral limit series prime graph network packet router server kernel "
+        + "thread memory cache index query schema record ledger invoice account credit debit asset equity "
+        + "poem sonnet novel chapter author critic theme motif symbol rhythm meter chorus melody harmony tempo "
+        + "canvas pigment sculpture mural portrait museum archive census survey sample median variance signal "
+        + "circuit voltage current magnet turbine engine piston valve sensor lever pulley wedge spring bridge"
+    ).split(" ");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private long medianMs = 800;
+    private long p99Ms = 4000;
+    private long tokenIntervalMs = 10;
+    private double errorRate = 0.01;
+    private double throttleRate = 0.02;
+    private int retryAfterSeconds = 1;
+
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    // Statuses forced onto the next calls, ahead of the random error rates
+    private final AtomicInteger forcedFailures = new AtomicInteger();
+    private volatile int forcedStatus;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder streamed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public static void main(String[] args) throws IOException {
+        StubLlmServer stub = fromSystemProperties();
+        stub.start(args.length > 0 ? Integer.parseInt(args[0]) : 8089);
+        System.out.println("Stub LLM listening on " + stub.getBaseUrl());
+    }
+
+    // stub.median-ms, stub.p99-ms, stub.token-interval-ms, stub.error-rate,
+    // stub.throttle-rate, stub.retry-after-seconds
+    public static StubLlmServer fromSystemProperties() {
+        StubLlmServer stub = new StubLlmServer();
+        stub.setMedianMs(Long.getLong("stub.median-ms", stub.medianMs));
+        stub.setP99Ms(Long.getLong("stub.p99-ms", stub.p99Ms));
+        stub.setTokenIntervalMs(Long.getLong("stub.token-interval-ms", stub.tokenIntervalMs));
+        stub.setErrorRate(Double.parseDouble(System.getProperty("stub.error-rate", String.valueOf(stub.errorRate))));
+        stub.setThrottleRate(Double.parseDouble(System.getProperty("stub.throttle-rate", String.valueOf(stub.throttleRate))));
+        stub.setRetryAfterSeconds(Integer.getInteger("stub.retry-after-seconds", stub.retryAfterSeconds));
+        return stub;
+    }
+
+    // port 0 picks a free port
+    public void start(int port) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        handlers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-llm-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            handlers.shutdownNow();
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1";
+    }
+
+    // The next count calls fail with status (429 comes with Retry-After), whatever the rates say
+    public void failNext(int count, int status) {
+        forcedStatus = status;
+        forcedFailures.set(count);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.sum());
+        stats.put("streamed", streamed.sum());
+        stats.put("errors", errors.sum());
+        stats.put("throttled", throttled.sum());
+        stats.put("maxInFlight", maxInFlight.get());
+        return stats;
+    }
+
+    public void setMedianMs(long medianMs) {
+        this.medianMs = medianMs;
+    }
+
+    public void setP99Ms(long p99Ms) {
+        this.p99Ms = p99Ms;
+    }
+
+    public void setTokenIntervalMs(long tokenIntervalMs) {
+        this.tokenIntervalMs = tokenIntervalMs;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"error\":{\"message\":\"POST only\"}}");
+                return;
+            }
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+
+            int status = failureStatus();
+            if (status == 429) {
+                throttled.increment();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                respond(exchange, 429, "{\"error\":{\"message\":\"Rate limit reached\",\"type\":\"requests\"}}");
+                return;
+            }
+
+            sleep(latencyMs());
+            if (status != 0) {
+                errors.increment();
+                respond(exchange, status, "{\"error\":{\"message\":\"Simulated upstream failure\",\"type\":\"server_error\"}}");
+                return;
+            }
+
+            String content = answer(request.path("messages"));
+            int promptTokens = Math.max(1, request.path("messages").toString().length() / 4);
+            int completionTokens = Math.max(1, content.length() / 4);
+            if (request.path("stream").asBoolean(false)) {
+                streamed.increment();
+                stream(exchange, request, content, promptTokens, completionTokens);
+            } else {
+                ObjectNode response = objectMapper.createObjectNode();
+                response.put("id", "chatcmpl-stub");
+                response.put("object", "chat.completion");
+                response.put("model", request.path("model").asText("stub"));
+                ObjectNode choice = response.putArray("choices").addObject();
+                choice.put("index", 0);
+                choice.putObject("message").put("role", "assistant").put("content", content);
+                choice.put("finish_reason", "stop");
+                usage(response, promptTokens, completionTokens);
+                respond(exchange, 200, objectMapper.writeValueAsString(response));
+            }
+        } finally {
+            exchange.close();
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void stream(HttpExchange exchange, JsonNode request, String content,
+                        int promptTokens, int completionTokens) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        String[] pieces = content.split("(?<= )");
+        for (String piece : pieces) {
+            ObjectNode chunk = objectMapper.createObjectNode();
+            ObjectNode choice = chunk.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.putObject("delta").put("content", piece);
+            choice.putNull("finish_reason");
+            event(out, objectMapper.writeValueAsString(chunk));
+            sleep(tokenIntervalMs);
+        }
+
+        ObjectNode last = objectMapper.createObjectNode();
+        ObjectNode choice = last.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("delta");
+        choice.put("finish_reason", "stop");
+        event(out, objectMapper.writeValueAsString(last));
+        if (request.path("stream_options").path("include_usage").asBoolean(false)) {
+            ObjectNode usage = objectMapper.createObjectNode();
+            usage.putArray("choices");
+            usage(usage, promptTokens, completionTokens);
+            event(out, objectMapper.writeValueAsString(usage));
+        }
+        event(out, "[DONE]");
+    }
+
+    private static void event(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void usage(ObjectNode response, int promptTokens, int completionTokens) {
+        response.putObject("usage")
+            .put("prompt_tokens", promptTokens)
+            .put("completion_tokens", completionTokens)
+            .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    // 0 = succeed
+    private int failureStatus() {
+        if (forcedFailures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            return forcedStatus;
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < throttleRate) {
+            return 429;
+        }
+        return roll < throttleRate + errorRate ? 500 : 0;
+    }
+
+    // Log-normal: median = e^mu, p99 = e^(mu + 2.326 sigma)
+    private long latencyMs() {
+        if (medianMs <= 0) {
+            return 0;
+        }
+        double mu = Math.log(medianMs);
+        double sigma = Math.max(0, (Math.log(Math.max(p99Ms, medianMs)) - mu) / 2.326);
+        return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    private String answer(JsonNode messages) throws IOException {
+        String system = "";
+        String user = "";
+        for (JsonNode message : messages) {
+            if ("system".equals(message.path("role").asText())) {
+                system = message.path("content").asText();
+            } else {
+                user = message.path("content").asText();
+            }
+        }
+
+        Random random = ThreadLocalRandom.current();
+        Matcher counts = EXACTLY.matcher(user);
+        int first = counts.find() ? Integer.parseInt(counts.group(1)) : 5;
+        int second = counts.find() ? Integer.parseInt(counts.group(1)) : 5;
+        if (system.contains("quiz generator")) {
+            return objectMapper.writeValueAsString(questions(first, random));
+        }
+        if (system.contains("flashcard generator")) {
+            return objectMapper.writeValueAsString(flashcards(first, random));
+        }
+        if (system.contains("study material")) {
+            ObjectNode studySet = objectMapper.createObjectNode();
+            studySet.put("summary", prose(8, random));
+            studySet.set("flashcards", flashcards(first, random));
+            studySet.set("questions", questions(second, random));
+            return objectMapper.writeValueAsString(studySet);
+        }
+        return prose(12, random);
+    }
+
+    private ArrayNode questions(int count, Random random) {
+        ArrayNode questions = objectMapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            ObjectNode question = questions.addObject();
+            question.put("question", "Which statement about " + words(6, random) + " is correct?");
+            ArrayNode options = question.putArray("options");
+            for (char letter = 'A'; letter <= 'D'; letter++) {
+                options.add(letter + ") " + words(3, random));
+            }
+            question.put("correctAnswer", String.valueOf((char) ('A' + random.nextInt(4))));
+            question.put("explanation", "The text links " + words(5, random) + ".");
+        }
+        return questions;
+    }
+
+    private ArrayNode flashcards(int count, Random random) {
+        ArrayNode cards = objectMapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            cards.addObject()
+                .put("front", "What connects " + words(5, random) + "?")
+                .put("back", prose(2, random));
+        }
+        return cards;
+    }
+
+    private static String prose(int sentences, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            String sentence = words(12, random);
+            text.append(Character.toUpperCase(sentence.charAt(0))).append(sentence, 1, sentence.length()).append(". ");
+        }
+        return text.toString().trim();
+    }
+
+    private static String words(int count, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
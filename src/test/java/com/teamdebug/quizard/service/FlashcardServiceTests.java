@@ -0,0 +1,115 @@
+package com.teamdebug.quizard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.dto.Flashcard;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.AiUnavailableException;
+import com.teamdebug.quizard.service.ai.BatchFanOut;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.generator.EnumerationGenerator;
+import com.teamdebug.quizard.service.generator.IdentificationGenerator;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FlashcardServiceTests {
+
+	private static final String TEXT = "Photosynthesis is the process plants use to turn sunlight into chemical energy. "
+			+ "Plant cells contain organelles such as chloroplasts, mitochondria, vacuoles and ribosomes. "
+			+ "Mitochondria release stored energy from glucose during respiration. "
+			+ "Transpiration moves water upward through the stems of tall plants.";
+
+	private final AiClient aiClient = mock(AiClient.class);
+	private final BatchFanOut batchFanOut = new BatchFanOut();
+
+	@AfterEach
+	void shutdown() {
+		batchFanOut.shutdown();
+	}
+
+	@Test
+	void fillsWhatTheAiCouldNotDeliverWithLocalCards() {
+		when(aiClient.chat(any(ChatRequest.class))).thenReturn(
+				"[{\"front\":\"What is photosynthesis?\",\"back\":\"Turning light into energy.\"}, {\"front\":\"\"}]",
+				"[]");
+
+		List<Flashcard> cards = newService().generateFlashcards(TEXT, 4);
+
+		assertThat(cards).hasSize(4);
+		assertThat(cards.get(0).getBack()).isEqualTo("Turning light into energy.");
+		// The local definition card asks the same question, so it is not repeated
+		assertThat(cards).extracting(Flashcard::getFront).doesNotHaveDuplicates()
+				.doesNotContain("What is Photosynthesis?")
+				.contains("Name the 4 items: Plant cells contain organelles such as ...");
+	}
+
+	@Test
+	void aFailedStreamFallsBackToLocalCardsBeforeAnythingWasSent() {
+		when(aiClient.streamChat(any(ChatRequest.class), any())).thenReturn(
+				CompletableFuture.failedFuture(new AiUnavailableException("AI provider circuit is open")));
+		List<Flashcard> streamed = new ArrayList<>();
+
+		int delivered = newService().streamFlashcards(TEXT, 3, false, streamed::add).join();
+
+		assertThat(delivered).isEqualTo(3);
+		assertThat(streamed).hasSize(3).extracting(Flashcard::getFront)
+				.contains("Name the 4 items: Plant cells contain organelles such as ...");
+	}
+
+	@Test
+	void aBugIsReportedInsteadOfHiddenBehindLocalCards() {
+		when(aiClient.chat(any(ChatRequest.class))).thenThrow(new IllegalStateException("bug"));
+		when(aiClient.streamChat(any(ChatRequest.class), any())).thenReturn(
+				CompletableFuture.failedFuture(new IllegalStateException("bug")));
+		FlashcardService service = newService();
+
+		assertThatThrownBy(() -> service.generateFlashcards(TEXT, 3)).hasMessageContaining("bug");
+		assertThatThrownBy(() -> service.streamFlashcards(TEXT, 3, false, card -> { }).join())
+				.hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	private FlashcardService newService() {
+		TokenCounter tokenCounter = new TokenCounter();
+		TokenBudgetPlanner planner = new TokenBudgetPlanner();
+		ReflectionTestUtils.setField(planner, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(planner, "contextWindow", 16385);
+		ReflectionTestUtils.setField(planner, "maxOutputTokens", 4096);
+		ReflectionTestUtils.setField(planner, "safetyMargin", 64);
+
+		ReflectionTestUtils.setField(batchFanOut, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(batchFanOut, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(batchFanOut, "batchSize", 15);
+		ReflectionTestUtils.setField(batchFanOut, "sectionTokens", 3000);
+		ReflectionTestUtils.setField(batchFanOut, "parallelism", 1);
+		ReflectionTestUtils.setField(batchFanOut, "maxAttempts", 1);
+		ReflectionTestUtils.setField(batchFanOut, "maxRounds", 1);
+		ReflectionTestUtils.setField(batchFanOut, "similarityThreshold", 0.7);
+		batchFanOut.init();
+
+		FlashcardService service = new FlashcardService();
+		ReflectionTestUtils.setField(service, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(service, "aiClient", aiClient);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(service, "budgetPlanner", planner);
+		ReflectionTestUtils.setField(service, "batchFanOut", batchFanOut);
+		ReflectionTestUtils.setField(service, "identificationGenerator", new IdentificationGenerator());
+		ReflectionTestUtils.setField(service, "enumerationGenerator", new EnumerationGenerator());
+		ReflectionTestUtils.setField(service, "maxItems", 500);
+		return service;
+	}
+}
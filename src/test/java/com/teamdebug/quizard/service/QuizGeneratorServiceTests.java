@@ -0,0 +1,115 @@
+package com.teamdebug.quizard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.AiUnavailableException;
+import com.teamdebug.quizard.service.ai.BatchFanOut;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.generator.MultipleChoiceGenerator;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuizGeneratorServiceTests {
+
+	private static final String OPTIONS = "\"options\":[\"A) a\",\"B) b\",\"C) c\",\"D) d\"],\"correctAnswer\":\"A\"";
+
+	private final AiClient aiClient = mock(AiClient.class);
+	private final TokenCounter tokenCounter = new TokenCounter();
+	private final BatchFanOut batchFanOut = new BatchFanOut();
+
+	@AfterEach
+	void shutdown() {
+		batchFanOut.shutdown();
+	}
+
+	@Test
+	void keepsValidQuestionsAndRequestsOnlyTheMissingOnes() {
+		when(aiClient.chat(any(ChatRequest.class))).thenReturn(
+				"[{\"question\":\"What is a cell?\"," + OPTIONS + "},"
+						+ " {\"question\":\"Only two options?\",\"options\":[\"A) a\",\"B) b\"],\"correctAnswer\":\"A\"},"
+						+ " {\"question\": \"Broken \"quote\"\"," + OPTIONS + "},"
+						+ " {\"question\":\"What is a gene?\"," + OPTIONS + "}]",
+				"[{\"question\":\"Which organelle makes ATP?\"," + OPTIONS + "},"
+						+ " {\"question\":\"How do enzymes speed up reactions?\"," + OPTIONS + "}]");
+
+		List<QuizQuestion> questions = newService().generateQuiz("Cells contain genes and organelles.", 4, "easy", false);
+
+		assertThat(questions).extracting(QuizQuestion::getQuestion).containsExactly(
+				"What is a cell?", "What is a gene?", "Which organelle makes ATP?", "How do enzymes speed up reactions?");
+
+		ArgumentCaptor<ChatRequest> requests = ArgumentCaptor.forClass(ChatRequest.class);
+		verify(aiClient, times(2)).chat(requests.capture());
+		ChatRequest topUp = requests.getAllValues().get(1);
+		assertThat(topUp.getMessages().get(1).getContent()).startsWith("Create exactly 2 multiple-choice");
+		assertThat(topUp.isBypassCache()).isTrue();
+	}
+
+	@Test
+	void failsOverToLocalQuestionsWhenTheProviderIsUnavailable() {
+		when(aiClient.chat(any(ChatRequest.class))).thenThrow(new AiUnavailableException("AI provider circuit is open"));
+		String text = "Mitochondria produce energy for the cell through respiration. "
+				+ "Ribosomes assemble proteins from amino acids. "
+				+ "The nucleus stores genetic information inside chromosomes. "
+				+ "Chloroplasts capture sunlight during photosynthesis.";
+
+		QuizGeneratorService service = newService();
+		List<QuizQuestion> questions = service.generateQuiz(text, 3, "easy", false);
+
+		assertThat(questions).hasSize(3);
+		for (QuizQuestion question : questions) {
+			assertThat(question.getQuestion()).startsWith("Complete the sentence: ").contains("________");
+			assertThat(question.getOptions()).hasSize(4);
+			int answer = question.getCorrectAnswer().charAt(0) - 'A';
+			String option = question.getOptions().get(answer).substring(3);
+			assertThat(question.getExplanation()).contains(option);
+		}
+		assertThat(service.generateQuiz(text, 3, "easy", false))
+				.extracting(QuizQuestion::getQuestion)
+				.isEqualTo(questions.stream().map(QuizQuestion::getQuestion).toList());
+	}
+
+	private QuizGeneratorService newService() {
+		TokenBudgetPlanner planner = new TokenBudgetPlanner();
+		ReflectionTestUtils.setField(planner, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(planner, "contextWindow", 16385);
+		ReflectionTestUtils.setField(planner, "maxOutputTokens", 4096);
+		ReflectionTestUtils.setField(planner, "safetyMargin", 64);
+
+		ReflectionTestUtils.setField(batchFanOut, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(batchFanOut, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(batchFanOut, "batchSize", 15);
+		ReflectionTestUtils.setField(batchFanOut, "sectionTokens", 3000);
+		ReflectionTestUtils.setField(batchFanOut, "parallelism", 1);
+		ReflectionTestUtils.setField(batchFanOut, "maxAttempts", 1);
+		ReflectionTestUtils.setField(batchFanOut, "maxRounds", 1);
+		ReflectionTestUtils.setField(batchFanOut, "similarityThreshold", 0.7);
+		batchFanOut.init();
+
+		QuizGeneratorService service = new QuizGeneratorService();
+		ReflectionTestUtils.setField(service, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(service, "aiClient", aiClient);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(service, "budgetPlanner", planner);
+		ReflectionTestUtils.setField(service, "batchFanOut", batchFanOut);
+		ReflectionTestUtils.setField(service, "multipleChoiceGenerator", new MultipleChoiceGenerator());
+		ReflectionTestUtils.setField(service, "maxItems", 500);
+		return service;
+	}
+}
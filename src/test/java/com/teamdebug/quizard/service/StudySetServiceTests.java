@@ -0,0 +1,184 @@
+package com.teamdebug.quizard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.dto.Flashcard;
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.model.dto.StudySetResponse;
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.BatchFanOut;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.generator.MultipleChoiceGenerator;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StudySetServiceTests {
+
+	private static final String TEXT = "Mitochondria produce ATP. Ribosomes build proteins.";
+
+	private final PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+	private final AiClient aiClient = mock(AiClient.class);
+	private final FlashcardService flashcardService = new FlashcardService();
+	private final QuizGeneratorService quizGeneratorService = new QuizGeneratorService();
+	private final SummaryService summaryService = mock(SummaryService.class);
+	private final BatchFanOut batchFanOut = newFanOut();
+
+	@AfterEach
+	void shutdown() {
+		batchFanOut.shutdown();
+	}
+
+	@Test
+	void splitsOneCombinedAnswerIntoSummaryFlashcardsAndQuestions() {
+		when(aiClient.chat(any(ChatRequest.class))).thenReturn("""
+				```json
+				{
+				  "summary": "Cells have organelles.",
+				  "flashcards": [
+				    {"front": "Mitochondria?", "back": "Produce ATP"},
+				    {"front": "", "back": "Missing front is dropped"},
+				    {"front": "Ribosomes?", "back": "Build proteins"}
+				  ],
+				  "questions": [
+				    {"question": "What makes ATP?", "options": ["A) Mitochondria", "B) Ribosomes", "C) Nucleus", "D) Wall"],
+				     "correctAnswer": "A", "explanation": "Mitochondria produce ATP"}
+				  ]
+				}
+				```""");
+
+		StudySetResponse response = newService().generateStudySet(TEXT, 2, 1, "easy", false);
+
+		assertThat(response.getSummary().getSummary()).isEqualTo("Cells have organelles.");
+		assertThat(response.getFlashcards()).extracting(Flashcard::getFront).containsExactly("Mitochondria?", "Ribosomes?");
+		assertThat(response.getQuestions()).hasSize(1);
+		verify(aiClient, times(1)).chat(any(ChatRequest.class));
+		verify(summaryService, never()).summarize(anyString(), anyBoolean());
+	}
+
+	@Test
+	void generatesOnlyTheMissingPartSeparately() {
+		when(aiClient.chat(any(ChatRequest.class))).thenReturn("""
+				{"flashcards": [{"front": "Mitochondria?", "back": "Produce ATP"}],
+				 "questions": [{"question": "What makes ATP?", "options": ["A) a", "B) b", "C) c", "D) d"], "correctAnswer": "A"}]}
+				""");
+		when(summaryService.summarize(TEXT, false)).thenReturn("Separate summary");
+
+		StudySetResponse response = newService().generateStudySet(TEXT, 1, 1, "easy", false);
+
+		assertThat(response.getSummary().getSummary()).isEqualTo("Separate summary");
+		assertThat(response.getFlashcards()).hasSize(1);
+		verify(aiClient, times(1)).chat(any(ChatRequest.class));
+	}
+
+	@Test
+	void sendsASetTooLargeForOneAnswerStraightToTheSeparateServices() {
+		FlashcardService flashcards = mock(FlashcardService.class);
+		QuizGeneratorService quiz = mock(QuizGeneratorService.class);
+		when(summaryService.summarize(TEXT, false)).thenReturn("Separate summary");
+		when(flashcards.generateFlashcards(TEXT, 30, false)).thenReturn(List.of(new Flashcard("Mitochondria?", "Produce ATP")));
+		when(quiz.generateQuiz(TEXT, 30, "easy", false)).thenReturn(List.of());
+		StudySetService service = newService();
+		ReflectionTestUtils.setField(service, "flashcardService", flashcards);
+		ReflectionTestUtils.setField(service, "quizGeneratorService", quiz);
+
+		// 30 cards and 30 questions need more than the 4096-token answer cap
+		StudySetResponse response = service.generateStudySet(TEXT, 30, 30, "easy", false);
+
+		assertThat(response.getSummary().getSummary()).isEqualTo("Separate summary");
+		assertThat(response.getFlashcards()).hasSize(1);
+		verify(aiClient, never()).chat(any(ChatRequest.class));
+		verify(quiz).generateQuiz(TEXT, 30, "easy", false);
+	}
+
+	@Test
+	void topsUpAShortCombinedAnswerWithOnlyTheMissingQuestions() {
+		String options = "\"options\": [\"A) a\", \"B) b\", \"C) c\", \"D) d\"], \"correctAnswer\": \"A\"";
+		when(aiClient.chat(any(ChatRequest.class))).thenReturn(
+				"{\"summary\": \"Cells have organelles.\","
+						+ " \"flashcards\": [{\"front\": \"Mitochondria?\", \"back\": \"Produce ATP\"}],"
+						+ " \"questions\": [{\"question\": \"What makes ATP?\", " + options + "},"
+						+ " {\"question\": \"What builds proteins?\", " + options + "}]}",
+				"[{\"question\": \"Where is DNA kept?\", " + options + "},"
+						+ " {\"question\": \"What is a ribosome made of?\", " + options + "},"
+						+ " {\"question\": \"Which organelle is the powerhouse?\", " + options + "}]");
+		wire(quizGeneratorService);
+
+		StudySetResponse response = newService().generateStudySet(TEXT, 1, 5, "easy", false);
+
+		assertThat(response.getQuestions()).extracting(QuizQuestion::getQuestion).containsExactly(
+				"What makes ATP?", "What builds proteins?",
+				"Where is DNA kept?", "What is a ribosome made of?", "Which organelle is the powerhouse?");
+		ArgumentCaptor<ChatRequest> requests = ArgumentCaptor.forClass(ChatRequest.class);
+		verify(aiClient, times(2)).chat(requests.capture());
+		ChatRequest topUp = requests.getAllValues().get(1);
+		assertThat(topUp.getMessages().get(1).getContent()).startsWith("Create exactly 3 multiple-choice")
+				.contains("- What makes ATP?");
+		verify(summaryService, never()).summarize(anyString(), anyBoolean());
+	}
+
+	private void wire(QuizGeneratorService service) {
+		TokenCounter tokenCounter = new TokenCounter();
+		ReflectionTestUtils.setField(service, "aiClient", aiClient);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(service, "budgetPlanner", planner(tokenCounter));
+		ReflectionTestUtils.setField(service, "batchFanOut", batchFanOut);
+		ReflectionTestUtils.setField(service, "multipleChoiceGenerator", new MultipleChoiceGenerator());
+		ReflectionTestUtils.setField(service, "pipelineMetrics", pipelineMetrics);
+		ReflectionTestUtils.setField(service, "maxItems", 500);
+	}
+
+	private BatchFanOut newFanOut() {
+		BatchFanOut fanOut = new BatchFanOut();
+		ReflectionTestUtils.setField(fanOut, "pipelineMetrics", pipelineMetrics);
+		ReflectionTestUtils.setField(fanOut, "tokenCounter", new TokenCounter());
+		ReflectionTestUtils.setField(fanOut, "batchSize", 15);
+		ReflectionTestUtils.setField(fanOut, "sectionTokens", 3000);
+		ReflectionTestUtils.setField(fanOut, "parallelism", 1);
+		ReflectionTestUtils.setField(fanOut, "maxAttempts", 1);
+		ReflectionTestUtils.setField(fanOut, "maxRounds", 1);
+		ReflectionTestUtils.setField(fanOut, "similarityThreshold", 0.7);
+		fanOut.init();
+		return fanOut;
+	}
+
+	private static TokenBudgetPlanner planner(TokenCounter tokenCounter) {
+		TokenBudgetPlanner planner = new TokenBudgetPlanner();
+		ReflectionTestUtils.setField(planner, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(planner, "contextWindow", 16385);
+		ReflectionTestUtils.setField(planner, "maxOutputTokens", 4096);
+		ReflectionTestUtils.setField(planner, "safetyMargin", 64);
+		return planner;
+	}
+
+	private StudySetService newService() {
+		TokenCounter tokenCounter = new TokenCounter();
+		StudySetService service = new StudySetService();
+		ReflectionTestUtils.setField(service, "aiClient", aiClient);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(service, "budgetPlanner", planner(tokenCounter));
+		ReflectionTestUtils.setField(service, "summaryService", summaryService);
+		ReflectionTestUtils.setField(service, "flashcardService", flashcardService);
+		ReflectionTestUtils.setField(service, "quizGeneratorService", quizGeneratorService);
+		ReflectionTestUtils.setField(service, "pipelineMetrics", pipelineMetrics);
+		return service;
+	}
+}
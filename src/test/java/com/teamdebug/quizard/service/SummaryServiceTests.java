@@ -0,0 +1,93 @@
+package com.teamdebug.quizard.service;
+
+import com.teamdebug.quizard.service.ai.AiClient;
+import com.teamdebug.quizard.service.ai.ChatRequest;
+import com.teamdebug.quizard.service.ai.TokenBudgetPlanner;
+import com.teamdebug.quizard.service.ai.TokenCounter;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SummaryServiceTests {
+
+	private static final Pattern PARAGRAPH = Pattern.compile("Paragraph (\\d+) ");
+	private static final Pattern PART = Pattern.compile("\nPart \\d+:\n(.*)\n");
+
+	private final AiClient aiClient = mock(AiClient.class);
+	private final Queue<String> prompts = new ConcurrentLinkedQueue<>();
+	private SummaryService service;
+
+	@AfterEach
+	void shutdown() {
+		if (service != null) {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void mapsEveryChunkAndMergesInOrderedRounds() {
+		// Chunk summaries are "S<n>"; a merge answers "(" + its parts joined by "+" + ")"
+		when(aiClient.chat(any(ChatRequest.class))).thenAnswer(invocation -> {
+			String prompt = ((ChatRequest) invocation.getArgument(0)).getMessages().get(0).getContent();
+			prompts.add(prompt);
+			Matcher paragraph = PARAGRAPH.matcher(prompt);
+			if (prompt.startsWith("This is part") && paragraph.find()) {
+				return "S" + paragraph.group(1);
+			}
+			List<String> parts = new ArrayList<>();
+			Matcher part = PART.matcher(prompt);
+			while (part.find()) {
+				parts.add(part.group(1));
+			}
+			return "(" + String.join("+", parts) + ")";
+		});
+		StringBuilder text = new StringBuilder();
+		for (int i = 1; i <= 10; i++) {
+			text.append("Paragraph ").append(i).append(" explains one more idea about cells in plain words.\n\n");
+		}
+
+		String summary = newService().summarize(text.toString());
+
+		// Ten chunks; fan-in 3 merges them into four, then two, then one final answer
+		assertThat(prompts).filteredOn(prompt -> prompt.startsWith("This is part")).hasSize(10)
+				.allMatch(prompt -> prompt.contains(" of 10 of a longer document"));
+		assertThat(prompts).filteredOn(prompt -> prompt.contains("consecutive parts")).hasSize(4);
+		assertThat(prompts).filteredOn(prompt -> prompt.contains("into a single comprehensive summary")).hasSize(1);
+		assertThat(summary).isEqualTo("(((S1+S2+S3)+(S4+S5+S6)+(S7+S8+S9))+S10)");
+	}
+
+	private SummaryService newService() {
+		TokenCounter tokenCounter = new TokenCounter();
+		TokenBudgetPlanner planner = new TokenBudgetPlanner();
+		ReflectionTestUtils.setField(planner, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(planner, "contextWindow", 16385);
+		ReflectionTestUtils.setField(planner, "maxOutputTokens", 4096);
+		ReflectionTestUtils.setField(planner, "safetyMargin", 64);
+
+		service = new SummaryService();
+		ReflectionTestUtils.setField(service, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(service, "aiClient", aiClient);
+		ReflectionTestUtils.setField(service, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(service, "budgetPlanner", planner);
+		ReflectionTestUtils.setField(service, "singlePassTokens", 100);
+		ReflectionTestUtils.setField(service, "chunkTokens", 20);
+		ReflectionTestUtils.setField(service, "parallelism", 4);
+		ReflectionTestUtils.setField(service, "mergeFanIn", 3);
+		service.init();
+		return service;
+	}
+}
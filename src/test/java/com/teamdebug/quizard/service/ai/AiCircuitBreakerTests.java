@@ -0,0 +1,88 @@
+package com.teamdebug.quizard.service.ai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiCircuitBreakerTests {
+
+	@Test
+	void opensOnceTheFailureRateReachesTheThreshold() {
+		AiCircuitBreaker breaker = newBreaker(60_000);
+
+		for (int i = 0; i < 5; i++) {
+			breaker.acquire();
+			breaker.onSuccess();
+		}
+		for (int i = 0; i < 4; i++) {
+			breaker.acquire();
+			breaker.onFailure();
+		}
+		// Ignored outcomes say nothing about the provider
+		breaker.acquire();
+		breaker.onIgnored();
+		assertThat(breaker.getState()).isEqualTo(AiCircuitBreaker.State.CLOSED);
+
+		breaker.acquire();
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(AiCircuitBreaker.State.OPEN);
+		assertThatThrownBy(breaker::acquire).isInstanceOf(AiUnavailableException.class);
+		assertThat(breaker.getStats().get("refused")).isEqualTo(1L);
+	}
+
+	@Test
+	void staysClosedBelowTheMinimumNumberOfCalls() {
+		AiCircuitBreaker breaker = newBreaker(60_000);
+
+		for (int i = 0; i < 9; i++) {
+			breaker.acquire();
+			breaker.onFailure();
+		}
+		assertThat(breaker.getState()).isEqualTo(AiCircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void closesAfterSuccessfulTrialsAndReopensOnAFailedOne() throws Exception {
+		AiCircuitBreaker breaker = newBreaker(10);
+		trip(breaker);
+		Thread.sleep(20);
+
+		// Only half-open-calls trials at a time
+		breaker.acquire();
+		breaker.acquire();
+		assertThat(breaker.getState()).isEqualTo(AiCircuitBreaker.State.HALF_OPEN);
+		assertThatThrownBy(breaker::acquire).isInstanceOf(AiUnavailableException.class);
+		breaker.onSuccess();
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(AiCircuitBreaker.State.OPEN);
+
+		Thread.sleep(20);
+		breaker.acquire();
+		breaker.onSuccess();
+		breaker.acquire();
+		breaker.onSuccess();
+		assertThat(breaker.getState()).isEqualTo(AiCircuitBreaker.State.CLOSED);
+		assertThat(breaker.getStats().get("timesOpened")).isEqualTo(2L);
+	}
+
+	private static void trip(AiCircuitBreaker breaker) {
+		for (int i = 0; i < 10; i++) {
+			breaker.acquire();
+			breaker.onFailure();
+		}
+		assertThat(breaker.getState()).isEqualTo(AiCircuitBreaker.State.OPEN);
+	}
+
+	private static AiCircuitBreaker newBreaker(long openMs) {
+		AiCircuitBreaker breaker = new AiCircuitBreaker();
+		ReflectionTestUtils.setField(breaker, "enabled", true);
+		ReflectionTestUtils.setField(breaker, "windowSize", 20);
+		ReflectionTestUtils.setField(breaker, "minimumCalls", 10);
+		ReflectionTestUtils.setField(breaker, "failureRateThreshold", 50);
+		ReflectionTestUtils.setField(breaker, "openMs", openMs);
+		ReflectionTestUtils.setField(breaker, "halfOpenCalls", 2);
+		return breaker;
+	}
+}
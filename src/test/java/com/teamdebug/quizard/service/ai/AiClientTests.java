@@ -0,0 +1,321 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.teamdebug.quizard.loadtest.StubLlmServer;
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import com.teamdebug.quizard.service.QuizGeneratorService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+class AiClientTests {
+
+	private static final StubLlmServer stub = startStub();
+
+	@Autowired
+	private AiClient aiClient;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private QuizGeneratorService quizGeneratorService;
+
+	@DynamicPropertySource
+	static void aiProperties(DynamicPropertyRegistry registry) {
+		registry.add("quizard.ai.base-url", stub::getBaseUrl);
+		registry.add("quizard.ai.retry.base-delay-ms", () -> 10);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stub.close();
+	}
+
+	@Test
+	void retriesAThrottledCallAndReturnsTheAnswer() {
+		long before = requests();
+		stub.failNext(1, 429);
+
+		String content = aiClient.chat(quizRequest());
+
+		assertThat(content).startsWith("[").contains("\"correctAnswer\"");
+		assertThat(requests() - before).isEqualTo(2);
+	}
+
+	@Test
+	void mapsAClientErrorToItsStatusWithoutRetrying() {
+		long before = requests();
+		stub.failNext(1, 400);
+
+		assertThatThrownBy(() -> aiClient.chat(quizRequest()))
+				.isInstanceOfSatisfying(AiServiceException.class, e -> assertThat(e.getStatusCode()).isEqualTo(400))
+				.hasMessageContaining("HTTP 400");
+		assertThat(requests() - before).isEqualTo(1);
+	}
+
+	@Test
+	void givesUpOnServerErrorsAfterMaxAttemptsWithTheLastStatus() {
+		long before = requests();
+		stub.failNext(3, 500);
+
+		assertThatThrownBy(() -> aiClient.chat(quizRequest()))
+				.isInstanceOfSatisfying(AiServiceException.class, e -> assertThat(e.getStatusCode()).isEqualTo(500));
+		assertThat(requests() - before).isEqualTo(3);
+	}
+
+	@Test
+	void readsRetryAfterInMillisSecondsOrAsADate() {
+		assertThat(AiClient.retryAfterMs(headers(Map.of("retry-after-ms", "250", "retry-after", "9")))).isEqualTo(250);
+		assertThat(AiClient.retryAfterMs(headers(Map.of("retry-after", "1.5")))).isEqualTo(1500);
+		String inAMinute = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+		assertThat(AiClient.retryAfterMs(headers(Map.of("retry-after", inAMinute)))).isBetween(50_000L, 60_000L);
+		assertThat(AiClient.retryAfterMs(headers(Map.of("retry-after", "soon")))).isZero();
+		assertThat(AiClient.retryAfterMs(headers(Map.of()))).isZero();
+	}
+
+	@Test
+	void identicalConcurrentRequestsShareOneUpstreamCall() throws Exception {
+		ChatRequest request = sharedRequest();
+		long before = requests();
+		long coalescedBefore = coalesced();
+
+		List<Future<String>> answers = slowly(() -> runTogether(6, () -> aiClient.chat(request)));
+
+		assertThat(requests() - before).isEqualTo(1);
+		assertThat(coalesced() - coalescedBefore).isEqualTo(5);
+		assertThat(answers.stream().map(this::get).distinct()).hasSize(1);
+	}
+
+	@Test
+	void aFailedSharedCallFailsEveryWaiter() throws Exception {
+		ChatRequest request = sharedRequest();
+		long before = requests();
+		stub.failNext(1, 400);
+
+		List<Future<String>> answers = slowly(() -> runTogether(4, () -> aiClient.chat(request)));
+
+		assertThat(requests() - before).isEqualTo(1);
+		for (Future<String> answer : answers) {
+			assertThatThrownBy(answer::get).hasCauseInstanceOf(AiServiceException.class)
+					.cause().hasMessageContaining("HTTP 400");
+		}
+	}
+
+	@Test
+	void aSharedCallTurnedAwayStaysUnavailableForEveryWaiter() throws Exception {
+		AiCircuitBreaker open = mock(AiCircuitBreaker.class);
+		doThrow(new AiUnavailableException("AI circuit breaker is open")).when(open).acquire();
+		Object breaker = ReflectionTestUtils.getField(aiClient, "circuitBreaker");
+		ReflectionTestUtils.setField(aiClient, "circuitBreaker", open);
+		try {
+			ChatRequest request = sharedRequest();
+			long before = requests();
+
+			List<Future<String>> answers = runTogether(3, () -> aiClient.chat(request));
+
+			assertThat(requests() - before).isZero();
+			for (Future<String> answer : answers) {
+				assertThatThrownBy(answer::get).hasCauseInstanceOf(AiUnavailableException.class);
+			}
+		} finally {
+			ReflectionTestUtils.setField(aiClient, "circuitBreaker", breaker);
+		}
+	}
+
+	@Test
+	void oneWaiterGivingUpLeavesTheOthersTheirAnswer() throws Exception {
+		ChatRequest request = sharedRequest();
+		long before = requests();
+
+		List<String> answers = slowly(() -> {
+			ExecutorService callers = Executors.newFixedThreadPool(2);
+			try {
+				Future<String> quitter = callers.submit(() -> aiClient.chat(request));
+				Future<String> patient = callers.submit(() -> aiClient.chat(request));
+				Thread.sleep(100);
+				// Interrupting the waiter is what a caller's own deadline does too
+				quitter.cancel(true);
+				return List.of(patient.get(10, TimeUnit.SECONDS));
+			} finally {
+				callers.shutdownNow();
+			}
+		});
+
+		assertThat(answers.get(0)).contains("\"question\"");
+		assertThat(requests() - before).isEqualTo(1);
+	}
+
+	@Test
+	void fannedOutBatchesOnOneSectionEachReachTheProvider() {
+		// One short section, 100 questions: seven batches share it
+		String text = "Cells are the basic unit of life, studied in " + UUID.randomUUID() + ".";
+		long before = requests();
+		long coalescedBefore = coalesced();
+		long hitsBefore = cacheHits();
+
+		List<QuizQuestion> questions = quizGeneratorService.generateQuiz(text, 100, "easy", false);
+
+		assertThat(requests() - before).isGreaterThanOrEqualTo(7);
+		assertThat(coalesced() - coalescedBefore).isZero();
+		assertThat(cacheHits() - hitsBefore).isZero();
+		assertThat(questions).hasSize(100);
+	}
+
+	@Test
+	void streamsDeltasAsTheyArrive() throws Exception {
+		StringBuilder deltas = new StringBuilder();
+		String content = aiClient.streamChat(quizRequest(), deltas::append).get(10, TimeUnit.SECONDS);
+
+		assertThat(content).isEqualTo(deltas.toString()).contains("\"question\"");
+		@SuppressWarnings("unchecked")
+		Map<String, Object> tokens = (Map<String, Object>) aiClient.getStats().get("tokens");
+		assertThat((long) tokens.get("completionTokens")).isPositive();
+	}
+
+	@Test
+	void recordsLatencyAndTokensPerServiceAndModel() {
+		ChatRequest request = quizRequest();
+		request.setCaller("quiz");
+
+		aiClient.chat(request);
+
+		Timer calls = meterRegistry.find("quizard.ai.requests")
+				.tags("service", "quiz", "model", "gpt-3.5-turbo", "outcome", "success").timer();
+		assertThat(calls).isNotNull();
+		assertThat(calls.count()).isPositive();
+		assertThat(meterRegistry.get("quizard.ai.tokens").tags("service", "quiz", "type", "completion")
+				.counter().count()).isPositive();
+		// Every admitted call records its queue wait, even when it did not have to wait
+		assertThat(meterRegistry.get("quizard.ai.limiter.wait").tag("outcome", "admitted").timer().count())
+				.isPositive();
+	}
+
+	private static ChatRequest quizRequest() {
+		ChatRequest request = new ChatRequest("gpt-3.5-turbo", List.of(
+				ChatMessage.system("You are a quiz generator."),
+				ChatMessage.user("Create exactly 2 multiple-choice quiz questions")), 500, 0.7);
+		request.setBypassCache(true);
+		return request;
+	}
+
+	// Same prompt for every caller of one test, new per test, and cacheable
+	private static ChatRequest sharedRequest() {
+		ChatRequest request = quizRequest();
+		request.setMessages(List.of(ChatMessage.system("You are a quiz generator."),
+				ChatMessage.user("Create exactly 2 multiple-choice quiz questions about " + UUID.randomUUID())));
+		request.setBypassCache(false);
+		return request;
+	}
+
+	// Slows the stub down so that concurrent callers overlap with the one upstream call
+	private static <T> T slowly(Callable<T> test) throws Exception {
+		stub.setMedianMs(400);
+		stub.setP99Ms(400);
+		try {
+			return test.call();
+		} finally {
+			stub.setMedianMs(5);
+			stub.setP99Ms(20);
+		}
+	}
+
+	private static List<Future<String>> runTogether(int callers, Callable<String> call) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<String>> answers = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				answers.add(pool.submit(() -> {
+					start.await();
+					return call.call();
+				}));
+			}
+			start.countDown();
+			for (Future<String> answer : answers) {
+				try {
+					answer.get(10, TimeUnit.SECONDS);
+				} catch (ExecutionException e) {
+					// checked by the caller
+				}
+			}
+			return answers;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private String get(Future<String> answer) {
+		try {
+			return answer.get();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private long cacheHits() {
+		Map<String, Long> cache = (Map<String, Long>) aiClient.getStats().get("cache");
+		return cache.get("memoryHits") + cache.get("diskHits");
+	}
+
+	private long coalesced() {
+		return (long) aiClient.getStats().get("coalesced");
+	}
+
+	private static HttpHeaders headers(Map<String, String> values) {
+		Map<String, List<String>> multi = new HashMap<>();
+		values.forEach((name, value) -> multi.put(name, List.of(value)));
+		return HttpHeaders.of(multi, (name, value) -> true);
+	}
+
+	private static long requests() {
+		return (long) stub.getStats().get("requests");
+	}
+
+	private static StubLlmServer startStub() {
+		StubLlmServer server = new StubLlmServer();
+		server.setMedianMs(5);
+		server.setP99Ms(20);
+		server.setTokenIntervalMs(0);
+		server.setErrorRate(0);
+		server.setThrottleRate(0);
+		server.setRetryAfterSeconds(0);
+		try {
+			server.start(0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return server;
+	}
+}
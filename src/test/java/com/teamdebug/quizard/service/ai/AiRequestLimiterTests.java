@@ -0,0 +1,113 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiRequestLimiterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void shrinksOnOverloadAndGrowsBackWhileCallsSucceed() {
+		AiRequestLimiter limiter = newLimiter(1000, 1_000_000, 8);
+
+		limiter.acquire(100, deadlineIn(1000)).release(AiRequestLimiter.Outcome.OVERLOADED, 0);
+		assertThat(limiter.getStats().get("concurrencyLimit")).isEqualTo(5);
+
+		for (int i = 0; i < 40; i++) {
+			// Keep a few calls in flight so the limit counts as used
+			AiRequestLimiter.Permit first = limiter.acquire(100, deadlineIn(1000));
+			AiRequestLimiter.Permit second = limiter.acquire(100, deadlineIn(1000));
+			AiRequestLimiter.Permit third = limiter.acquire(100, deadlineIn(1000));
+			first.release(AiRequestLimiter.Outcome.SUCCESS, 0);
+			second.release(AiRequestLimiter.Outcome.SUCCESS, 0);
+			third.release(AiRequestLimiter.Outcome.SUCCESS, 0);
+		}
+		assertThat((int) limiter.getStats().get("concurrencyLimit")).isGreaterThan(5);
+	}
+
+	@Test
+	void queuesUntilASlotFreesAndRejectsPastTheDeadline() throws Exception {
+		AiRequestLimiter limiter = newLimiter(1000, 1_000_000, 1);
+		AiRequestLimiter.Permit held = limiter.acquire(100, deadlineIn(1000));
+
+		assertThatThrownBy(() -> limiter.acquire(100, deadlineIn(50)))
+				.isInstanceOf(AiServiceException.class)
+				.hasMessageContaining("waiting");
+
+		Thread releaser = new Thread(() -> {
+			sleep(100);
+			held.release(AiRequestLimiter.Outcome.SUCCESS, 0);
+		});
+		releaser.start();
+		limiter.acquire(100, deadlineIn(2000)).release(AiRequestLimiter.Outcome.SUCCESS, 0);
+		releaser.join();
+
+		Map<String, Object> stats = limiter.getStats();
+		assertThat(stats.get("rejected")).isEqualTo(1L);
+		assertThat(stats.get("admitted")).isEqualTo(2L);
+		assertThat((long) stats.get("queueWaitMsMax")).isGreaterThanOrEqualTo(50L);
+		assertThat(meterRegistry.get("quizard.ai.limiter.wait").tag("outcome", "admitted").timer().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("quizard.ai.limiter.wait").tag("outcome", "rejected").timer()
+				.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+	}
+
+	@Test
+	void holdsRequestsBackUntilTheTokenBudgetRefills() {
+		// 6000 tokens a minute refills 100 tokens a second
+		AiRequestLimiter limiter = newLimiter(1000, 6000, 4);
+		limiter.acquire(5950, deadlineIn(1000)).release(AiRequestLimiter.Outcome.SUCCESS, 0);
+
+		long start = System.nanoTime();
+		limiter.acquire(100, deadlineIn(5000)).release(AiRequestLimiter.Outcome.SUCCESS, 0);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(400);
+	}
+
+	@Test
+	void readsRetryAfterInSecondsOrMilliseconds() {
+		assertThat(AiClient.retryAfterMs(headers(Map.of("retry-after", List.of("2"))))).isEqualTo(2000);
+		assertThat(AiClient.retryAfterMs(headers(Map.of("retry-after-ms", List.of("350"))))).isEqualTo(350);
+		assertThat(AiClient.retryAfterMs(headers(Map.of()))).isZero();
+	}
+
+	private AiRequestLimiter newLimiter(int requestsPerMinute, int tokensPerMinute, int concurrency) {
+		AiRequestLimiter limiter = new AiRequestLimiter();
+		ReflectionTestUtils.setField(limiter, "pipelineMetrics", new PipelineMetrics(meterRegistry));
+		ReflectionTestUtils.setField(limiter, "requestsPerMinute", requestsPerMinute);
+		ReflectionTestUtils.setField(limiter, "tokensPerMinute", tokensPerMinute);
+		ReflectionTestUtils.setField(limiter, "initialConcurrency", concurrency);
+		ReflectionTestUtils.setField(limiter, "minConcurrency", 1);
+		ReflectionTestUtils.setField(limiter, "maxConcurrency", 32);
+		ReflectionTestUtils.setField(limiter, "backoffRatio", 0.7);
+		ReflectionTestUtils.setField(limiter, "slowMsPerToken", 100L);
+		ReflectionTestUtils.setField(limiter, "maxQueued", 10);
+		ReflectionTestUtils.setField(limiter, "maxQueueWaitMs", 30_000L);
+		return limiter;
+	}
+
+	private static long deadlineIn(long millis) {
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	private static HttpHeaders headers(Map<String, List<String>> values) {
+		return HttpHeaders.of(values, (name, value) -> true);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
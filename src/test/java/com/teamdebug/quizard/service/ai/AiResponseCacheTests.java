@@ -0,0 +1,73 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiResponseCacheTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void keyCoversModelMessagesAndSamplingParameters() throws Exception {
+		AiResponseCache cache = newCache(60);
+		ChatRequest request = request("Summarize this", 0.3);
+
+		assertThat(cache.keyFor(request)).isEqualTo(cache.keyFor(request("Summarize this", 0.3)));
+		assertThat(cache.keyFor(request)).isNotEqualTo(cache.keyFor(request("Summarize that", 0.3)));
+		assertThat(cache.keyFor(request)).isNotEqualTo(cache.keyFor(request("Summarize this", 0.7)));
+
+		ChatRequest fresh = request("Summarize this", 0.3);
+		fresh.setBypassCache(true);
+		assertThat(cache.keyFor(fresh)).isEqualTo(cache.keyFor(request));
+	}
+
+	@Test
+	void servesFromMemoryThenFromDiskAfterRestart() throws Exception {
+		AiResponseCache cache = newCache(60);
+		String key = cache.keyFor(request("Summarize this", 0.3));
+		cache.put(key, "A summary");
+
+		assertThat(cache.get(key)).contains("A summary");
+		assertThat(cache.getStats().get("memoryHits")).isEqualTo(1);
+
+		AiResponseCache restarted = newCache(60);
+		assertThat(restarted.get(key)).contains("A summary");
+		assertThat(restarted.getStats().get("diskHits")).isEqualTo(1);
+	}
+
+	@Test
+	void expiresEntriesAfterTtl() throws Exception {
+		AiResponseCache cache = newCache(0);
+		String key = cache.keyFor(request("Summarize this", 0.3));
+		cache.put(key, "A summary");
+		Thread.sleep(5);
+
+		assertThat(cache.get(key)).isEmpty();
+		assertThat(cache.getStats().get("misses")).isEqualTo(1);
+	}
+
+	private AiResponseCache newCache(long ttlMinutes) throws Exception {
+		AiResponseCache cache = new AiResponseCache();
+		ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "memoryEntries", 10);
+		ReflectionTestUtils.setField(cache, "directory", directory.toString());
+		ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+		ReflectionTestUtils.setField(cache, "ttlMinutes", ttlMinutes);
+		cache.init();
+		return cache;
+	}
+
+	private static ChatRequest request(String prompt, double temperature) {
+		return new ChatRequest("gpt-3.5-turbo", List.of(ChatMessage.user(prompt)), 500, temperature);
+	}
+
+}
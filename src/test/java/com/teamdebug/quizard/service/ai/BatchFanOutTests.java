@@ -0,0 +1,79 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchFanOutTests {
+
+	private final BatchFanOut fanOut = newFanOut();
+
+	@AfterEach
+	void shutdown() {
+		fanOut.shutdown();
+	}
+
+	@Test
+	void retriesFailedBatchesAndTopsUpAfterDroppingDuplicates() {
+		String text = "First section about cells.\n\nSecond section about plants.\n\nThird section about animals.";
+		Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+		AtomicInteger topUps = new AtomicInteger();
+
+		List<String> items = fanOut.generate(text, 12, request -> {
+			String section = request.section();
+			int count = request.count();
+			boolean retry = request.retry();
+			if (section.startsWith("Second") && failedOnce.add(section)) {
+				throw new AiServiceException("Upstream timed out", 0);
+			}
+			if (!retry || section.startsWith("Second")) {
+				// Every first-round batch repeats one question the others also asked
+				List<String> batch = new ArrayList<>();
+				batch.add("What is the topic of this document?");
+				for (int i = 1; i < count; i++) {
+					batch.add(section.substring(0, 6) + " " + UUID.randomUUID());
+				}
+				return batch;
+			}
+			// Top-ups are shown what was already kept
+			assertThat(request.instructions()).contains("- What is the topic of this document?");
+			List<String> batch = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				topUps.incrementAndGet();
+				batch.add("Top-up " + UUID.randomUUID());
+			}
+			return batch;
+		}, Function.identity());
+
+		assertThat(items).hasSize(12).doesNotHaveDuplicates();
+		assertThat(items).filteredOn(item -> item.startsWith("What is the topic")).hasSize(1);
+		assertThat(items).anyMatch(item -> item.startsWith("Second"));
+		assertThat(topUps).hasPositiveValue();
+	}
+
+	private static BatchFanOut newFanOut() {
+		BatchFanOut fanOut = new BatchFanOut();
+		ReflectionTestUtils.setField(fanOut, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(fanOut, "tokenCounter", new TokenCounter());
+		ReflectionTestUtils.setField(fanOut, "batchSize", 4);
+		ReflectionTestUtils.setField(fanOut, "sectionTokens", 8);
+		ReflectionTestUtils.setField(fanOut, "parallelism", 2);
+		ReflectionTestUtils.setField(fanOut, "maxAttempts", 2);
+		ReflectionTestUtils.setField(fanOut, "maxRounds", 3);
+		ReflectionTestUtils.setField(fanOut, "similarityThreshold", 0.7);
+		fanOut.init();
+		return fanOut;
+	}
+}
@@ -0,0 +1,86 @@
+package com.teamdebug.quizard.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.dto.QuizQuestion;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonArrayStreamParserTests {
+
+	@Test
+	void emitsEachElementAsSoonAsItCloses() {
+		List<QuizQuestion> questions = new ArrayList<>();
+		JsonArrayStreamParser<QuizQuestion> parser =
+				new JsonArrayStreamParser<>(new ObjectMapper(), QuizQuestion.class, questions::add);
+
+		String first = "{\"question\":\"What is OOP?\",\"options\":[\"A) x\",\"B) y\",\"C) z\",\"D) w\"],\"correctAnswer\":\"A\"}";
+		String second = "{\"question\":\"What is a class?\",\"options\":[\"A) x\",\"B) y\",\"C) z\",\"D) w\"],\"correctAnswer\":\"B\"}";
+		String stream = "```json\n[" + first + ",\n" + second + "]\n```";
+
+		// Deliver in small deltas, the way a streamed completion does
+		int firstEnd = stream.indexOf(first) + first.length();
+		for (int i = 0; i < stream.length(); i += 7) {
+			parser.feed(stream.substring(i, Math.min(stream.length(), i + 7)));
+			if (i + 7 < firstEnd) {
+				assertThat(questions).isEmpty();
+			}
+			if (i + 7 >= firstEnd && i + 7 < stream.indexOf(second) + second.length()) {
+				assertThat(questions).hasSize(1);
+			}
+		}
+
+		assertThat(questions).extracting(QuizQuestion::getQuestion)
+				.containsExactly("What is OOP?", "What is a class?");
+		assertThat(parser.isFinished()).isTrue();
+	}
+
+	@Test
+	void skipsElementsThatDoNotMapAndResumesAfterMalformedOnes() {
+		List<QuizQuestion> questions = new ArrayList<>();
+		JsonArrayStreamParser<QuizQuestion> parser =
+				new JsonArrayStreamParser<>(new ObjectMapper(), QuizQuestion.class, questions::add);
+
+		parser.feed("Here you go: [{\"question\":\"Q1\",\"points\":\"many\"}, {\"question\":\"Q2\"}, {\"question\": oops");
+		assertThat(questions).extracting(QuizQuestion::getQuestion).containsExactly("Q2");
+		assertThat(parser.isFinished()).isFalse();
+
+		// Missing comma, an unescaped quote and a trailing comma; the stream then breaks off mid-element
+		parser.feed(", \"explanation\": \"x\"}, {\"question\":\"Q3\"} {\"question\":\"Q4\",}, ");
+		parser.feed("{\"question\":\"Say \"hi\"\"}, {\"question\":\"Q5\"}, {\"question\":\"Q6");
+
+		assertThat(questions).extracting(QuizQuestion::getQuestion).containsExactly("Q2", "Q3", "Q4", "Q5");
+		assertThat(parser.getSkipped()).isEqualTo(3);
+		assertThat(parser.isFinished()).isFalse();
+	}
+
+	@Test
+	void keepsOnlyTheBytesAfterTheLastCompleteElement() {
+		List<QuizQuestion> questions = new ArrayList<>();
+		JsonArrayStreamParser<QuizQuestion> parser =
+				new JsonArrayStreamParser<>(new ObjectMapper(), QuizQuestion.class, questions::add);
+
+		StringBuilder stream = new StringBuilder("[");
+		for (int i = 0; i < 2000; i++) {
+			// Every hundredth element is broken, so resyncs happen throughout the stream
+			stream.append(i % 100 == 50 ? "{\"question\": oops}, " : "{\"question\":\"Q" + i + "\"}, ");
+		}
+		stream.append("]");
+
+		int retained = 0;
+		for (int i = 0; i < stream.length(); i += 5) {
+			parser.feed(stream.substring(i, Math.min(stream.length(), i + 5)));
+			retained = Math.max(retained, (int) ReflectionTestUtils.getField(parser, "windowLength"));
+		}
+
+		assertThat(questions).hasSize(1980);
+		assertThat(parser.getSkipped()).isEqualTo(20);
+		assertThat(parser.isFinished()).isTrue();
+		assertThat(retained).isLessThan(64);
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.teamdebug.quizard.service.ai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBudgetPlannerTests {
+
+	private final TokenCounter tokenCounter = new TokenCounter();
+
+	@Test
+	void leavesInputThatFitsUntouched() {
+		TokenBudgetPlanner planner = newPlanner(1000);
+		String input = "Photosynthesis turns light into chemical energy.";
+
+		TokenBudget budget = planner.plan(input, 100, 300);
+
+		assertThat(budget.input()).isEqualTo(input);
+		assertThat(budget.isTrimmed()).isFalse();
+		assertThat(budget.inputTokens()).isEqualTo(tokenCounter.count(input));
+		assertThat(budget.maxTokens()).isEqualTo(300);
+	}
+
+	@Test
+	void trimsInputToWhatIsLeftOfTheContextWindow() {
+		TokenBudgetPlanner planner = newPlanner(1000);
+		String input = "The cell is the basic unit of life. ".repeat(200);
+
+		TokenBudget budget = planner.plan(input, 100, 300);
+
+		assertThat(budget.isTrimmed()).isTrue();
+		assertThat(budget.inputTokens()).isLessThanOrEqualTo(1000 - 100 - 300 - 64);
+		assertThat(input).startsWith(budget.input());
+		assertThat(budget.input()).endsWith(".");
+	}
+
+	@Test
+	void capsAnswerAtModelOutputLimit() {
+		TokenBudgetPlanner planner = newPlanner(16385);
+
+		assertThat(planner.outputTokens(5000)).isEqualTo(4096);
+		assertThat(planner.plan("Short text", 50, 9000).maxTokens()).isEqualTo(4096);
+	}
+
+	@Test
+	void countsChatFramingOnTopOfContent() {
+		int content = tokenCounter.count("system") + tokenCounter.count("Be brief")
+				+ tokenCounter.count("user") + tokenCounter.count("Hello there");
+
+		int prompt = tokenCounter.countMessages(List.of(ChatMessage.system("Be brief"), ChatMessage.user("Hello there")));
+
+		assertThat(prompt).isEqualTo(content + 3 * 2 + 3);
+	}
+
+	private TokenBudgetPlanner newPlanner(int contextWindow) {
+		TokenBudgetPlanner planner = new TokenBudgetPlanner();
+		ReflectionTestUtils.setField(planner, "tokenCounter", tokenCounter);
+		ReflectionTestUtils.setField(planner, "contextWindow", contextWindow);
+		ReflectionTestUtils.setField(planner, "maxOutputTokens", 4096);
+		ReflectionTestUtils.setField(planner, "safetyMargin", 64);
+		return planner;
+	}
+}
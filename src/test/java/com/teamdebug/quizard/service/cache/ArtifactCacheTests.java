@@ -0,0 +1,118 @@
+package com.teamdebug.quizard.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactCacheTests {
+
+	private static final String SETTINGS = "local-v2;quiz=5";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void identicalUploadsGetTheSameKeyAndOtherSettingsDoNot() throws Exception {
+		ArtifactCache cache = newCache(1024 * 1024);
+
+		String first = cache.keyFor(upload("Cells are the basic unit of life."), SETTINGS);
+		String second = cache.keyFor(upload("Cells are the basic unit of life."), SETTINGS);
+
+		assertThat(first).isEqualTo(second).hasSize(64);
+		assertThat(cache.keyFor(upload("Cells are the basic unit of life!"), SETTINGS)).isNotEqualTo(first);
+		assertThat(cache.keyFor(upload("Cells are the basic unit of life."), "local-v3;quiz=5")).isNotEqualTo(first);
+	}
+
+	@Test
+	void streamsBackTheTextAndArtifactsOnAHit() throws Exception {
+		ArtifactCache cache = newCache(1024 * 1024);
+		String key = cache.keyFor(upload("notes"), SETTINGS);
+		String text = "Mitochondria produce energy. ".repeat(1_000);
+
+		assertThat(cache.get(key, chunk -> { })).isEmpty();
+
+		cache.put(key, artifacts("notes.txt"), new StringReader(text));
+		StringBuilder restored = new StringBuilder();
+		Optional<CachedArtifacts> hit = cache.get(key, restored::append);
+
+		assertThat(hit).isPresent();
+		assertThat(hit.get().getFileName()).isEqualTo("notes.txt");
+		assertThat(hit.get().getQuizItems()).extracting(QuizItem::getCorrectAnswer).containsExactly("energy");
+		assertThat(restored.toString()).isEqualTo(text);
+		assertThat(cache.getStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntriesPastMaxBytes() throws Exception {
+		ArtifactCache cache = newCache(Long.MAX_VALUE);
+		cache.put("a", artifacts("a"), new StringReader("first text"));
+		long entryBytes = cache.getStats().get("bytes");
+		ReflectionTestUtils.setField(cache, "maxBytes", entryBytes * 2 + entryBytes / 2);
+
+		cache.put("b", artifacts("b"), new StringReader("other text"));
+		// Reading "a" makes "b" the eldest
+		assertThat(cache.get("a", chunk -> { })).isPresent();
+		cache.put("c", artifacts("c"), new StringReader("third text"));
+
+		assertThat(cache.get("b", chunk -> { })).isEmpty();
+		assertThat(cache.get("a", chunk -> { })).isPresent();
+		assertThat(cache.get("c", chunk -> { })).isPresent();
+		assertThat(cache.getStats()).containsEntry("entries", 2L).containsEntry("evictions", 1L);
+		assertThat(Files.exists(directory.resolve("b.entry.gz"))).isFalse();
+	}
+
+	@Test
+	void rebuildsTheIndexFromDiskOnRestart() throws Exception {
+		ArtifactCache before = newCache(1024 * 1024);
+		before.put("old", artifacts("old"), new StringReader("old text"));
+		before.put("new", artifacts("new"), new StringReader("new text"));
+		Files.setLastModifiedTime(directory.resolve("old.entry.gz"), FileTime.fromMillis(1_000));
+		Files.writeString(directory.resolve("stale.tmp"), "half-written");
+
+		long entryBytes = Files.size(directory.resolve("new.entry.gz"));
+		ArtifactCache after = newCache(entryBytes + entryBytes / 2);
+
+		// Only the most recently used entry fits the smaller budget
+		assertThat(after.getStats()).containsEntry("entries", 1L).containsEntry("evictions", 1L);
+		StringBuilder restored = new StringBuilder();
+		assertThat(after.get("new", restored::append)).isPresent();
+		assertThat(restored.toString()).isEqualTo("new text");
+		assertThat(after.get("old", chunk -> { })).isEmpty();
+		assertThat(Files.exists(directory.resolve("stale.tmp"))).isFalse();
+	}
+
+	private ArtifactCache newCache(long maxBytes) throws Exception {
+		ArtifactCache cache = new ArtifactCache();
+		ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "directory", directory.toString());
+		ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+		cache.init();
+		return cache;
+	}
+
+	private static ByteArrayResource upload(String content) {
+		return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static CachedArtifacts artifacts(String fileName) {
+		QuizItem quizItem = new QuizItem();
+		quizItem.setQuestion("Mitochondria produce ________.");
+		quizItem.setChoices(List.of("energy", "water", "light", "salt"));
+		quizItem.setCorrectAnswer("energy");
+		return new CachedArtifacts(fileName, "summary", List.of(), List.of(quizItem));
+	}
+}
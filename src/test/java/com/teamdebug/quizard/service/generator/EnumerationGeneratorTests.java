@@ -0,0 +1,35 @@
+package com.teamdebug.quizard.service.generator;
+
+import com.teamdebug.quizard.model.dto.Flashcard;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnumerationGeneratorTests {
+
+	private final EnumerationGenerator generator = new EnumerationGenerator();
+
+	@Test
+	void turnsAListSentenceIntoACardAskingForItsItems() {
+		String text = "Plant cells contain organelles such as chloroplasts, mitochondria, vacuoles and ribosomes. "
+				+ "Leaves are broad and flat.";
+
+		List<Flashcard> cards = generator.generate(text, 3);
+
+		assertThat(cards).singleElement().satisfies(card -> {
+			assertThat(card.getFront()).isEqualTo("Name the 4 items: Plant cells contain organelles such as ...");
+			assertThat(card.getBack()).isEqualTo("1. chloroplasts\n2. mitochondria\n3. vacuoles\n4. ribosomes");
+		});
+	}
+
+	@Test
+	void skipsPhrasesThatOnlyLookLikeLists() {
+		// No comma after "are", and a colon followed by a clause instead of short items
+		String text = "Enzymes are fast and cheap. "
+				+ "The rule is simple: every cell that divides must first copy all of its genetic material exactly once.";
+
+		assertThat(generator.generate(text, 3)).isEmpty();
+	}
+}
@@ -0,0 +1,44 @@
+package com.teamdebug.quizard.service.generator;
+
+import com.teamdebug.quizard.model.dto.Flashcard;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentificationGeneratorTests {
+
+	private final IdentificationGenerator generator = new IdentificationGenerator();
+
+	@Test
+	void asksForDefinedTermsFirstThenBlanksKeyTerms() {
+		String text = "Photosynthesis is the process plants use to turn sunlight into chemical energy. "
+				+ "It is also the reason leaves look green in summer. "
+				+ "Mitochondria release stored energy from glucose during respiration.";
+
+		List<Flashcard> cards = generator.generate(text, 5);
+
+		assertThat(cards).hasSize(3);
+		assertThat(cards.get(0).getFront()).isEqualTo("What is Photosynthesis?");
+		assertThat(cards.get(0).getBack()).startsWith("Photosynthesis is the process");
+		// A pronoun subject is not a definition; that sentence gets a blank instead
+		for (Flashcard card : cards.subList(1, 3)) {
+			assertThat(card.getFront()).startsWith("Fill in the blank: ").contains("________")
+					.doesNotContain(card.getBack());
+		}
+	}
+
+	@Test
+	void neverReturnsMoreThanAskedFor() {
+		String text = "Osmosis is the movement of water across a membrane. "
+				+ "Diffusion is the spread of particles from high to low concentration. "
+				+ "Catalysis is the acceleration of a reaction by an enzyme.";
+
+		List<Flashcard> cards = generator.generate(text, 2);
+
+		assertThat(cards).hasSize(2).allMatch(card -> card.getFront().startsWith("What is "));
+		assertThat(generator.generate(text, 2)).extracting(Flashcard::getFront)
+				.isEqualTo(cards.stream().map(Flashcard::getFront).toList());
+	}
+}
@@ -0,0 +1,79 @@
+package com.teamdebug.quizard.service.generator;
+
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.service.text.SegmentedText;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultipleChoiceGeneratorTests {
+
+	private static final String TEXT = "Photosynthesis converts sunlight into chemical energy inside plants. "
+		+ "Respiration releases stored energy from glucose molecules. "
+		+ "Fermentation happens quickly when oxygen is missing entirely. "
+		+ "Chloroplasts capture sunlight using green pigments called chlorophyll. "
+		+ "Mitochondria produce usable energy through cellular respiration. "
+		+ "Transpiration moves water upward through the plant stems. "
+		+ "Germination begins when seeds absorb enough water.";
+
+	private final MultipleChoiceGenerator generator = new MultipleChoiceGenerator();
+
+	@Test
+	void blanksTheKeyTermAndOffersLookAlikeDistractors() {
+		List<QuizItem> items = generator.generateQuizItems(SegmentedText.of(TEXT), 7);
+
+		assertThat(items).isNotEmpty();
+		for (QuizItem item : items) {
+			assertThat(item.getChoices()).hasSize(4).doesNotHaveDuplicates().contains(item.getCorrectAnswer());
+			assertThat(item.getQuestion()).contains("________").doesNotContain(item.getCorrectAnswer());
+		}
+
+		// "Photosynthesis" opens the first sentence: the -tion nouns are its closest look-alikes
+		QuizItem first = items.get(0);
+		assertThat(first.getCorrectAnswer()).isEqualTo("Photosynthesis");
+		assertThat(first.getChoices()).allMatch(choice -> Character.isUpperCase(choice.charAt(0)));
+		assertThat(first.getChoices()).containsAnyOf("Respiration", "Fermentation", "Transpiration", "Germination");
+	}
+
+	@Test
+	void sameTextGivesTheSameQuestions() {
+		SegmentedText content = SegmentedText.of(TEXT);
+
+		List<QuizItem> first = generator.generateQuizItems(content, 5);
+		List<QuizItem> second = generator.generateQuizItems(content, 5);
+
+		assertThat(first).hasSameSizeAs(second);
+		for (int i = 0; i < first.size(); i++) {
+			assertThat(first.get(i).getChoices()).isEqualTo(second.get(i).getChoices());
+		}
+	}
+
+	@Test
+	void distractorsKeepTheAnswersShape() {
+		TermIndex index = TermIndex.of(SegmentedText.of(TEXT));
+
+		List<TermIndex.Term> distractors = index.distractors(index.get("fermentation"), 3, Set.of(), new Random(1));
+
+		assertThat(distractors).extracting(term -> term.shape).containsOnly(TermIndex.Shape.ABSTRACT_NOUN);
+	}
+
+	@Test
+	void aDocumentWithTooFewKeyTermsStillGetsStatementItems() {
+		String text = "The cat sat on the mat. It was a hot day in May. We ran to the big red van. "
+			+ "He got a new pet dog too. All of us had fun at the zoo. Ok.";
+
+		List<QuizItem> items = generator.generateQuizItems(SegmentedText.of(text), 5);
+
+		assertThat(items).hasSize(5);
+		assertThat(items.get(0).getQuestion()).isEqualTo("Is this statement from the document? \"The cat sat on the mat\"");
+		for (QuizItem item : items) {
+			assertThat(item.getChoices()).hasSize(4).contains(item.getCorrectAnswer());
+			assertThat(item.getCorrectAnswer()).isEqualTo("True - This is correct");
+		}
+		assertThat(generator.generate(text, 5)).isEmpty();
+	}
+}
@@ -0,0 +1,148 @@
+package com.teamdebug.quizard.service.job;
+
+import com.teamdebug.quizard.controller.ReviewerController;
+import com.teamdebug.quizard.model.dto.UploadResult;
+import com.teamdebug.quizard.service.ReviewerService;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UploadJobServiceTests {
+
+	private final ReviewerService reviewerService = mock(ReviewerService.class);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final UploadJobService uploadJobService = new UploadJobService();
+	private MockMvc mvc;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() throws Exception {
+		when(reviewerService.processUpload(anyString(), any(), any())).thenAnswer(invocation -> {
+			Consumer<UploadStage> progress = invocation.getArgument(2);
+			progress.accept(UploadStage.EXTRACTING);
+			release.await(10, TimeUnit.SECONDS);
+			progress.accept(UploadStage.GENERATING_QUIZ);
+			progress.accept(UploadStage.DONE);
+			return new UploadResult(42L, invocation.getArgument(0), false);
+		});
+
+		ReflectionTestUtils.setField(uploadJobService, "reviewerService", reviewerService);
+		ReflectionTestUtils.setField(uploadJobService, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(uploadJobService, "workers", 1);
+		ReflectionTestUtils.setField(uploadJobService, "queueCapacity", 1);
+		ReflectionTestUtils.setField(uploadJobService, "jobRetentionMinutes", 30L);
+		uploadJobService.init();
+
+		ReviewerController controller = new ReviewerController();
+		ReflectionTestUtils.setField(controller, "uploadJobService", uploadJobService);
+		mvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		uploadJobService.shutdown();
+	}
+
+	@Test
+	void acceptsAnAsyncUploadAndReportsItsProgressUntilDone() throws Exception {
+		String jobId = submit("notes.txt");
+
+		mvc.perform(get("/api/reviewers/jobs/" + jobId))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.jobId").value(jobId))
+			.andExpect(jsonPath("$.fileName").value("notes.txt"));
+
+		MvcResult events = mvc.perform(get("/api/reviewers/jobs/" + jobId + "/events"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		release.countDown();
+		awaitStage(jobId, UploadStage.DONE);
+
+		mvc.perform(get("/api/reviewers/jobs/" + jobId))
+			.andExpect(jsonPath("$.status").value("DONE"))
+			.andExpect(jsonPath("$.id").value(42));
+		// The event goes out right after the stage changes
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!events.getResponse().getContentAsString().contains("event:done") && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(events.getResponse().getContentAsString())
+			.contains("event:generating_quiz")
+			.contains("event:done")
+			.contains("\"id\":42");
+	}
+
+	@Test
+	void rejectsWithRetryAfterWhenTheQueueIsFull() throws Exception {
+		String running = submit("first.txt");
+		awaitStage(running, UploadStage.EXTRACTING);
+		submit("second.txt");
+
+		mvc.perform(multipart("/api/reviewers/upload").file(file("third.txt")).param("async", "true"))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(header().string("Retry-After", "5"))
+			.andExpect(jsonPath("$.error").exists());
+	}
+
+	@Test
+	void forgetsFinishedJobsAfterTheRetentionPeriod() throws Exception {
+		String jobId = submit("notes.txt");
+		release.countDown();
+		awaitStage(jobId, UploadStage.DONE);
+
+		uploadJobService.purgeExpiredJobs();
+		assertThat(uploadJobService.getJob(jobId)).isPresent();
+
+		ReflectionTestUtils.setField(uploadJobService, "jobRetentionMinutes", -1L);
+		uploadJobService.purgeExpiredJobs();
+		assertThat(uploadJobService.getJob(jobId)).isEmpty();
+		mvc.perform(get("/api/reviewers/jobs/" + jobId)).andExpect(status().isNotFound());
+	}
+
+	private String submit(String fileName) throws Exception {
+		MvcResult result = mvc.perform(multipart("/api/reviewers/upload").file(file(fileName)).param("async", "true"))
+			.andExpect(status().isAccepted())
+			.andExpect(jsonPath("$.jobId").exists())
+			.andExpect(jsonPath("$.statusUrl").exists())
+			.andReturn();
+		return JsonPath.read(result.getResponse().getContentAsString(), "$.jobId");
+	}
+
+	private void awaitStage(String jobId, UploadStage stage) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (uploadJobService.getJob(jobId).map(UploadJob::getStage).orElse(null) != stage) {
+			assertThat(System.currentTimeMillis()).as("job %s reaching %s", jobId, stage).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static MockMultipartFile file(String fileName) {
+		return new MockMultipartFile("file", fileName, "text/plain", "Cells are the unit of life.".getBytes());
+	}
+}
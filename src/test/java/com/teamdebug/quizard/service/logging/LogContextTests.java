@@ -0,0 +1,50 @@
+package com.teamdebug.quizard.service.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogContextTests {
+
+	private final ExecutorService pool = Executors.newSingleThreadExecutor();
+
+	@AfterEach
+	void shutdown() {
+		pool.shutdownNow();
+		MDC.clear();
+	}
+
+	@Test
+	void carriesTheRequestIdOntoPoolThreadsAndCleansUpAfter() throws Exception {
+		MDC.put(LogContext.REQUEST_ID, "req-1");
+		String seen = CompletableFuture.supplyAsync(LogContext.wrap(() -> MDC.get(LogContext.REQUEST_ID)), pool).get();
+		MDC.clear();
+		String after = CompletableFuture.supplyAsync(() -> MDC.get(LogContext.REQUEST_ID), pool).get();
+
+		assertThat(seen).isEqualTo("req-1");
+		assertThat(after).isNull();
+	}
+
+	@Test
+	void samplesOnlyPayloadLoggers() {
+		LoggerContext context = new LoggerContext();
+		PayloadSamplingFilter filter = new PayloadSamplingFilter();
+		filter.setRate(0);
+
+		assertThat(filter.decide(null, context.getLogger("quizard.payload.quiz"), Level.DEBUG, "{}", null, null))
+				.isEqualTo(FilterReply.DENY);
+		assertThat(filter.decide(null, context.getLogger("quizard.payload.quiz"), Level.DEBUG, null, null, null))
+				.isEqualTo(FilterReply.NEUTRAL);
+		assertThat(filter.decide(null, context.getLogger("com.teamdebug.quizard.service.QuizGeneratorService"),
+				Level.DEBUG, "{}", null, null)).isEqualTo(FilterReply.NEUTRAL);
+	}
+}
@@ -0,0 +1,148 @@
+package com.teamdebug.quizard.service.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileParserTests {
+
+	@Test
+	void txtChunksAreBoundedAndReassembleToTheOriginalText() throws Exception {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			text.append("Sentence number ").append(i).append(" explains a concept. ");
+			if (i % 20 == 19) {
+				text.append("\n\n");
+			}
+		}
+		// One very long line with no paragraph breaks at all
+		text.append("word ".repeat(10_000));
+
+		List<TextChunk> chunks = new ArrayList<>();
+		new TxtParser().parse(new ByteArrayInputStream(("\uFEFF" + text).getBytes(StandardCharsets.UTF_8)), chunks::add);
+
+		StringBuilder joined = new StringBuilder();
+		long offset = 0;
+		for (int i = 0; i < chunks.size(); i++) {
+			TextChunk chunk = chunks.get(i);
+			assertThat(chunk.getIndex()).isEqualTo(i);
+			assertThat(chunk.getOffset()).isEqualTo(offset);
+			assertThat(chunk.length()).isLessThanOrEqualTo(ChunkAssembler.MAX_CHARS);
+			joined.append(chunk.getText());
+			offset += chunk.length();
+		}
+		assertThat(joined.toString()).isEqualTo(text.toString());
+	}
+
+	@Test
+	void docxParagraphsAreStreamedInOrder() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (XWPFDocument document = new XWPFDocument()) {
+			document.createParagraph().createRun().setText("Photosynthesis converts light into energy.");
+			document.createParagraph().createRun().setText("Chlorophyll absorbs red and blue light.");
+			document.write(bytes);
+		}
+
+		String text = new DocxParser().parse(bytes.toByteArray());
+
+		assertThat(text).isEqualTo("Photosynthesis converts light into energy.\nChlorophyll absorbs red and blue light.\n");
+	}
+
+	@Test
+	void pdfPagesAreExtractedInParallelAndKeepTheirOrder() throws Exception {
+		byte[] pdf = pdf(37);
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+		List<TextChunk> chunks = new ArrayList<>();
+		try {
+			new PdfParser(pool, 4).parse(new ByteArrayInputStream(pdf), chunks::add);
+		} finally {
+			pool.shutdown();
+		}
+
+		assertThat(chunks).hasSize(37);
+		long offset = 0;
+		for (int i = 0; i < chunks.size(); i++) {
+			TextChunk chunk = chunks.get(i);
+			assertThat(chunk.getPage()).isEqualTo(i + 1);
+			assertThat(chunk.getOffset()).isEqualTo(offset);
+			assertThat(chunk.getText().trim()).isEqualTo("Content of page " + (i + 1));
+			offset += chunk.length();
+		}
+	}
+
+	@Test
+	void aFailedPdfParseStopsEveryRangeBeforeReturning() throws Exception {
+		byte[] pdf = pdf(60);
+		AtomicInteger running = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(3) {
+			@Override
+			public <T> ForkJoinTask<T> submit(Callable<T> task) {
+				return super.submit(() -> {
+					running.incrementAndGet();
+					try {
+						return task.call();
+					} finally {
+						running.decrementAndGet();
+					}
+				});
+			}
+		};
+		try {
+			assertThatThrownBy(() -> new PdfParser(pool, 2).parse(new ByteArrayInputStream(pdf), chunk -> {
+				throw new IllegalStateException("sink failed");
+			})).hasMessage("sink failed");
+
+			// Nothing may still be reading the spooled file once parse has returned
+			assertThat(running).hasValue(0);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void collectorTrimsTheTextAndHeadLikeStringTrim() {
+		ChunkCollector collector = new ChunkCollector();
+		collector.accept(new TextChunk(0, 0, 0, "\n  First part. "));
+		collector.accept(new TextChunk(1, 15, 0, "Second part.\t\n"));
+
+		assertThat(collector.getText()).isEqualTo("First part. Second part.");
+		assertThat(collector.getHead()).isEqualTo("First part. Second part.");
+		assertThat(new ChunkCollector().getText()).isEmpty();
+	}
+
+	private static byte[] pdf(int pages) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (PDDocument document = new PDDocument()) {
+			for (int i = 1; i <= pages; i++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA, 12);
+					content.newLineAtOffset(72, 700);
+					content.showText("Content of page " + i);
+					content.endText();
+				}
+			}
+			document.save(bytes);
+		}
+		return bytes.toByteArray();
+	}
+}
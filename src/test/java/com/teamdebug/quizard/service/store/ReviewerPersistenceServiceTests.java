@@ -0,0 +1,68 @@
+package com.teamdebug.quizard.service.store;
+
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.model.entity.Reviewer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReviewerPersistenceServiceTests {
+
+	@Autowired
+	private ReviewerPersistenceService persistenceService;
+
+	@Autowired
+	private ReviewerStore reviewerStore;
+
+	@Autowired
+	private TextSegmentStore textSegmentStore;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void savesReviewerWithOneBatchPerTableAndLoadsItBack() {
+		Reviewer reviewer = new Reviewer();
+		reviewer.setFileName("notes.txt");
+		reviewer.setSummarizedText("summary");
+
+		List<Flashcard> flashcards = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			flashcards.add(new Flashcard(null, "term " + i, "definition " + i));
+		}
+		List<QuizItem> quizItems = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			quizItems.add(new QuizItem(null, "question " + i, List.of("a", "b", "c", "d"), "a", "MCQ"));
+		}
+		reviewerStore.assignIds(reviewer, flashcards, quizItems);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		persistenceService.save(reviewer, textSegmentStore.store("The original text of the notes."), flashcards, quizItems);
+
+		// One insert batch each for reviewers, flashcards and quiz items
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(26);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+		ReviewerPersistenceService.ReviewerRecord loaded = persistenceService.load(reviewer.getId()).orElseThrow();
+		assertThat(loaded.originalText().load()).isEqualTo("The original text of the notes.");
+		// Stored deflated, and handed back into the segment store without a heap copy of the text
+		assertThat(loaded.originalText().getHeapChars()).isZero();
+		assertThat(loaded.reviewer().getCompressedOriginalText()).isNull();
+		assertThat(loaded.flashcards()).extracting(Flashcard::getTerm).containsExactly(
+				flashcards.stream().map(Flashcard::getTerm).toArray(String[]::new));
+		assertThat(loaded.quizItems()).hasSize(5);
+		assertThat(loaded.quizItems().get(0).getChoices()).containsExactly("a", "b", "c", "d");
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.teamdebug.quizard.service.store;
+
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.Reviewer;
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewerStoreTests {
+
+	@Test
+	void concurrentPutsNeverShareIds() throws Exception {
+		ReviewerStore store = newStore(Long.MAX_VALUE);
+		Set<Long> reviewerIds = ConcurrentHashMap.newKeySet();
+		Set<Long> flashcardIds = ConcurrentHashMap.newKeySet();
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 1000; i++) {
+			pool.execute(() -> {
+				List<Flashcard> cards = List.of(new Flashcard(null, "term", "definition"),
+						new Flashcard(null, "term", "definition"));
+				reviewerIds.add(store.put(reviewer(), new StoredText("text"), cards, List.of()));
+				cards.forEach(card -> flashcardIds.add(card.getId()));
+			});
+		}
+		pool.shutdown();
+		assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(reviewerIds).hasSize(1000);
+		assertThat(flashcardIds).hasSize(2000);
+		assertThat(store.size()).isEqualTo(1000);
+	}
+
+	@Test
+	void evictsLeastRecentlyReadReviewersByRetainedSize() {
+		ReviewerStore store = newStore(10_000);
+		String text = "x".repeat(1_000); // roughly 2 KB retained each
+
+		Long first = store.put(reviewer(), new StoredText(text), List.of(), List.of());
+		Long second = store.put(reviewer(), new StoredText(text), List.of(), List.of());
+		store.put(reviewer(), new StoredText(text), List.of(), List.of());
+		store.put(reviewer(), new StoredText(text), List.of(), List.of());
+		store.getReviewer(first); // keep the first one warm
+		store.put(reviewer(), new StoredText(text), List.of(), List.of());
+		store.put(reviewer(), new StoredText(text), List.of(), List.of());
+
+		assertThat(store.getRetainedBytes()).isLessThanOrEqualTo(10_000);
+		assertThat(store.getReviewer(first)).isNotNull();
+		assertThat(store.getReviewer(second)).isNull();
+		assertThat(store.getStats().get("evictions")).isPositive();
+	}
+
+	@Test
+	void readerOpenedBeforeEvictionKeepsWorking(@TempDir Path directory) throws Exception {
+		TextSegmentStore segments = new TextSegmentStore();
+		ReflectionTestUtils.setField(segments, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(segments, "enabled", true);
+		ReflectionTestUtils.setField(segments, "directory", directory.toString());
+		ReflectionTestUtils.setField(segments, "segmentBytes", 64L);
+		segments.init();
+		ReviewerStore store = newStore(1_000);
+		String text = "Osmosis moves water across a membrane. ".repeat(500);
+
+		Long id = store.put(reviewer(), segments.store(text), List.of(), List.of());
+		segments.store("roll the segment over so it can be deleted");
+		Reader reader = store.openOriginalText(id);
+		// Big enough to evict the first reviewer
+		store.put(reviewer(), new StoredText("x".repeat(1_000)), List.of(), List.of());
+
+		assertThat(store.getReviewer(id)).isNull();
+		assertThat(store.openOriginalText(id)).isNull();
+		assertThat(directory.resolve("0.seg")).exists();
+		StringWriter read = new StringWriter();
+		try (reader) {
+			reader.transferTo(read);
+		}
+		assertThat(read.toString()).isEqualTo(text);
+		// Last reader closed: the segment file is gone
+		assertThat(directory.resolve("0.seg")).doesNotExist();
+	}
+
+	private static ReviewerStore newStore(long maxBytes) {
+		ReviewerStore store = new ReviewerStore();
+		ReflectionTestUtils.setField(store, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(store, "maxBytes", maxBytes);
+		ReflectionTestUtils.setField(store, "idAllocator", new AtomicIdAllocator());
+		return store;
+	}
+
+	private static Reviewer reviewer() {
+		Reviewer reviewer = new Reviewer();
+		reviewer.setFileName("notes.txt");
+		reviewer.setSummarizedText("summary");
+		return reviewer;
+	}
+
+}
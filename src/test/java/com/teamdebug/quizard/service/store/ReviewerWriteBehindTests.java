@@ -0,0 +1,130 @@
+package com.teamdebug.quizard.service.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamdebug.quizard.model.entity.Flashcard;
+import com.teamdebug.quizard.model.entity.QuizItem;
+import com.teamdebug.quizard.model.entity.Reviewer;
+import com.teamdebug.quizard.repository.FlashcardRepository;
+import com.teamdebug.quizard.repository.ReviewerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+class ReviewerWriteBehindTests {
+
+	@Autowired
+	private ReviewerWriteBehind writeBehind;
+
+	@Autowired
+	private ReviewerStore reviewerStore;
+
+	@Autowired
+	private TextSegmentStore textSegmentStore;
+
+	@Autowired
+	private ReviewerPersistenceService persistenceService;
+
+	@Autowired
+	private ReviewerRepository reviewerRepository;
+
+	@Autowired
+	private FlashcardRepository flashcardRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void flushesSubmittedReviewersInTheBackground() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Reviewer reviewer = new Reviewer();
+			reviewer.setFileName("notes-" + i + ".txt");
+			reviewer.setSummarizedText("summary " + i);
+			List<Flashcard> flashcards = List.of(new Flashcard(null, "term", "definition"));
+			List<QuizItem> quizItems = List.of(new QuizItem(null, "question", List.of("a", "b"), "a", "MCQ"));
+
+			reviewerStore.assignIds(reviewer, flashcards, quizItems);
+			writeBehind.submit(reviewer, textSegmentStore.store("Original text " + i), flashcards, quizItems);
+			ids.add(reviewer.getId());
+		}
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (writeBehind.getStats().get("pending") > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+
+		assertThat(writeBehind.getStats().get("pending")).isZero();
+		assertThat(writeBehind.getPending(ids.get(0))).isEmpty();
+		assertThat(reviewerRepository.findAllById(ids)).hasSize(10);
+		assertThat(persistenceService.load(ids.get(3)).orElseThrow().originalText().load()).isEqualTo("Original text 3");
+		assertThat(flashcardRepository.findByReviewerIdOrderByIdAsc(ids.get(9))).hasSize(1);
+		// Far fewer transactions than reviewers
+		assertThat(writeBehind.getStats().get("flushedBatches")).isLessThan(10);
+	}
+
+	@Test
+	void journalsTheTextDeflatedAndReplaysCrashLeftovers(@TempDir Path journalDir) throws Exception {
+		// A crash leftover: JSON header, text length, then the deflated text
+		try (DataOutputStream leftover = new DataOutputStream(
+				Files.newOutputStream(journalDir.resolve("reviewer-41.journal")))) {
+			byte[] header = objectMapper.writeValueAsBytes(Map.of("id", 41, "fileName", "old.txt",
+					"summarizedText", "old summary", "flashcards", List.of(), "quizItems", List.of()));
+			ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+			TextSegmentStore.deflate("Leftover text", deflated);
+			leftover.writeInt(header.length);
+			leftover.write(header);
+			leftover.writeLong("Leftover text".length());
+			leftover.write(deflated.toByteArray());
+		}
+
+		ReviewerPersistenceService persistence = mock(ReviewerPersistenceService.class);
+		List<String> flushedTexts = new CopyOnWriteArrayList<>();
+		doAnswer(invocation -> {
+			List<ReviewerPersistenceService.ReviewerRecord> records = invocation.getArgument(0);
+			records.forEach(record -> flushedTexts.add(record.originalText().load()));
+			return null;
+		}).when(persistence).saveAll(anyList());
+
+		ReviewerWriteBehind journal = new ReviewerWriteBehind();
+		ReflectionTestUtils.setField(journal, "reviewerPersistenceService", persistence);
+		ReflectionTestUtils.setField(journal, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(journal, "queueCapacity", 10);
+		ReflectionTestUtils.setField(journal, "batchSize", 10);
+		ReflectionTestUtils.setField(journal, "flushIntervalMs", 50L);
+		ReflectionTestUtils.setField(journal, "offerTimeoutMs", 100L);
+		ReflectionTestUtils.setField(journal, "journalDirectory", journalDir.toString());
+		journal.init();
+		try {
+			Reviewer reviewer = new Reviewer(42L, "new.txt", "new summary");
+			String text = "Deflated text ".repeat(200);
+			journal.submit(reviewer, textSegmentStore.store(text), List.of(), List.of());
+
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (flushedTexts.size() < 2 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+			assertThat(flushedTexts).containsExactlyInAnyOrder("Leftover text", text);
+			assertThat(journalDir).isEmptyDirectory();
+		} finally {
+			journal.shutdown();
+		}
+	}
+
+}
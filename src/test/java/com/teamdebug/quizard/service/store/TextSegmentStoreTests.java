@@ -0,0 +1,71 @@
+package com.teamdebug.quizard.service.store;
+
+import com.teamdebug.quizard.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextSegmentStoreTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void storesCompressedTextOffHeapAndLoadsItLazily() throws Exception {
+		TextSegmentStore store = newStore(1024 * 1024);
+		String text = "Osmosis is the movement of water across a membrane. ".repeat(2_000) + "Ω end";
+
+		TextSegmentStore.TextWriter writer = store.newWriter();
+		for (int i = 0; i < text.length(); i += 1000) {
+			writer.append(text, i, Math.min(text.length(), i + 1000));
+		}
+		StoredText stored = writer.finish();
+
+		assertThat(stored.getHeapChars()).isZero();
+		assertThat(stored.length()).isEqualTo(text.length());
+		assertThat(stored.getCompressedLength()).isLessThan(text.length() / 10);
+		assertThat(stored.load()).isEqualTo(text);
+	}
+
+	@Test
+	void deletesSealedSegmentsOnceAllTextsAreReleased() throws Exception {
+		TextSegmentStore store = newStore(64);
+		List<StoredText> texts = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			texts.add(store.store("Reviewer text number " + i + " with some extra words to compress."));
+		}
+		assertThat(segmentFiles()).isEqualTo(5);
+
+		texts.subList(0, 4).forEach(StoredText::release);
+
+		// The newest segment is still open for writes
+		assertThat(segmentFiles()).isEqualTo(1);
+		assertThat(texts.get(4).load()).startsWith("Reviewer text number 4");
+	}
+
+	private TextSegmentStore newStore(long segmentBytes) throws Exception {
+		TextSegmentStore store = new TextSegmentStore();
+		ReflectionTestUtils.setField(store, "pipelineMetrics", new PipelineMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "directory", directory.toString());
+		ReflectionTestUtils.setField(store, "segmentBytes", segmentBytes);
+		store.init();
+		return store;
+	}
+
+	private long segmentFiles() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+}
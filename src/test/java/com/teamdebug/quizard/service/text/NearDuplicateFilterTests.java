@@ -0,0 +1,25 @@
+package com.teamdebug.quizard.service.text;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearDuplicateFilterTests {
+
+	@Test
+	void rejectsRewordingsButKeepsDistinctQuestions() {
+		NearDuplicateFilter filter = new NearDuplicateFilter(0.7);
+
+		assertThat(filter.add("What is the primary function of the mitochondria?")).isTrue();
+		assertThat(filter.add("what is the primary function of the  Mitochondria")).isFalse();
+		assertThat(filter.add("What is the primary function of mitochondria?")).isFalse();
+		assertThat(filter.add("Which organelle builds proteins from amino acids?")).isTrue();
+	}
+
+	@Test
+	void estimatesSimilarityFromSignatures() {
+		assertThat(NearDuplicateFilter.similarity("Define osmosis.", "Define osmosis")).isEqualTo(1.0);
+		assertThat(NearDuplicateFilter.similarity("Define osmosis.", "Name three causes of the French Revolution."))
+				.isLessThan(0.2);
+	}
+}
@@ -0,0 +1,31 @@
+package com.teamdebug.quizard.service.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParagraphChunkerTests {
+
+	@Test
+	void packsWholeParagraphsUnderTheBudget() {
+		String text = "First paragraph here.\n\nSecond paragraph here.\n\n\nThird paragraph here.";
+
+		List<String> chunks = ParagraphChunker.split(text, 45, String::length);
+
+		assertThat(chunks).containsExactly("First paragraph here.\n\nSecond paragraph here.", "Third paragraph here.");
+	}
+
+	@Test
+	void fallsBackToSentencesThenHardCuts() {
+		String text = "One short sentence. Another short one.\n\n" + "x".repeat(50);
+
+		List<String> chunks = ParagraphChunker.split(text, 20, String::length);
+
+		assertThat(chunks).startsWith("One short sentence.", "Another short one.");
+		assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(20));
+		assertThat(String.join("", chunks.subList(2, chunks.size()))).isEqualTo("x".repeat(50));
+	}
+
+}
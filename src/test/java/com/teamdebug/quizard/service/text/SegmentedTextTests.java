@@ -0,0 +1,39 @@
+package com.teamdebug.quizard.service.text;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentedTextTests {
+
+	@Test
+	void matchesRegexSplittingOfSentencesAndTokens() {
+		String text = "  Cells are the basic unit of life.  Mitochondria\tproduce ATP!! Why?\n\nDNA stores   genetic information... end";
+
+		String[] sentences = text.split("[.!?]+");
+		SegmentedText segmented = SegmentedText.of(text);
+
+		assertThat(segmented.sentenceCount()).isEqualTo(sentences.length);
+		for (int i = 0; i < sentences.length; i++) {
+			String trimmed = sentences[i].trim();
+			assertThat(segmented.sentence(i)).isEqualTo(trimmed);
+			assertThat(segmented.sentenceLength(i)).isEqualTo(trimmed.length());
+
+			String[] words = trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+			assertThat(segmented.tokenCount(i)).isEqualTo(words.length);
+			for (int t = 0; t < words.length; t++) {
+				assertThat(segmented.token(i, t)).isEqualTo(words[t]);
+			}
+		}
+	}
+
+	@Test
+	void appendsTokenRangesWithSingleSpaces() {
+		SegmentedText segmented = SegmentedText.of("The  quick brown\nfox jumps over the lazy dog.");
+
+		String joined = segmented.appendTokens(new StringBuilder(), 0, 1, 4).toString();
+
+		assertThat(joined).isEqualTo("quick brown fox");
+	}
+
+}